@@ -0,0 +1,34 @@
+package com.github.shafina.squadgoals.config;
+
+import com.github.shafina.squadgoals.repository.JobLeaseRepository;
+import com.github.shafina.squadgoals.service.DatabaseLeaseManager;
+import com.github.shafina.squadgoals.service.InMemoryLeaseManager;
+import com.github.shafina.squadgoals.service.LeaseManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Clock;
+
+/**
+ * Turns on {@code @Scheduled} jobs. Jobs that must run on one node at a time go through
+ * {@link com.github.shafina.squadgoals.service.LeaseRunner}, whose leases live in the database unless
+ * {@code squadgoals.leases.store=memory}.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "squadgoals.leases.store", havingValue = "database", matchIfMissing = true)
+    public LeaseManager databaseLeaseManager(JobLeaseRepository leaseRepository) {
+        return new DatabaseLeaseManager(leaseRepository, Clock.systemDefaultZone());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "squadgoals.leases.store", havingValue = "memory")
+    public LeaseManager inMemoryLeaseManager() {
+        return new InMemoryLeaseManager(Clock.systemDefaultZone());
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.shafina.squadgoals.config;
+
+import com.github.shafina.squadgoals.security.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
+@Configuration
+public class TokenVerifierConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "squadgoals.auth.verifier", havingValue = "firebase", matchIfMissing = true)
+    public IdTokenVerifier firebaseSdkIdTokenVerifier(
+            @Value("${squadgoals.auth.check-revoked:false}") boolean checkRevoked) {
+        return new FirebaseSdkIdTokenVerifier(checkRevoked);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "squadgoals.auth.verifier", havingValue = "offline")
+    public RotatingKeySet signingKeySet(
+            @Value("${squadgoals.auth.keyset.file:}") String keySetFile,
+            @Value("${squadgoals.auth.keyset.url:" + HttpKeySetSource.FIREBASE_JWKS_URL + "}") String keySetUrl,
+            @Value("${squadgoals.auth.keyset.file-max-age:PT1H}") Duration fileMaxAge,
+            @Value("${squadgoals.auth.keyset.refresh-ahead:PT10M}") Duration refreshAhead,
+            @Value("${squadgoals.auth.keyset.retry-delay:PT30S}") Duration retryDelay) {
+        Clock clock = Clock.systemUTC();
+
+        KeySetSource source = keySetFile.isBlank()
+                ? new HttpKeySetSource(URI.create(keySetUrl), clock)
+                : new FileKeySetSource(Path.of(keySetFile), fileMaxAge, clock);
+
+        RotatingKeySet keySet = new RotatingKeySet(source, refreshAhead, retryDelay, clock);
+        keySet.start();
+        return keySet;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "squadgoals.auth.verifier", havingValue = "offline")
+    public IdTokenVerifier offlineIdTokenVerifier(
+            RotatingKeySet signingKeySet,
+            @Value("${squadgoals.auth.project-id}") String projectId,
+            @Value("${squadgoals.auth.clock-skew:PT1M}") Duration clockSkew) {
+        if (projectId.isBlank()) {
+            throw new IllegalStateException("squadgoals.auth.project-id is required for offline token verification");
+        }
+
+        return new OfflineIdTokenVerifier(signingKeySet, projectId, clockSkew, Clock.systemUTC());
+    }
+}
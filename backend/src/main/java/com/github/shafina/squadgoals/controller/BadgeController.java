@@ -0,0 +1,25 @@
+package com.github.shafina.squadgoals.controller;
+
+import com.github.shafina.squadgoals.dto.BadgeCounts;
+import com.github.shafina.squadgoals.security.AuthenticatedUser;
+import com.github.shafina.squadgoals.service.BadgeCounters;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/badges")
+public class BadgeController {
+
+    private final BadgeCounters badgeCounters;
+
+    public BadgeController(BadgeCounters badgeCounters) {
+        this.badgeCounters = badgeCounters;
+    }
+
+    @GetMapping
+    public ResponseEntity<BadgeCounts> getBadges(AuthenticatedUser currentUser) {
+        return ResponseEntity.ok(badgeCounters.get(currentUser.id()));
+    }
+}
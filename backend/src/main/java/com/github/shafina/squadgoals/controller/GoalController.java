@@ -1,49 +1,70 @@
 package com.github.shafina.squadgoals.controller;
 
 import com.github.shafina.squadgoals.dto.CreateGoalRequest;
+import com.github.shafina.squadgoals.dto.CursorPage;
 import com.github.shafina.squadgoals.dto.GoalDTO;
+import com.github.shafina.squadgoals.dto.KeysetCursor;
 import com.github.shafina.squadgoals.enums.NotificationType;
+import com.github.shafina.squadgoals.event.GoalCreatedEvent;
 import com.github.shafina.squadgoals.enums.InvitationStatus;
 import com.github.shafina.squadgoals.model.*;
 import com.github.shafina.squadgoals.repository.*;
+import com.github.shafina.squadgoals.security.AuthenticatedUser;
+import com.github.shafina.squadgoals.security.AuthenticatedUserResolver;
+import com.github.shafina.squadgoals.service.BadgeCounters;
+import com.github.shafina.squadgoals.service.NotificationDispatcher;
+import com.github.shafina.squadgoals.service.NotificationDraft;
+import com.github.shafina.squadgoals.service.RecentGoalsBuffer;
+import org.springframework.context.ApplicationEventPublisher;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/goals")
 public class GoalController {
 
+    private static final int MAX_FEED_LIMIT = 50;
+
     private final GoalRepository goalRepository;
     private final UserRepository userRepository;
     private final TagRepository tagRepository;
     private final InvitationRepository invitationRepository;
-    private final NotificationRepository notificationRepository;
+    private final NotificationDispatcher notificationDispatcher;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
+    private final RecentGoalsBuffer recentGoalsBuffer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BadgeCounters badgeCounters;
 
     public GoalController(GoalRepository goalRepository, UserRepository userRepository, TagRepository tagRepository,
-            InvitationRepository invitationRepository, NotificationRepository notificationRepository) {
+            InvitationRepository invitationRepository, NotificationDispatcher notificationDispatcher,
+            AuthenticatedUserResolver authenticatedUserResolver, RecentGoalsBuffer recentGoalsBuffer,
+            ApplicationEventPublisher eventPublisher, BadgeCounters badgeCounters) {
         this.goalRepository = goalRepository;
         this.userRepository = userRepository;
         this.tagRepository = tagRepository;
         this.invitationRepository = invitationRepository;
-        this.notificationRepository = notificationRepository;
+        this.notificationDispatcher = notificationDispatcher;
+        this.authenticatedUserResolver = authenticatedUserResolver;
+        this.recentGoalsBuffer = recentGoalsBuffer;
+        this.eventPublisher = eventPublisher;
+        this.badgeCounters = badgeCounters;
     }
 
     @PostMapping
     @Transactional
     public ResponseEntity<GoalDTO> createGoal(@Valid @RequestBody CreateGoalRequest createGoalRequest,
-            Authentication authentication) {
-        String firebaseUid = authentication.getName();
-
-        User creator = userRepository.findByFirebaseUid(firebaseUid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+            AuthenticatedUser currentUser) {
+        User creator = userRepository.getReferenceById(currentUser.id());
 
         Goal goal = new Goal();
         goal.setCreatedBy(creator);
@@ -54,97 +75,158 @@ public class GoalController {
         goal.setStartAt(createGoalRequest.getStartAt());
         goal.setFrequency(createGoalRequest.getFrequency());
 
-        Set<Tag> tagEntities = Optional.ofNullable(createGoalRequest.getTagNames())
+        Set<String> tagNames = Optional.ofNullable(createGoalRequest.getTagNames()).orElse(Collections.emptySet());
+        goal.setTags(findOrCreateTags(tagNames));
+
+        Boolean isPublic = Optional.ofNullable(createGoalRequest.getPublic()).orElse(true);
+        goal.setPublic(isPublic);
+
+        Set<Long> inviteeIds = Optional.ofNullable(createGoalRequest.getSquadUserIds())
                 .orElse(Collections.emptySet())
                 .stream()
-                .map(tagName -> tagRepository.findByName(tagName).orElseGet(() -> {
-                    Tag tag = new Tag();
-                    tag.setName(tagName);
-                    return tagRepository.save(tag);
-                }))
+                .filter(userId -> !userId.equals(currentUser.id()))
                 .collect(Collectors.toSet());
 
-        goal.setTags(tagEntities);
-
-        Boolean isPublic = Optional.ofNullable(createGoalRequest.getPublic()).orElse(true);
-        goal.setPublic(isPublic);
+        List<User> invitees = findInvitees(inviteeIds);
 
         goal.setSquad(Set.of(creator));
-        Goal savedGoal = goalRepository.save(goal);
+        // Pooled ids defer the insert; flushing now reads back the database timestamps the DTO and feed need
+        Goal savedGoal = goalRepository.saveAndFlush(goal);
+
+        if (!invitees.isEmpty()) {
+            List<Invitation> invitations = new ArrayList<>(invitees.size());
+            List<NotificationDraft> notifications = new ArrayList<>(invitees.size());
+
+            for (User invitedUser : invitees) {
+                Invitation invitation = new Invitation();
+                invitation.setGoal(savedGoal);
+                invitation.setInvitedUser(invitedUser);
+                invitation.setInviter(creator);
+                invitation.setStatus(InvitationStatus.PENDING);
+                invitations.add(invitation);
+                badgeCounters.adjustPending(invitedUser.getId(), 1);
+
+                notifications.add(new NotificationDraft(invitedUser.getId(), creator.getId(), currentUser.name(),
+                        savedGoal.getId(), savedGoal.getTitle(), NotificationType.INVITE));
+            }
+
+            invitationRepository.saveAll(invitations);
+            // Written by the dispatcher after commit; the response does not wait for them
+            notificationDispatcher.dispatch(notifications);
+        }
 
-        Optional.ofNullable(createGoalRequest.getSquadUserIds())
-                .orElse(Collections.emptySet())
-                .stream()
-                .filter(userId -> !userId.equals(creator.getId()))
-                .forEach(userId -> {
-                    User invitedUser = userRepository.findById(userId)
-                            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                                    "User not found with ID: " + userId));
-                    Invitation invitation = new Invitation();
-                    invitation.setGoal(savedGoal);
-                    invitation.setInvitedUser(invitedUser);
-                    invitation.setInviter(creator);
-                    invitation.setStatus(InvitationStatus.PENDING);
-                    invitationRepository.save(invitation);
-
-                    Notification notification = new Notification();
-                    notification.setNotificationType(NotificationType.INVITE);
-                    notification.setUser(invitedUser);
-                    notification.setSender(creator);
-                    notification.setGoal(savedGoal);
-                    notificationRepository.save(notification);
-                });
-
-        return ResponseEntity.status(HttpStatus.CREATED).body(GoalDTO.from(savedGoal));
+        GoalDTO goalDTO = GoalDTO.from(savedGoal);
+        eventPublisher.publishEvent(new GoalCreatedEvent(goalDTO));
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(goalDTO);
     }
 
     @GetMapping
-    public ResponseEntity<List<GoalDTO>> getPublicGoals(
-            @RequestParam(defaultValue = "true") boolean recent,
+    public ResponseEntity<CursorPage<GoalDTO>> getPublicGoals(
+            @RequestParam(required = false) String before,
             @RequestParam(defaultValue = "10") int limit) {
-        List<Goal> goals = goalRepository.findByIsPublicTrue();
-
-        if (recent) {
-            goals = goals
-                    .stream()
-                    .sorted((g1, g2) -> g2.getCreatedAt().compareTo(g1.getCreatedAt()))
-                    .limit(limit)
-                    .collect(Collectors.toList());
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit cannot be less than 1");
+        }
+
+        int pageSize = Math.min(limit, MAX_FEED_LIMIT);
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        List<Goal> goals;
+
+        if (before == null) {
+            Optional<List<GoalDTO>> recent = recentGoalsBuffer.newest(pageSize + 1);
+
+            if (recent.isPresent()) {
+                return ResponseEntity.ok(CursorPage.of(recent.get(), pageSize, Function.identity(),
+                        GoalController::cursorOf));
+            }
+
+            goals = goalRepository.findPublicFeed(fetchLimit);
         } else {
-            goals = goals
-                    .stream()
-                    .limit(limit)
-                    .collect(Collectors.toList());
+            KeysetCursor cursor = KeysetCursor.parse(before);
+            goals = goalRepository.findPublicFeedBefore(cursor.createdAt(), cursor.id(), fetchLimit);
         }
 
-        return ResponseEntity.ok(
-                goals
-                        .stream()
-                        .map(GoalDTO::from)
-                        .collect(Collectors.toList()));
+        return ResponseEntity.ok(CursorPage.of(goalRepository.toGoalDTOs(goals), pageSize, Function.identity(),
+                GoalController::cursorOf));
     }
 
     @GetMapping("/{goalId}")
-    public ResponseEntity<GoalDTO> getGoalById(
-            @PathVariable Long goalId,
-            Authentication authentication) {
+    public ResponseEntity<GoalDTO> getGoalById(@PathVariable Long goalId) {
 
-        Goal goal = goalRepository.findById(goalId)
+        Goal goal = goalRepository.findWithCreatorById(goalId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Goal not found"));
 
         if (goal.getPublic()) {
-            return ResponseEntity.ok(GoalDTO.from(goal));
+            return ResponseEntity.ok(goalRepository.toGoalDTO(goal));
         }
 
-        String firebaseUid = authentication.getName();
+        // Reading the context is what verifies a deferred token, so only private goals pay for it
+        AuthenticatedUser requestingUser = authenticatedUserResolver.resolve(
+                SecurityContextHolder.getContext().getAuthentication());
 
-        User requestingUser = userRepository.findByFirebaseUid(firebaseUid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        GoalDTO goalDTO = goalRepository.toGoalDTO(goal);
+
+        boolean inSquad = goalDTO.squad()
+                .stream()
+                .anyMatch(member -> requestingUser.id().equals(member.id()));
 
-        if (!goal.getSquad().contains(requestingUser)) {
+        if (!inSquad) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You do not have access to this goal");
         }
 
-        return ResponseEntity.ok(GoalDTO.from(goal));
+        return ResponseEntity.ok(goalDTO);
+    }
+
+    private static KeysetCursor cursorOf(GoalDTO goal) {
+        return new KeysetCursor(goal.createdAt(), goal.id());
+    }
+
+    private Set<Tag> findOrCreateTags(Set<String> tagNames) {
+        if (tagNames.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        Set<Tag> tags = new HashSet<>(tagRepository.findByNameIn(tagNames));
+
+        Set<String> existingNames = tags.stream().map(Tag::getName).collect(Collectors.toSet());
+
+        List<Tag> newTags = tagNames.stream()
+                .filter(tagName -> !existingNames.contains(tagName))
+                .map(tagName -> {
+                    Tag tag = new Tag();
+                    tag.setName(tagName);
+                    return tag;
+                })
+                .toList();
+
+        if (!newTags.isEmpty()) {
+            tags.addAll(tagRepository.saveAll(newTags));
+        }
+
+        return tags;
+    }
+
+    private List<User> findInvitees(Set<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<User> invitees = userRepository.findAllById(userIds);
+
+        if (invitees.size() != userIds.size()) {
+            Set<Long> foundIds = invitees.stream().map(User::getId).collect(Collectors.toSet());
+
+            Long missingId = userIds.stream()
+                    .filter(userId -> !foundIds.contains(userId))
+                    .sorted()
+                    .findFirst()
+                    .orElseThrow();
+
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found with ID: " + missingId);
+        }
+
+        return invitees;
     }
 }
@@ -1,51 +1,62 @@
 package com.github.shafina.squadgoals.controller;
 
+import com.github.shafina.squadgoals.dto.GoalDTO;
 import com.github.shafina.squadgoals.dto.InvitationDTO;
 import com.github.shafina.squadgoals.dto.PaginatedResponse;
 import com.github.shafina.squadgoals.enums.InvitationStatus;
+import com.github.shafina.squadgoals.event.GoalSquadChangedEvent;
 import com.github.shafina.squadgoals.model.Goal;
 import com.github.shafina.squadgoals.model.Invitation;
+import com.github.shafina.squadgoals.model.SquadMembership;
 import com.github.shafina.squadgoals.model.User;
+import com.github.shafina.squadgoals.repository.GoalBroadcastRepository;
 import com.github.shafina.squadgoals.repository.GoalRepository;
 import com.github.shafina.squadgoals.repository.InvitationRepository;
-import com.github.shafina.squadgoals.repository.UserRepository;
+import com.github.shafina.squadgoals.repository.SquadMembershipRepository;
+import com.github.shafina.squadgoals.security.AuthenticatedUser;
+import com.github.shafina.squadgoals.service.BadgeCounters;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 @RestController
 @RequestMapping("/api/invitations")
 public class InvitationController {
     private final InvitationRepository invitationRepository;
     private final GoalRepository goalRepository;
-    private final UserRepository userRepository;
+    private final GoalBroadcastRepository broadcastRepository;
+    private final SquadMembershipRepository membershipRepository;
+    private final BadgeCounters badgeCounters;
+    private final ApplicationEventPublisher eventPublisher;
 
     public InvitationController(InvitationRepository invitationRepository, GoalRepository goalRepository,
-                                UserRepository userRepository) {
+                                GoalBroadcastRepository broadcastRepository,
+                                SquadMembershipRepository membershipRepository, BadgeCounters badgeCounters,
+                                ApplicationEventPublisher eventPublisher) {
         this.invitationRepository = invitationRepository;
         this.goalRepository = goalRepository;
-        this.userRepository = userRepository;
+        this.broadcastRepository = broadcastRepository;
+        this.membershipRepository = membershipRepository;
+        this.badgeCounters = badgeCounters;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
     public ResponseEntity<PaginatedResponse<InvitationDTO>> getInvitations(
             @RequestParam(defaultValue = "pending") String status,
             @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
-            Authentication authentication) {
-
-        String firebaseUid = authentication.getName();
-        User user = userRepository.findByFirebaseUid(firebaseUid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+            AuthenticatedUser currentUser) {
 
         InvitationStatus invitationStatus;
 
@@ -55,14 +66,17 @@ public class InvitationController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid status");
         }
 
-        Page<Invitation> invitations = invitationRepository.findAllByInvitedUserAndStatus(user, invitationStatus, pageable);
+        Page<Invitation> invitations = invitationRepository.findAllByInvitedUserIdAndStatus(currentUser.id(), invitationStatus, pageable);
 
         if (invitations == null) {
             invitations = Page.empty();
         }
 
-        List<InvitationDTO> invitationDTOs = invitations.getContent().stream()
-                .map(InvitationDTO::from)
+        List<Invitation> content = invitations.getContent();
+        List<GoalDTO> goals = goalRepository.toGoalDTOs(content.stream().map(Invitation::getGoal).toList());
+
+        List<InvitationDTO> invitationDTOs = IntStream.range(0, content.size())
+                .mapToObj(i -> InvitationDTO.from(content.get(i), goals.get(i)))
                 .toList();
 
         PaginatedResponse<InvitationDTO> response = new PaginatedResponse<>(
@@ -79,31 +93,31 @@ public class InvitationController {
 
     @PostMapping("/{invitationId}/accept")
     @Transactional
-    public ResponseEntity<Void> acceptInvitation(@PathVariable Long invitationId, Authentication authentication) {
+    public ResponseEntity<Void> acceptInvitation(@PathVariable Long invitationId, AuthenticatedUser currentUser) {
         Invitation invitation = invitationRepository
-                .findById(invitationId)
+                .findWithGoalSquadById(invitationId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Invitation not found"));
 
         User invitedUser = invitation.getInvitedUser();
 
-        String firebaseUid = authentication.getName();
-
-        Long authUserId = userRepository
-                .findByFirebaseUid(firebaseUid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"))
-                .getId();
-
-        if (!authUserId.equals(invitedUser.getId())) {
+        if (!currentUser.id().equals(invitedUser.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        invitation.setStatus(InvitationStatus.ACCEPTED);
-        invitationRepository.save(invitation);
+        settle(invitation, InvitationStatus.ACCEPTED);
 
         Goal goal = invitation.getGoal();
         Set<User> squad = goal.getSquad();
-        squad.add(invitedUser);
+
+        if (squad.add(invitedUser)) {
+            // Earlier broadcasts to the goal stay out of the new member's inbox and unread count
+            membershipRepository.save(new SquadMembership(goal.getId(), invitedUser.getId(),
+                    broadcastRepository.findLatestIdForGoal(goal.getId()).orElse(0L)));
+            badgeCounters.invalidate(invitedUser.getId());
+            eventPublisher.publishEvent(new GoalSquadChangedEvent(goal.getId()));
+        }
+
         goal.setSquad(squad);
         goalRepository.save(goal);
 
@@ -112,7 +126,7 @@ public class InvitationController {
 
     @PostMapping("/{invitationId}/decline")
     @Transactional
-    public ResponseEntity<Void> declineInvitation(@PathVariable Long invitationId, Authentication authentication) {
+    public ResponseEntity<Void> declineInvitation(@PathVariable Long invitationId, AuthenticatedUser currentUser) {
         Invitation invitation = invitationRepository
                 .findById(invitationId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
@@ -120,20 +134,21 @@ public class InvitationController {
 
         User invitedUser = invitation.getInvitedUser();
 
-        String firebaseUid = authentication.getName();
-
-        Long authUserId = userRepository
-                .findByFirebaseUid(firebaseUid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"))
-                .getId();
-
-        if (!authUserId.equals(invitedUser.getId())) {
+        if (!currentUser.id().equals(invitedUser.getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        invitation.setStatus(InvitationStatus.DECLINED);
-        invitationRepository.save(invitation);
+        settle(invitation, InvitationStatus.DECLINED);
 
         return ResponseEntity.ok().build();
     }
+
+    private void settle(Invitation invitation, InvitationStatus status) {
+        if (invitation.getStatus() == InvitationStatus.PENDING) {
+            badgeCounters.adjustPending(invitation.getInvitedUser().getId(), -1);
+        }
+
+        invitation.setStatus(status);
+        invitationRepository.save(invitation);
+    }
 }
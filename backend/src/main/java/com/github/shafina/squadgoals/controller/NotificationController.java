@@ -1,92 +1,283 @@
 package com.github.shafina.squadgoals.controller;
 
+import com.github.shafina.squadgoals.dto.CursorPage;
+import com.github.shafina.squadgoals.dto.KeysetCursor;
+import com.github.shafina.squadgoals.dto.MarkReadRequest;
+import com.github.shafina.squadgoals.dto.MarkReadResult;
+import com.github.shafina.squadgoals.dto.NotificationChanges;
 import com.github.shafina.squadgoals.dto.NotificationDTO;
+import com.github.shafina.squadgoals.dto.UnreadCount;
 import com.github.shafina.squadgoals.model.Notification;
-import com.github.shafina.squadgoals.model.User;
+import com.github.shafina.squadgoals.repository.GoalBroadcastReadRepository;
+import com.github.shafina.squadgoals.repository.GoalBroadcastRepository;
+import com.github.shafina.squadgoals.repository.NotificationReadStateRepository;
 import com.github.shafina.squadgoals.repository.NotificationRepository;
-import com.github.shafina.squadgoals.repository.UserRepository;
+import com.github.shafina.squadgoals.security.AuthenticatedUser;
+import com.github.shafina.squadgoals.service.BadgeCounters;
+import com.github.shafina.squadgoals.service.NotificationBroker;
+import com.github.shafina.squadgoals.service.NotificationChangeFeed;
+import jakarta.validation.Valid;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/notifications")
 public class NotificationController {
 
+    private static final int MAX_PAGE_LIMIT = 50;
+
     private final NotificationRepository notificationRepository;
-    private final UserRepository userRepository;
+    private final NotificationReadStateRepository readStateRepository;
+    private final GoalBroadcastRepository broadcastRepository;
+    private final GoalBroadcastReadRepository broadcastReadRepository;
+    private final NotificationBroker notificationBroker;
+    private final NotificationChangeFeed notificationChangeFeed;
+    private final BadgeCounters badgeCounters;
 
-    public NotificationController(NotificationRepository notificationRepository, UserRepository userRepository) {
+    public NotificationController(NotificationRepository notificationRepository,
+                                  NotificationReadStateRepository readStateRepository,
+                                  GoalBroadcastRepository broadcastRepository,
+                                  GoalBroadcastReadRepository broadcastReadRepository,
+                                  NotificationBroker notificationBroker,
+                                  NotificationChangeFeed notificationChangeFeed, BadgeCounters badgeCounters) {
         this.notificationRepository = notificationRepository;
-        this.userRepository = userRepository;
+        this.readStateRepository = readStateRepository;
+        this.broadcastRepository = broadcastRepository;
+        this.broadcastReadRepository = broadcastReadRepository;
+        this.notificationBroker = notificationBroker;
+        this.notificationChangeFeed = notificationChangeFeed;
+        this.badgeCounters = badgeCounters;
     }
 
+    /**
+     * Returns the caller's inbox: their own notifications merged with the broadcasts to their goals, newest first.
+     */
     @GetMapping
-    public ResponseEntity<List<NotificationDTO>> getUserNotifications(
-            @RequestParam(defaultValue = "true") boolean recent,
-            @RequestParam(defaultValue = "10") int limit, Authentication authentication) {
-        String firebaseUid = authentication.getName();
-
-        User user = userRepository.findByFirebaseUid(firebaseUid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-
-        List<Notification> notifications = notificationRepository.findByUser(user);
-
-        if (recent) {
-            notifications = notifications
-                    .stream()
-                    .sorted((n1, n2) -> n2.getCreatedAt().compareTo(n1.getCreatedAt()))
-                    .limit(limit)
-                    .collect(Collectors.toList());
+    public ResponseEntity<CursorPage<NotificationDTO>> getUserNotifications(
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "10") int limit, AuthenticatedUser currentUser) {
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit cannot be less than 1");
+        }
+
+        int pageSize = Math.min(limit, MAX_PAGE_LIMIT);
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        long readUpToId = readUpToId(currentUser.id());
+        List<NotificationDTO> notifications;
+        List<NotificationDTO> broadcasts;
+
+        if (before == null) {
+            notifications = notificationRepository.findInbox(currentUser.id(), readUpToId, fetchLimit);
+            broadcasts = broadcastRepository.findInbox(currentUser.id(), readUpToId, fetchLimit);
         } else {
-            notifications = notifications
-                    .stream()
-                    .limit(limit)
-                    .collect(Collectors.toList());
+            KeysetCursor cursor = KeysetCursor.parse(before);
+            notifications = notificationRepository.findInboxBefore(currentUser.id(), readUpToId, cursor.createdAt(),
+                    cursor.id(), fetchLimit);
+            broadcasts = broadcastRepository.findInboxBefore(currentUser.id(), readUpToId, cursor.createdAt(),
+                    cursor.id(), fetchLimit);
+        }
+
+        // Both sources are already in keyset order, so the first pageSize + 1 of the merge is exact
+        List<NotificationDTO> inbox = Stream.concat(notifications.stream(), broadcasts.stream())
+                .sorted(NotificationDTO.NEWEST_FIRST)
+                .limit(fetchLimit.max())
+                .toList();
+
+        return ResponseEntity.ok(CursorPage.of(inbox, pageSize, Function.identity(),
+                notification -> new KeysetCursor(notification.createdAt(), notification.id())));
+    }
+
+    /**
+     * Pushes the caller's new notifications as {@code notification} events, with a comment heartbeat in between.
+     * Clients load the current list once and then only apply what arrives here.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(AuthenticatedUser currentUser) {
+        return notificationBroker.subscribe(currentUser.id());
+    }
+
+    /**
+     * Long-poll alternative to {@link #stream} for clients whose proxies break it: returns what changed after
+     * {@code since}, the highest id the client has, waiting up to {@code wait} seconds for something to change.
+     * The optional {@code readUpTo} and {@code unread} are the read state the client last got; when they are out of
+     * date the poll answers right away. Answers 204 when nothing changed.
+     */
+    @GetMapping("/changes")
+    public DeferredResult<ResponseEntity<NotificationChanges>> getChanges(@RequestParam long since,
+            @RequestParam(required = false) Long readUpTo, @RequestParam(required = false) Long unread,
+            @RequestParam(defaultValue = "0") int wait, AuthenticatedUser currentUser) {
+        if (wait < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Wait cannot be negative");
         }
-        
-        return ResponseEntity.ok(notifications.stream().map(NotificationDTO::from).toList());
+
+        return notificationChangeFeed.poll(currentUser.id(), since, readUpTo, unread,
+                Duration.ofSeconds(wait));
+    }
+
+    @GetMapping("/unread-count")
+    public ResponseEntity<UnreadCount> getUnreadCount(AuthenticatedUser currentUser) {
+        long readUpToId = readUpToId(currentUser.id());
+        long unread = notificationRepository.countUnread(currentUser.id(), readUpToId)
+                + broadcastRepository.countUnread(currentUser.id(), readUpToId);
+
+        return ResponseEntity.ok(new UnreadCount(unread));
     }
 
     @PatchMapping("/{id}/read")
-    public ResponseEntity<Void> markAsRead(@PathVariable Long id, Authentication authentication) {
-        String firebaseUid = authentication.getName();
+    public ResponseEntity<Void> markAsRead(@PathVariable Long id, AuthenticatedUser currentUser) {
+        Optional<Notification> personal = notificationRepository.findByIdAndUserId(id, currentUser.id());
+
+        if (personal.isEmpty()) {
+            List<Long> broadcastIds = broadcastRepository.findVisibleIds(currentUser.id(), List.of(id));
+
+            if (broadcastIds.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Notification not found");
+            }
+
+            if (markBroadcastsAsRead(currentUser.id(), broadcastIds, readUpToId(currentUser.id())) > 0) {
+                badgeCounters.adjustUnread(currentUser.id(), -1);
+                notificationChangeFeed.signal(currentUser.id());
+            }
 
-        User user = userRepository.findByFirebaseUid(firebaseUid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+            return ResponseEntity.noContent().build();
+        }
 
-        Notification notification = notificationRepository.findByIdAndUser(id, user)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Notification not found"));
+        Notification notification = personal.get();
 
-        if (!notification.isRead()) {
+        // Only notifications above the watermark need their own flag
+        if (!notification.isRead() && notification.getId() > readUpToId(currentUser.id())) {
             notification.setRead(true);
             notificationRepository.save(notification);
+            badgeCounters.adjustUnread(currentUser.id(), -1);
+            notificationChangeFeed.signal(currentUser.id());
         }
 
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Advances the caller's read watermark to {@code upTo}, or to their newest notification when omitted. Writes a
+     * single row however many notifications that covers. {@code upTo} is capped at the newest notification the
+     * caller can see, since the watermark never moves back and would otherwise cover notifications yet to arrive.
+     *
+     * <p>The cap only bounds ids handed out so far, not rows committed so far: a notification whose transaction took
+     * a lower id but commits after this call lands below the watermark and shows as read. That race is accepted. It
+     * lasts one notification write, and the row still reaches the client through the change feed's lookback, just
+     * without an unread badge.
+     */
     @PatchMapping("/mark-all-read")
-    public ResponseEntity<Void> markAllAsRead(Authentication authentication) {
-        String firebaseUid = authentication.getName();
+    public ResponseEntity<Void> markAllAsRead(@RequestParam(required = false) Long upTo,
+            AuthenticatedUser currentUser) {
+        Optional<Long> readUpTo = latestId(currentUser.id())
+                .map(latest -> upTo != null ? Math.min(upTo, latest) : latest);
+
+        readUpTo.ifPresent(watermark -> {
+            advanceWatermark(currentUser.id(), watermark);
+
+            // Notifications above the new watermark stay unread, so the count cannot be derived from a delta
+            badgeCounters.invalidate(currentUser.id());
+            notificationChangeFeed.signal(currentUser.id());
+        });
 
-        User user = userRepository.findByFirebaseUid(firebaseUid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        return ResponseEntity.noContent().build();
+    }
+
+    @PatchMapping("/read")
+    public ResponseEntity<MarkReadResult> markSelectedAsRead(@Valid @RequestBody MarkReadRequest request,
+            AuthenticatedUser currentUser) {
+        long readUpToId = readUpToId(currentUser.id());
+        int updated = notificationRepository.markAsRead(currentUser.id(), request.getIds(), readUpToId);
+
+        if (updated < request.getIds().size()) {
+            updated += markBroadcastsAsRead(currentUser.id(),
+                    broadcastRepository.findVisibleIds(currentUser.id(), request.getIds()), readUpToId);
+        }
+
+        if (updated > 0) {
+            badgeCounters.adjustUnread(currentUser.id(), -updated);
+            notificationChangeFeed.signal(currentUser.id());
+        }
+
+        return ResponseEntity.ok(new MarkReadResult(updated));
+    }
+
+    /**
+     * Returns the highest id in the user's inbox, across their own notifications and the broadcasts to their goals.
+     */
+    private Optional<Long> latestId(Long userId) {
+        return Stream.concat(notificationRepository.findLatestId(userId).stream(),
+                        broadcastRepository.findLatestId(userId).stream())
+                .max(Long::compare);
+    }
+
+    /**
+     * Moves the user's watermark forward, creating it on their first call. Each statement commits on its own, so when
+     * two first calls race, the one whose insert hits the primary key advances the other's row instead.
+     */
+    private void advanceWatermark(Long userId, long upToId) {
+        if (readStateRepository.advance(userId, upToId) > 0) {
+            return;
+        }
+
+        try {
+            readStateRepository.insertIfAbsent(userId, upToId);
+        } catch (DataIntegrityViolationException e) {
+            readStateRepository.advance(userId, upToId);
+        }
+    }
+
+    private long readUpToId(Long userId) {
+        return readStateRepository.findReadUpToId(userId).orElse(0L);
+    }
 
-        List<Notification> unreadNotifications = notificationRepository.findAllByUserAndReadFalse(user);
+    /**
+     * Returns those of {@code broadcastIds} above the watermark that the user has marked read.
+     */
+    private Set<Long> readBroadcastIds(Long userId, List<Long> broadcastIds, long readUpToId) {
+        List<Long> aboveWatermark = broadcastIds.stream().filter(id -> id > readUpToId).toList();
 
-        if (!unreadNotifications.isEmpty()) {
-            for (Notification notification : unreadNotifications) {
-                notification.setRead(true);
+        return aboveWatermark.isEmpty()
+                ? Set.of()
+                : new HashSet<>(broadcastRepository.findReadIds(userId, aboveWatermark));
+    }
+
+    /**
+     * Records read markers for those of {@code broadcastIds} not yet read and returns how many it recorded. Each
+     * insert commits on its own, so a marker a concurrent call recorded first is skipped rather than failing the
+     * request, and is counted only by that call.
+     */
+    private int markBroadcastsAsRead(Long userId, List<Long> broadcastIds, long readUpToId) {
+        Set<Long> alreadyRead = readBroadcastIds(userId, broadcastIds, readUpToId);
+        int marked = 0;
+
+        for (Long id : broadcastIds) {
+            if (id <= readUpToId || alreadyRead.contains(id)) {
+                continue;
+            }
+
+            try {
+                marked += broadcastReadRepository.insertIfAbsent(userId, id);
+            } catch (DataIntegrityViolationException e) {
+                // Recorded by a concurrent call in between
             }
-            notificationRepository.saveAll(unreadNotifications);
         }
 
-        return ResponseEntity.noContent().build();
+        return marked;
     }
 }
@@ -4,6 +4,7 @@ import com.github.shafina.squadgoals.dto.CreateUserRequest;
 import com.github.shafina.squadgoals.dto.UserDTO;
 import com.github.shafina.squadgoals.model.User;
 import com.github.shafina.squadgoals.repository.UserRepository;
+import com.github.shafina.squadgoals.security.AuthenticatedUser;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
@@ -49,7 +50,7 @@ public class UserController {
     public ResponseEntity<List<UserDTO>> searchUsers(
             @RequestParam String query,
             @RequestParam(defaultValue = "10") int limit,
-            Authentication authentication) {
+            AuthenticatedUser currentUser) {
 
         if (query.length() < 2) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Query must be at least 2 characters long");
@@ -59,17 +60,10 @@ public class UserController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit cannot be less than 1");
         }
 
-        String firebaseUid = authentication.getName();
-
-        Long authUserId = userRepository
-                .findByFirebaseUid(firebaseUid)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"))
-                .getId();
-
         PageRequest limitOnly = PageRequest.of(0, limit);
 
         List<User> foundUsers = userRepository
-                .searchUsersExcludingCurrent(query, authUserId, limitOnly);
+                .searchUsersExcludingCurrent(query, currentUser.id(), limitOnly);
 
         return ResponseEntity.ok(
                 foundUsers
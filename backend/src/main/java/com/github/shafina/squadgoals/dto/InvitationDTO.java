@@ -9,10 +9,10 @@ public record InvitationDTO(
         String inviterName,
         InvitationStatus status
 ) {
-    public static InvitationDTO from(Invitation invitation) {
+    public static InvitationDTO from(Invitation invitation, GoalDTO goal) {
         return new InvitationDTO(
                 invitation.getId(),
-                GoalDTO.from(invitation.getGoal()),
+                goal,
                 invitation.getInviter().getName(),
                 invitation.getStatus()
         );
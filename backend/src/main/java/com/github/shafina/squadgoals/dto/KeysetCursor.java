@@ -0,0 +1,34 @@
+package com.github.shafina.squadgoals.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Position in a feed ordered by {@code (createdAt DESC, id DESC)}, exchanged with clients as
+ * {@code <createdAt>,<id>}.
+ */
+public record KeysetCursor(LocalDateTime createdAt, Long id) {
+
+    public static KeysetCursor parse(String value) {
+        int separator = value.lastIndexOf(',');
+
+        if (separator <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+
+        try {
+            return new KeysetCursor(
+                    LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        return createdAt + "," + id;
+    }
+}
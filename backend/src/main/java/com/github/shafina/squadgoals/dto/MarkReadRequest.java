@@ -0,0 +1,20 @@
+package com.github.shafina.squadgoals.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class MarkReadRequest {
+    @NotEmpty(message = "Notification ids are required")
+    @Size(max = 100, message = "At most 100 notifications can be marked at once")
+    private List<Long> ids;
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
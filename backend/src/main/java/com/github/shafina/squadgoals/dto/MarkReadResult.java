@@ -0,0 +1,4 @@
+package com.github.shafina.squadgoals.dto;
+
+public record MarkReadResult(int updated) {
+}
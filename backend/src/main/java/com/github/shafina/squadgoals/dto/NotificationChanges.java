@@ -0,0 +1,15 @@
+package com.github.shafina.squadgoals.dto;
+
+import java.util.List;
+
+/**
+ * What changed in a user's inbox after the id a client last saw.
+ *
+ * @param notifications notifications and broadcasts above that id, newest first
+ * @param truncated     true when there were more than fit in one response; the client should reload its list
+ * @param readUpToId    the user's read watermark; everything at or below it is read
+ * @param unread        the user's current unread count
+ */
+public record NotificationChanges(List<NotificationDTO> notifications, boolean truncated, long readUpToId,
+                                  long unread) {
+}
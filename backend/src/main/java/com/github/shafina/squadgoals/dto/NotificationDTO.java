@@ -4,7 +4,7 @@ import com.github.shafina.squadgoals.enums.NotificationType;
 import com.github.shafina.squadgoals.model.Notification;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.Comparator;
 
 public record NotificationDTO(
         Long id,
@@ -14,19 +14,32 @@ public record NotificationDTO(
         String senderName,
         String senderProfilePicture,
         String goalTitle) {
-    public static NotificationDTO from(Notification notification) {
-        UserDTO senderDTO = Optional.ofNullable(notification.getSender())
-                .map(UserDTO::from)
-                .orElse(null);
+    /**
+     * Inbox order: newest first, ties broken by id.
+     */
+    public static final Comparator<NotificationDTO> NEWEST_FIRST = Comparator
+            .comparing(NotificationDTO::createdAt, Comparator.reverseOrder())
+            .thenComparing(NotificationDTO::id, Comparator.reverseOrder());
+
+    /**
+     * Inbox projection constructor; the inbox queries select straight into it.
+     */
+    public NotificationDTO(Long id, NotificationType notificationType, boolean read, LocalDateTime createdAt,
+                           String senderName, String goalTitle) {
+        this(id, notificationType, read, createdAt, senderName, null, goalTitle);
+    }
 
+    /**
+     * Maps a notification using only its own read flag, as for one that was just created.
+     */
+    public static NotificationDTO from(Notification notification) {
         return new NotificationDTO(
                 notification.getId(),
                 notification.getNotificationType(),
                 notification.isRead(),
                 notification.getCreatedAt(),
-                senderDTO != null ? senderDTO.name() : null,
-                null,
-                notification.getGoal().getTitle()
+                notification.getSenderName(),
+                notification.getGoalTitle()
         );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package com.github.shafina.squadgoals.dto;
+
+import com.github.shafina.squadgoals.enums.NotificationType;
+
+import java.time.LocalDateTime;
+
+/**
+ * A squad member to tell about a reminder broadcast that was just posted, with the broadcast as it appears in their
+ * inbox.
+ */
+public record ReminderRecipient(Long userId, NotificationDTO notification) {
+    /**
+     * Projection constructor; the reminder queries select straight into it.
+     */
+    public ReminderRecipient(Long userId, Long broadcastId, NotificationType notificationType,
+                             LocalDateTime createdAt, String goalTitle) {
+        this(userId, new NotificationDTO(broadcastId, notificationType, false, createdAt, null, goalTitle));
+    }
+}
@@ -0,0 +1,6 @@
+package com.github.shafina.squadgoals.event;
+
+import com.github.shafina.squadgoals.dto.GoalDTO;
+
+public record GoalCreatedEvent(GoalDTO goal) {
+}
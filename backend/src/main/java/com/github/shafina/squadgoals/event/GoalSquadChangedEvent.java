@@ -0,0 +1,4 @@
+package com.github.shafina.squadgoals.event;
+
+public record GoalSquadChangedEvent(Long goalId) {
+}
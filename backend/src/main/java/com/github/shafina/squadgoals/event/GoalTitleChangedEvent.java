@@ -0,0 +1,4 @@
+package com.github.shafina.squadgoals.event;
+
+public record GoalTitleChangedEvent(Long goalId, String title) {
+}
@@ -0,0 +1,6 @@
+package com.github.shafina.squadgoals.event;
+
+import com.github.shafina.squadgoals.dto.NotificationDTO;
+
+public record NotificationCreatedEvent(Long userId, NotificationDTO notification) {
+}
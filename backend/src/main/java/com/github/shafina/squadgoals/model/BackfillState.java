@@ -0,0 +1,58 @@
+package com.github.shafina.squadgoals.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far a one-time backfill got: every row with an id up to {@code lastId} has been handled. A backfill
+ * interrupted by a restart carries on after it, and one with {@code completedAt} set never runs again.
+ */
+@Entity
+@Table(name = "backfill_state")
+public class BackfillState {
+    @Id
+    @Column(name = "backfill_name")
+    private String name;
+
+    @Column(name = "last_id", nullable = false)
+    private long lastId;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public BackfillState() {
+    }
+
+    public BackfillState(String name) {
+        this.name = name;
+    }
+
+    public boolean isCompleted() {
+        return completedAt != null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(long lastId) {
+        this.lastId = lastId;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
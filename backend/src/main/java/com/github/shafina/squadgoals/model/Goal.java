@@ -12,17 +12,19 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "goals")
+@Table(name = "goals", indexes = @Index(name = "idx_goals_public_feed", columnList = "is_public, created_at DESC, id DESC"))
+@NamedEntityGraph(name = "Goal.withCreator", attributeNodes = @NamedAttributeNode("createdBy"))
 public class Goal implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "goals_seq")
+    @SequenceGenerator(name = "goals_seq", sequenceName = "goals_seq", allocationSize = 50)
     private Long id;
 
     private String title;
 
     private String description;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by", nullable = false)
     private User createdBy;
 
@@ -0,0 +1,93 @@
+package com.github.shafina.squadgoals.model;
+
+import com.github.shafina.squadgoals.enums.NotificationType;
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A notification addressed to a goal's whole squad, stored once per goal occurrence instead of once per member.
+ * Members see it in their inbox next to their own {@link Notification}s and mark it read through
+ * {@link GoalBroadcastRead}.
+ *
+ * <p>Ids come from the notification id sequence, one value per row as it is inserted, so broadcasts and notifications
+ * never share an id and a row inserted later gets a higher one. That lets one read watermark and one {@code since} id
+ * cover both. Ids still do not follow commit order: a transaction holding a lower id can commit after one holding a
+ * higher id, which readers keyed on ids have to allow for. A pooled generator would be worse: each generator, and
+ * each node, hands out its own block, so a notification inserted after a broadcast could get the lower id.
+ */
+@Entity
+@Table(name = "goal_broadcast",
+        uniqueConstraints = @UniqueConstraint(name = "uk_goal_broadcast_occurrence",
+                columnNames = {"goal_id", "notification_type", "occurs_on"}),
+        indexes = @Index(name = "idx_goal_broadcast_goal_feed", columnList = "goal_id, created_at DESC, id DESC"))
+public class GoalBroadcast {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_id_seq")
+    @SequenceGenerator(name = "notification_id_seq", sequenceName = "notification_id_seq", allocationSize = 1)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "goal_id", nullable = false)
+    private Goal goal;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "notification_type", nullable = false)
+    private NotificationType notificationType;
+
+    @Column(name = "occurs_on", nullable = false)
+    private LocalDate occursOn;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public GoalBroadcast() {
+    }
+
+    public GoalBroadcast(Goal goal, NotificationType notificationType, LocalDate occursOn) {
+        this.goal = goal;
+        this.notificationType = notificationType;
+        this.occursOn = occursOn;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Goal getGoal() {
+        return goal;
+    }
+
+    public void setGoal(Goal goal) {
+        this.goal = goal;
+    }
+
+    public NotificationType getNotificationType() {
+        return notificationType;
+    }
+
+    public void setNotificationType(NotificationType notificationType) {
+        this.notificationType = notificationType;
+    }
+
+    public LocalDate getOccursOn() {
+        return occursOn;
+    }
+
+    public void setOccursOn(LocalDate occursOn) {
+        this.occursOn = occursOn;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.shafina.squadgoals.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Marks a {@link GoalBroadcast} as read by one user. Broadcasts at or below the user's
+ * {@link NotificationReadState watermark} are read without a row here.
+ */
+@Entity
+@Table(name = "goal_broadcast_read")
+@IdClass(GoalBroadcastRead.Key.class)
+public class GoalBroadcastRead implements Persistable<GoalBroadcastRead.Key> {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "broadcast_id")
+    private Long broadcastId;
+
+    public GoalBroadcastRead() {
+    }
+
+    public GoalBroadcastRead(Long userId, Long broadcastId) {
+        this.userId = userId;
+        this.broadcastId = broadcastId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getBroadcastId() {
+        return broadcastId;
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(userId, broadcastId);
+    }
+
+    /**
+     * Rows are only ever inserted for broadcasts the user has not read yet, so saving never needs to look first.
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long broadcastId;
+
+        public Key() {
+        }
+
+        public Key(Long userId, Long broadcastId) {
+            this.userId = userId;
+            this.broadcastId = broadcastId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(userId, key.userId)
+                    && Objects.equals(broadcastId, key.broadcastId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, broadcastId);
+        }
+    }
+}
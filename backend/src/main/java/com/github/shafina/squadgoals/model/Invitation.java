@@ -7,18 +7,25 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "invitations")
+@NamedEntityGraph(name = "Invitation.withGoalAndInviter",
+        attributeNodes = {@NamedAttributeNode(value = "goal", subgraph = "goal.createdBy"), @NamedAttributeNode("inviter")},
+        subgraphs = @NamedSubgraph(name = "goal.createdBy", attributeNodes = @NamedAttributeNode("createdBy")))
+@NamedEntityGraph(name = "Invitation.withGoalSquad",
+        attributeNodes = @NamedAttributeNode(value = "goal", subgraph = "goal.squad"),
+        subgraphs = @NamedSubgraph(name = "goal.squad", attributeNodes = @NamedAttributeNode("squad")))
 public class Invitation {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invitations_seq")
+    @SequenceGenerator(name = "invitations_seq", sequenceName = "invitations_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Goal goal;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User invitedUser;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User inviter;
 
     @Enumerated(EnumType.STRING)
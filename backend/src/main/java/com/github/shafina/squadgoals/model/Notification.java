@@ -6,12 +6,15 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "idx_notification_user_feed", columnList = "user_id, created_at DESC, id DESC"))
 public class Notification {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Not pooled: ids are shared with GoalBroadcast and must rise in the order they are handed out, see there
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_id_seq")
+    @SequenceGenerator(name = "notification_id_seq", sequenceName = "notification_id_seq", allocationSize = 1)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 
     @Enumerated(EnumType.STRING)
@@ -21,12 +24,23 @@ public class Notification {
 
     private LocalDateTime createdAt = LocalDateTime.now();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User sender;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Goal goal;
 
+    /**
+     * Copied from the sender when the notification is written, so inbox reads never load the sender.
+     */
+    private String senderName;
+
+    /**
+     * Copied from the goal when the notification is written and refreshed when the title changes, so inbox reads
+     * never load the goal.
+     */
+    private String goalTitle;
+
     public Long getId() {
         return id;
     }
@@ -83,16 +97,33 @@ public class Notification {
         this.goal = goal;
     }
 
+    public String getSenderName() {
+        return senderName;
+    }
+
+    public void setSenderName(String senderName) {
+        this.senderName = senderName;
+    }
+
+    public String getGoalTitle() {
+        return goalTitle;
+    }
+
+    public void setGoalTitle(String goalTitle) {
+        this.goalTitle = goalTitle;
+    }
+
+    // Ids only: the associations are lazy and may be printed after their session closed
     @Override
     public String toString() {
         return "Notification{" +
                 "id=" + id +
-                ", user=" + user +
+                ", userId=" + (user != null ? user.getId() : null) +
                 ", notificationType=" + notificationType +
                 ", read=" + read +
                 ", createdAt=" + createdAt +
-                ", sender=" + sender +
-                ", goal=" + goal +
+                ", senderId=" + (sender != null ? sender.getId() : null) +
+                ", goalId=" + (goal != null ? goal.getId() : null) +
                 '}';
     }
 }
\ No newline at end of file
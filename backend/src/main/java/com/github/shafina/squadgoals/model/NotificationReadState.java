@@ -0,0 +1,42 @@
+package com.github.shafina.squadgoals.model;
+
+import jakarta.persistence.*;
+
+/**
+ * A user's notification read watermark: every notification with an id up to {@code readUpToId} counts as read.
+ * Notifications above it are read only if their own {@link Notification#isRead() read} flag is set.
+ */
+@Entity
+@Table(name = "notification_read_state")
+public class NotificationReadState {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "read_up_to_id", nullable = false)
+    private long readUpToId;
+
+    public NotificationReadState() {
+    }
+
+    public NotificationReadState(Long userId, long readUpToId) {
+        this.userId = userId;
+        this.readUpToId = readUpToId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public long getReadUpToId() {
+        return readUpToId;
+    }
+
+    public void setReadUpToId(long readUpToId) {
+        this.readUpToId = readUpToId;
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.shafina.squadgoals.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * How far a reminder job or one of its shards got on {@code runDate}: every due goal with an id up to
+ * {@code lastGoalId} has been handled, and {@code posted} reminders were posted on the way. A job restarted the same
+ * day carries on after it instead of starting over. {@code completedAt} is set once the job has handled all goals
+ * due that day.
+ */
+@Entity
+@Table(name = "reminder_job_state")
+public class ReminderJobState {
+    @Id
+    @Column(name = "job_name")
+    private String jobName;
+
+    @Column(name = "run_date", nullable = false)
+    private LocalDate runDate;
+
+    @Column(name = "last_goal_id", nullable = false)
+    private long lastGoalId;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long posted;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public ReminderJobState() {
+    }
+
+    public ReminderJobState(String jobName, LocalDate runDate, long lastGoalId) {
+        this.jobName = jobName;
+        this.runDate = runDate;
+        this.lastGoalId = lastGoalId;
+    }
+
+    public boolean isCompletedOn(LocalDate date) {
+        return completedAt != null && date.equals(runDate);
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public LocalDate getRunDate() {
+        return runDate;
+    }
+
+    public void setRunDate(LocalDate runDate) {
+        this.runDate = runDate;
+    }
+
+    public long getLastGoalId() {
+        return lastGoalId;
+    }
+
+    public void setLastGoalId(long lastGoalId) {
+        this.lastGoalId = lastGoalId;
+    }
+
+    public long getPosted() {
+        return posted;
+    }
+
+    public void setPosted(long posted) {
+        this.posted = posted;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
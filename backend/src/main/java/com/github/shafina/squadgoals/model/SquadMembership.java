@@ -0,0 +1,71 @@
+package com.github.shafina.squadgoals.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Records that a user joined a goal's squad after the goal was created. Broadcasts to the goal with ids up to
+ * {@code joinedAfterId} were posted before they joined and stay out of their inbox. Members who were in the squad
+ * from the start have no row and see every broadcast.
+ */
+@Entity
+@Table(name = "squad_membership")
+@IdClass(SquadMembership.Key.class)
+public class SquadMembership {
+    @Id
+    @Column(name = "goal_id")
+    private Long goalId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "joined_after_id", nullable = false)
+    private long joinedAfterId;
+
+    public SquadMembership() {
+    }
+
+    public SquadMembership(Long goalId, Long userId, long joinedAfterId) {
+        this.goalId = goalId;
+        this.userId = userId;
+        this.joinedAfterId = joinedAfterId;
+    }
+
+    public Long getGoalId() {
+        return goalId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getJoinedAfterId() {
+        return joinedAfterId;
+    }
+
+    public static class Key implements Serializable {
+        private Long goalId;
+        private Long userId;
+
+        public Key() {
+        }
+
+        public Key(Long goalId, Long userId) {
+            this.goalId = goalId;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(goalId, key.goalId) && Objects.equals(userId, key.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(goalId, userId);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.model.BackfillState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface BackfillStateRepository extends JpaRepository<BackfillState, String> {
+    /**
+     * Records that the backfill has handled every row up to {@code lastId}.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE BackfillState s SET s.lastId = :lastId WHERE s.name = :name")
+    int recordProgress(@Param("name") String name, @Param("lastId") long lastId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BackfillState s SET s.completedAt = :completedAt WHERE s.name = :name")
+    int recordCompletion(@Param("name") String name, @Param("completedAt") LocalDateTime completedAt);
+}
@@ -0,0 +1,22 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.model.GoalBroadcastRead;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface GoalBroadcastReadRepository extends JpaRepository<GoalBroadcastRead, GoalBroadcastRead.Key> {
+
+    /**
+     * Marks the broadcast read for the user unless it already is, returning 0 in that case. Two calls racing past
+     * the check still collide on the primary key; the one that loses throws.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO goal_broadcast_read (user_id, broadcast_id)"
+            + " SELECT :userId, :broadcastId WHERE NOT EXISTS"
+            + " (SELECT 1 FROM goal_broadcast_read WHERE user_id = :userId AND broadcast_id = :broadcastId)")
+    int insertIfAbsent(@Param("userId") Long userId, @Param("broadcastId") Long broadcastId);
+}
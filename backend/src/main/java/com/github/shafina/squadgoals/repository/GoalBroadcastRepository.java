@@ -0,0 +1,133 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.dto.NotificationDTO;
+import com.github.shafina.squadgoals.dto.ReminderRecipient;
+import com.github.shafina.squadgoals.model.GoalBroadcast;
+import com.github.shafina.squadgoals.model.SquadMembership;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface GoalBroadcastRepository extends JpaRepository<GoalBroadcast, Long> {
+    String SYSTEM = "com.github.shafina.squadgoals.enums.NotificationType.SYSTEM";
+
+    String SQUAD_GOALS = "(SELECT g.id FROM Goal g JOIN g.squad u WHERE u.id = :userId)";
+
+    /**
+     * Keeps out broadcasts posted before the user joined the squad, see {@link SquadMembership}.
+     */
+    String SINCE_JOINED = " AND b.id > COALESCE((SELECT m.joinedAfterId FROM SquadMembership m"
+            + " WHERE m.goalId = b.goal.id AND m.userId = :userId), 0)";
+
+    String INBOX_ROW = "SELECT new com.github.shafina.squadgoals.dto.NotificationDTO(b.id, b.notificationType,"
+            + " CASE WHEN b.id <= :readUpToId OR EXISTS (SELECT r FROM GoalBroadcastRead r"
+            + " WHERE r.userId = :userId AND r.broadcastId = b.id) THEN true ELSE false END,"
+            + " b.createdAt, CAST(NULL AS String), g.title) FROM GoalBroadcast b JOIN b.goal g";
+
+    /**
+     * Reads the broadcasts in the user's inbox with their read state for that user, without loading any entity.
+     */
+    @Query(INBOX_ROW + " WHERE g.id IN " + SQUAD_GOALS + SINCE_JOINED + " ORDER BY b.createdAt DESC, b.id DESC")
+    List<NotificationDTO> findInbox(@Param("userId") Long userId, @Param("readUpToId") long readUpToId,
+                                    Limit limit);
+
+    @Query(INBOX_ROW + " WHERE g.id IN " + SQUAD_GOALS + SINCE_JOINED
+            + " AND (b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id))"
+            + " ORDER BY b.createdAt DESC, b.id DESC")
+    List<NotificationDTO> findInboxBefore(@Param("userId") Long userId, @Param("readUpToId") long readUpToId,
+                                          @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                          Limit limit);
+
+    @Query(INBOX_ROW + " WHERE g.id IN " + SQUAD_GOALS + SINCE_JOINED + " AND b.id > :sinceId"
+            + " ORDER BY b.createdAt DESC, b.id DESC")
+    List<NotificationDTO> findInboxAfter(@Param("userId") Long userId, @Param("readUpToId") long readUpToId,
+                                         @Param("sinceId") long sinceId, Limit limit);
+
+    /**
+     * Returns those of {@code ids} that are broadcasts to the user's goals.
+     */
+    @Query("SELECT b.id FROM GoalBroadcast b WHERE b.id IN :ids AND b.goal.id IN " + SQUAD_GOALS + SINCE_JOINED)
+    List<Long> findVisibleIds(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Query("SELECT MAX(b.id) FROM GoalBroadcast b WHERE b.goal.id IN " + SQUAD_GOALS + SINCE_JOINED)
+    Optional<Long> findLatestId(@Param("userId") Long userId);
+
+    @Query("SELECT MAX(b.id) FROM GoalBroadcast b WHERE b.goal.id = :goalId")
+    Optional<Long> findLatestIdForGoal(@Param("goalId") Long goalId);
+
+    @Query("SELECT r.broadcastId FROM GoalBroadcastRead r WHERE r.userId = :userId AND r.broadcastId IN :ids")
+    List<Long> findReadIds(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Counts broadcasts to the user's goals above their read watermark that they have not read individually.
+     */
+    @Query("SELECT COUNT(b) FROM GoalBroadcast b WHERE b.goal.id IN " + SQUAD_GOALS + SINCE_JOINED
+            + " AND b.id > :readUpToId"
+            + " AND NOT EXISTS (SELECT r FROM GoalBroadcastRead r WHERE r.userId = :userId AND r.broadcastId = b.id)")
+    long countUnread(@Param("userId") Long userId, @Param("readUpToId") long readUpToId);
+
+    /**
+     * Posts today's reminder to every goal of {@code shard} in {@code (afterId, upToId]} due at {@code now} that
+     * does not have one yet, in a single statement. Goal {@code g} is in shard {@code g.id mod shards}. Every row
+     * gets {@code postedAt} as its creation time so {@link #findReminderRecipients} can find them again.
+     *
+     * <p>Native because Hibernate assigns sequence ids to an HQL insert row by row. Each row here draws its id from
+     * the notification id sequence in the same statement, like the entities do one at a time.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO goal_broadcast (id, goal_id, notification_type, occurs_on,"
+            + " created_at) SELECT nextval('notification_id_seq'), g.id, 'SYSTEM', :today, :postedAt FROM goals g"
+            + " WHERE g.id > :afterId AND g.id <= :upToId AND MOD(g.id, :shards) = :shard"
+            + " AND g.next_due_at <= :now AND NOT EXISTS (SELECT 1 FROM goal_broadcast b"
+            + " WHERE b.goal_id = g.id AND b.notification_type = 'SYSTEM' AND b.occurs_on = :today)")
+    int insertDueReminders(@Param("shard") int shard, @Param("shards") int shards,
+                           @Param("afterId") long afterId, @Param("upToId") long upToId,
+                           @Param("now") LocalDateTime now, @Param("today") LocalDate today,
+                           @Param("postedAt") LocalDateTime postedAt);
+
+    /**
+     * Returns one row per squad member and reminder posted today at {@code postedAt} to a goal of
+     * {@code shard} in {@code (afterId, upToId]}.
+     */
+    @Query("SELECT new com.github.shafina.squadgoals.dto.ReminderRecipient(u.id, b.id, b.notificationType,"
+            + " b.createdAt, g.title) FROM GoalBroadcast b JOIN b.goal g JOIN g.squad u"
+            + " WHERE g.id > :afterId AND g.id <= :upToId AND MOD(g.id, :shards) = :shard"
+            + " AND b.notificationType = " + SYSTEM
+            + " AND b.occursOn = :today AND b.createdAt = :postedAt")
+    List<ReminderRecipient> findReminderRecipients(@Param("shard") int shard,
+                                                   @Param("shards") int shards,
+                                                   @Param("afterId") long afterId, @Param("upToId") long upToId,
+                                                   @Param("today") LocalDate today,
+                                                   @Param("postedAt") LocalDateTime postedAt);
+
+    @Query("SELECT MIN(b.id) FROM GoalBroadcast b")
+    Optional<Long> findMinId();
+
+    @Query("SELECT MAX(b.id) FROM GoalBroadcast b WHERE b.createdAt < :before")
+    Optional<Long> findMaxIdCreatedBefore(@Param("before") LocalDateTime before);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM GoalBroadcast b WHERE b.id >= :fromId AND b.id < :toId AND b.createdAt < :cutoff")
+    int deleteExpired(@Param("fromId") long fromId, @Param("toId") long toId,
+                      @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Deletes read markers in {@code [fromId, toId)} whose broadcast is gone.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM GoalBroadcastRead r WHERE r.broadcastId >= :fromId AND r.broadcastId < :toId"
+            + " AND NOT EXISTS (SELECT b FROM GoalBroadcast b WHERE b.id = r.broadcastId)")
+    int deleteOrphanedReads(@Param("fromId") long fromId, @Param("toId") long toId);
+}
@@ -0,0 +1,18 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.dto.GoalDTO;
+import com.github.shafina.squadgoals.model.Goal;
+
+import java.util.List;
+
+public interface GoalDTOQueries {
+    /**
+     * Maps already loaded goals (with their creator fetched) to DTOs, loading the tags and squad members of the
+     * whole list in one query each instead of once per goal. Results keep the order of {@code goals}.
+     */
+    List<GoalDTO> toGoalDTOs(List<Goal> goals);
+
+    default GoalDTO toGoalDTO(Goal goal) {
+        return toGoalDTOs(List.of(goal)).get(0);
+    }
+}
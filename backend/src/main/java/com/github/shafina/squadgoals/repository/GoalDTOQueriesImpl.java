@@ -0,0 +1,66 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.dto.GoalDTO;
+import com.github.shafina.squadgoals.dto.UserDTO;
+import com.github.shafina.squadgoals.model.Goal;
+import jakarta.persistence.EntityManager;
+
+import java.util.*;
+
+class GoalDTOQueriesImpl implements GoalDTOQueries {
+
+    private final EntityManager entityManager;
+
+    GoalDTOQueriesImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<GoalDTO> toGoalDTOs(List<Goal> goals) {
+        if (goals.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> goalIds = new HashSet<>();
+        goals.forEach(goal -> goalIds.add(goal.getId()));
+
+        Map<Long, Set<String>> tagsByGoal = new HashMap<>();
+        entityManager.createQuery("SELECT g.id, t.name FROM Goal g JOIN g.tags t WHERE g.id IN :goalIds", TagRow.class)
+                .setParameter("goalIds", goalIds)
+                .getResultList()
+                .forEach(row -> tagsByGoal.computeIfAbsent(row.goalId(), id -> new HashSet<>()).add(row.name()));
+
+        Map<Long, Set<UserDTO>> squadByGoal = new HashMap<>();
+        entityManager.createQuery("SELECT g.id, u.id, u.name, u.email, u.timezone"
+                        + " FROM Goal g JOIN g.squad u WHERE g.id IN :goalIds", MemberRow.class)
+                .setParameter("goalIds", goalIds)
+                .getResultList()
+                .forEach(row -> squadByGoal.computeIfAbsent(row.goalId(), id -> new HashSet<>()).add(row.toUserDTO()));
+
+        return goals.stream()
+                .map(goal -> new GoalDTO(
+                        goal.getId(),
+                        goal.getTitle(),
+                        goal.getDescription(),
+                        UserDTO.from(goal.getCreatedBy()),
+                        goal.getTimezone(),
+                        goal.getStartAt(),
+                        goal.getFrequency(),
+                        goal.getPublic(),
+                        goal.getCreatedAt(),
+                        goal.getUpdatedAt(),
+                        goal.getNextDueAt(),
+                        tagsByGoal.getOrDefault(goal.getId(), Set.of()),
+                        squadByGoal.getOrDefault(goal.getId(), Set.of())))
+                .toList();
+    }
+
+    record TagRow(Long goalId, String name) {
+    }
+
+    record MemberRow(Long goalId, Long id, String name, String email, String timezone) {
+        UserDTO toUserDTO() {
+            return new UserDTO(id, name, email, timezone);
+        }
+    }
+}
@@ -1,17 +1,60 @@
 package com.github.shafina.squadgoals.repository;
 
 import com.github.shafina.squadgoals.model.Goal;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
-public interface GoalRepository extends JpaRepository<Goal, Long> {
-    List<Goal> findByIsPublicTrue();
+public interface GoalRepository extends JpaRepository<Goal, Long>, GoalDTOQueries {
+    @EntityGraph("Goal.withCreator")
+    Optional<Goal> findWithCreatorById(Long id);
 
-    @Query("SELECT g FROM Goal g WHERE g.nextDueAt <= :now")
-    List<Goal> findGoalsDueToday(@Param("now") LocalDateTime now);
+    @EntityGraph("Goal.withCreator")
+    @Query("SELECT g FROM Goal g WHERE g.isPublic = true ORDER BY g.createdAt DESC, g.id DESC")
+    List<Goal> findPublicFeed(Limit limit);
+
+    @EntityGraph("Goal.withCreator")
+    @Query("SELECT g FROM Goal g WHERE g.isPublic = true"
+            + " AND (g.createdAt < :createdAt OR (g.createdAt = :createdAt AND g.id < :id))"
+            + " ORDER BY g.createdAt DESC, g.id DESC")
+    List<Goal> findPublicFeedBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    /**
+     * Returns the ids of up to {@code limit} goals of {@code shard} due at {@code now} after {@code afterId}, in
+     * id order. Goal {@code g} is in shard {@code g.id mod shards}.
+     */
+    @Query("SELECT g.id FROM Goal g WHERE g.id > :afterId AND MOD(g.id, :shards) = :shard"
+            + " AND g.nextDueAt <= :now ORDER BY g.id")
+    List<Long> findDueGoalIds(@Param("shard") int shard, @Param("shards") int shards,
+                              @Param("afterId") long afterId, @Param("now") LocalDateTime now, Limit limit);
+
+    /**
+     * Moves every goal of {@code shard} in {@code (afterId, upToId]} due at {@code now} that has today's
+     * reminder on to its next occurrence. Goals whose frequency has no fixed step keep their due time.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Goal g SET g.nextDueAt = CASE g.frequency"
+            + " WHEN com.github.shafina.squadgoals.enums.Frequency.DAILY THEN g.nextDueAt + 1 day"
+            + " WHEN com.github.shafina.squadgoals.enums.Frequency.WEEKLY THEN g.nextDueAt + 1 week"
+            + " WHEN com.github.shafina.squadgoals.enums.Frequency.MONTHLY THEN g.nextDueAt + 1 month"
+            + " ELSE g.nextDueAt END"
+            + " WHERE g.id > :afterId AND g.id <= :upToId AND MOD(g.id, :shards) = :shard"
+            + " AND g.nextDueAt <= :now"
+            + " AND EXISTS (SELECT b FROM GoalBroadcast b WHERE b.goal = g"
+            + " AND b.notificationType = com.github.shafina.squadgoals.enums.NotificationType.SYSTEM"
+            + " AND b.occursOn = :today)")
+    int advanceDueGoals(@Param("shard") int shard, @Param("shards") int shards,
+                        @Param("afterId") long afterId, @Param("upToId") long upToId,
+                        @Param("now") LocalDateTime now, @Param("today") LocalDate today);
 
 }
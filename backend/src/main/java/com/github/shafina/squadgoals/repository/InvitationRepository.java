@@ -2,11 +2,19 @@ package com.github.shafina.squadgoals.repository;
 
 import com.github.shafina.squadgoals.enums.InvitationStatus;
 import com.github.shafina.squadgoals.model.Invitation;
-import com.github.shafina.squadgoals.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Optional;
+
 public interface InvitationRepository extends JpaRepository<Invitation, Long> {
-    Page<Invitation> findAllByInvitedUserAndStatus(User user, InvitationStatus status, Pageable pageable);
+    @EntityGraph("Invitation.withGoalAndInviter")
+    Page<Invitation> findAllByInvitedUserIdAndStatus(Long invitedUserId, InvitationStatus status, Pageable pageable);
+
+    @EntityGraph("Invitation.withGoalSquad")
+    Optional<Invitation> findWithGoalSquadById(Long id);
+
+    long countByInvitedUserIdAndStatus(Long invitedUserId, InvitationStatus status);
 }
@@ -0,0 +1,51 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.model.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+    /**
+     * Extends the lease when {@code owner} holds it, or hands it to {@code owner} when it expired before
+     * {@code now}. Returns 0 when someone else holds it or it does not exist yet.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.expiresAt = :expiresAt"
+            + " WHERE l.name = :name AND (l.owner = :owner OR l.expiresAt < :now)")
+    int takeOver(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Creates the lease for {@code owner} unless it exists. Two nodes racing to create it both pass the check; the
+     * primary key turns the loser's insert into a constraint violation.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO job_lease (lease_name, owner, expires_at)"
+            + " SELECT :name, :owner, :expiresAt WHERE NOT EXISTS (SELECT 1 FROM job_lease WHERE lease_name = :name)")
+    int insertIfAbsent(@Param("name") String name, @Param("owner") String owner,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Query("SELECT COUNT(l) FROM JobLease l WHERE l.name LIKE CONCAT(:prefix, '%') AND l.expiresAt >= :now")
+    long countHeld(@Param("prefix") String prefix, @Param("now") LocalDateTime now);
+
+    /**
+     * Deletes the leases under {@code prefix} that expired before {@code now}. A holder renewing one at the same
+     * time either wins, and its lease is no longer expired, or recreates it with {@link #insertIfAbsent}.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM JobLease l WHERE l.name LIKE CONCAT(:prefix, '%') AND l.expiresAt < :now")
+    int deleteExpired(@Param("prefix") String prefix, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM JobLease l WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
@@ -0,0 +1,36 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.model.NotificationReadState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface NotificationReadStateRepository extends JpaRepository<NotificationReadState, Long> {
+    @Query("SELECT s.readUpToId FROM NotificationReadState s WHERE s.userId = :userId")
+    Optional<Long> findReadUpToId(@Param("userId") Long userId);
+
+    /**
+     * Moves the watermark forward to {@code upToId}; never moves it back. Returns 0 both when the user has no row
+     * yet and when the watermark is already at or past {@code upToId}.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE NotificationReadState s SET s.readUpToId = :upToId"
+            + " WHERE s.userId = :userId AND s.readUpToId < :upToId")
+    int advance(@Param("userId") Long userId, @Param("upToId") long upToId);
+
+    /**
+     * Creates the user's watermark at {@code upToId} unless they have one. Two first calls racing both pass the
+     * check; the primary key turns the loser's insert into a constraint violation.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO notification_read_state (user_id, read_up_to_id)"
+            + " SELECT :userId, :upToId WHERE NOT EXISTS"
+            + " (SELECT 1 FROM notification_read_state WHERE user_id = :userId)")
+    int insertIfAbsent(@Param("userId") Long userId, @Param("upToId") long upToId);
+}
@@ -1,21 +1,112 @@
 package com.github.shafina.squadgoals.repository;
 
-import com.github.shafina.squadgoals.enums.NotificationType;
-import com.github.shafina.squadgoals.model.Goal;
+import com.github.shafina.squadgoals.dto.NotificationDTO;
 import com.github.shafina.squadgoals.model.Notification;
-import com.github.shafina.squadgoals.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
-    List<Notification> findByUser(User user);
+    String INBOX_ROW = "SELECT new com.github.shafina.squadgoals.dto.NotificationDTO(n.id, n.notificationType,"
+            + " CASE WHEN n.read = true OR n.id <= :readUpToId THEN true ELSE false END,"
+            + " n.createdAt, n.senderName, n.goalTitle) FROM Notification n";
 
-    boolean existsByUserAndGoalAndNotificationTypeAndCreatedAtBetween(User user, Goal goal, NotificationType notificationType, LocalDateTime localDateTime, LocalDateTime localDateTime1);
+    /**
+     * Reads the inbox from the notification row alone; sender and goal are never loaded.
+     *
+     * @param readUpToId the user's read watermark; notifications at or below it come back read
+     */
+    @Query(INBOX_ROW + " WHERE n.user.id = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationDTO> findInbox(@Param("userId") Long userId, @Param("readUpToId") long readUpToId,
+                                    Limit limit);
 
-    List<Notification> findAllByUserAndReadFalse(User user);
+    @Query(INBOX_ROW + " WHERE n.user.id = :userId"
+            + " AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id))"
+            + " ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationDTO> findInboxBefore(@Param("userId") Long userId, @Param("readUpToId") long readUpToId,
+                                          @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                          Limit limit);
 
-    Optional<Notification> findByIdAndUser(Long id, User user);
+    /**
+     * Returns the user's notifications with ids above {@code sinceId}, newest first.
+     */
+    @Query(INBOX_ROW + " WHERE n.user.id = :userId AND n.id > :sinceId ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationDTO> findInboxAfter(@Param("userId") Long userId, @Param("readUpToId") long readUpToId,
+                                         @Param("sinceId") long sinceId, Limit limit);
+
+    @Query("SELECT MAX(n.id) FROM Notification n WHERE n.user.id = :userId")
+    Optional<Long> findLatestId(@Param("userId") Long userId);
+
+    /**
+     * Counts notifications above the user's read watermark that have not been read individually.
+     */
+    @Query("SELECT COUNT(n) FROM Notification n"
+            + " WHERE n.user.id = :userId AND n.id > :readUpToId AND n.read = false")
+    long countUnread(@Param("userId") Long userId, @Param("readUpToId") long readUpToId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.read = true"
+            + " WHERE n.user.id = :userId AND n.read = false AND n.id IN :ids AND n.id > :readUpToId")
+    int markAsRead(@Param("userId") Long userId, @Param("ids") Collection<Long> ids,
+                   @Param("readUpToId") long readUpToId);
+
+    Optional<Notification> findByIdAndUserId(Long id, Long userId);
+
+    /**
+     * Rewrites the goal title snapshot on the goal's notifications.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.goalTitle = :title WHERE n.goal.id = :goalId"
+            + " AND (n.goalTitle IS NULL OR n.goalTitle <> :title)")
+    int refreshGoalTitle(@Param("goalId") Long goalId, @Param("title") String title);
+
+    @Query("SELECT MIN(n.id) FROM Notification n")
+    Optional<Long> findMinId();
+
+    @Query("SELECT MAX(n.id) FROM Notification n")
+    Optional<Long> findMaxId();
+
+    /**
+     * Copies the goal title onto notifications in {@code [fromId, toId)} written before titles were snapshotted.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.goalTitle = (SELECT g.title FROM Goal g WHERE g.id = n.goal.id)"
+            + " WHERE n.id >= :fromId AND n.id < :toId AND n.goalTitle IS NULL AND n.goal IS NOT NULL")
+    int backfillGoalTitles(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * Copies the sender name onto notifications in {@code [fromId, toId)} written before names were snapshotted.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.senderName = (SELECT u.name FROM User u WHERE u.id = n.sender.id)"
+            + " WHERE n.id >= :fromId AND n.id < :toId AND n.senderName IS NULL AND n.sender IS NOT NULL")
+    int backfillSenderNames(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("SELECT MAX(n.id) FROM Notification n WHERE n.createdAt < :before")
+    Optional<Long> findMaxIdCreatedBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Deletes notifications with ids in {@code [fromId, toId)} that are unread and older than {@code unreadCutoff},
+     * or read and older than {@code readCutoff}. Read means either flagged or at or below the user's watermark.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id >= :fromId AND n.id < :toId"
+            + " AND (n.createdAt < :unreadCutoff OR (n.createdAt < :readCutoff AND (n.read = true"
+            + " OR n.id <= COALESCE((SELECT s.readUpToId FROM NotificationReadState s WHERE s.userId = n.user.id), 0))))")
+    int deleteExpired(@Param("fromId") long fromId, @Param("toId") long toId,
+                      @Param("readCutoff") LocalDateTime readCutoff,
+                      @Param("unreadCutoff") LocalDateTime unreadCutoff);
 }
@@ -0,0 +1,40 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.model.ReminderJobState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ReminderJobStateRepository extends JpaRepository<ReminderJobState, String> {
+    /**
+     * Records that the job's run on {@code runDate} has handled every due goal up to {@code lastGoalId}, posting
+     * {@code posted} more reminders.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReminderJobState s SET s.lastGoalId = :lastGoalId, s.posted = s.posted + :posted"
+            + " WHERE s.jobName = :jobName AND s.runDate = :runDate")
+    int recordProgress(@Param("jobName") String jobName, @Param("runDate") LocalDate runDate,
+                       @Param("lastGoalId") long lastGoalId, @Param("posted") long posted);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReminderJobState s SET s.completedAt = :completedAt"
+            + " WHERE s.jobName = :jobName AND s.runDate = :runDate")
+    int recordCompletion(@Param("jobName") String jobName, @Param("runDate") LocalDate runDate,
+                         @Param("completedAt") LocalDateTime completedAt);
+
+    /**
+     * Returns those of {@code jobNames} that completed their run on {@code runDate}.
+     */
+    @Query("SELECT s.jobName FROM ReminderJobState s"
+            + " WHERE s.jobName IN :jobNames AND s.runDate = :runDate AND s.completedAt IS NOT NULL")
+    List<String> findCompleted(@Param("jobNames") Collection<String> jobNames, @Param("runDate") LocalDate runDate);
+}
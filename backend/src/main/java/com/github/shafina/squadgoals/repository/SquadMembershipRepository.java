@@ -0,0 +1,7 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.model.SquadMembership;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SquadMembershipRepository extends JpaRepository<SquadMembership, SquadMembership.Key> {
+}
@@ -3,8 +3,9 @@ package com.github.shafina.squadgoals.repository;
 import com.github.shafina.squadgoals.model.Tag;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
 
 public interface TagRepository extends JpaRepository<Tag, Long> {
-    Optional<Tag> findByName(String tagName);
+    List<Tag> findByNameIn(Collection<String> tagNames);
 }
@@ -0,0 +1,10 @@
+package com.github.shafina.squadgoals.security;
+
+import com.github.shafina.squadgoals.model.User;
+
+public record AuthenticatedUser(Long id, String firebaseUid, String name, String email, String timezone) {
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getFirebaseUid(), user.getName(), user.getEmail(),
+                user.getTimezone());
+    }
+}
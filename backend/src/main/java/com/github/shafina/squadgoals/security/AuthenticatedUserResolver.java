@@ -0,0 +1,80 @@
+package com.github.shafina.squadgoals.security;
+
+import com.github.shafina.squadgoals.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps Firebase uids to application users through a bounded in-memory cache, so resolving the caller
+ * does not cost a query per request. Only existing users are cached, and users are never changed after
+ * {@code POST /api/users} creates them, so entries cannot go stale. A path that changes users must drop
+ * their entry here.
+ */
+@Component
+public class AuthenticatedUserResolver {
+
+    private final UserRepository userRepository;
+    private final int maxSize;
+    private final Map<String, AuthenticatedUser> usersByUid = new ConcurrentHashMap<>();
+
+    public AuthenticatedUserResolver(UserRepository userRepository,
+                                     @Value("${squadgoals.auth.user-cache.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.maxSize = maxSize;
+    }
+
+    public Optional<AuthenticatedUser> findByFirebaseUid(String firebaseUid) {
+        AuthenticatedUser cached = usersByUid.get(firebaseUid);
+
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<AuthenticatedUser> user = userRepository.findByFirebaseUid(firebaseUid).map(AuthenticatedUser::from);
+        user.ifPresent(resolved -> put(firebaseUid, resolved));
+        return user;
+    }
+
+    public AuthenticatedUser resolve(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized");
+        }
+
+        if (authentication instanceof FirebaseAuthenticationToken firebaseAuthentication
+                && firebaseAuthentication.getUser() != null) {
+            return firebaseAuthentication.getUser();
+        }
+
+        return findByFirebaseUid(authentication.getName())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    }
+
+    /**
+     * Drops every entry, for callers that swap the users behind the repository, such as the web-layer tests.
+     */
+    public void clear() {
+        usersByUid.clear();
+    }
+
+    private void put(String firebaseUid, AuthenticatedUser user) {
+        if (usersByUid.size() >= maxSize) {
+            Iterator<String> uids = usersByUid.keySet().iterator();
+            while (usersByUid.size() >= maxSize && uids.hasNext()) {
+                uids.next();
+                uids.remove();
+            }
+        }
+
+        usersByUid.put(firebaseUid, user);
+    }
+}
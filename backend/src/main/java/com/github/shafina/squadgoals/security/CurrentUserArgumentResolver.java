@@ -0,0 +1,31 @@
+package com.github.shafina.squadgoals.security;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final AuthenticatedUserResolver authenticatedUserResolver;
+
+    public CurrentUserArgumentResolver(AuthenticatedUserResolver authenticatedUserResolver) {
+        this.authenticatedUserResolver = authenticatedUserResolver;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return AuthenticatedUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public AuthenticatedUser resolveArgument(@NonNull MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                             @NonNull NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        return authenticatedUserResolver.resolve(SecurityContextHolder.getContext().getAuthentication());
+    }
+}
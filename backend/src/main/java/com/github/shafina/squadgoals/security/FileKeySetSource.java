@@ -0,0 +1,29 @@
+package com.github.shafina.squadgoals.security;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Reads a JWKS document from disk. Stands in for Google's key endpoint in tests and benchmarks, which
+ * can generate their own RSA key pair, publish the public half here and sign tokens with the private half.
+ */
+public class FileKeySetSource implements KeySetSource {
+
+    private final Path path;
+    private final Duration reloadInterval;
+    private final Clock clock;
+
+    public FileKeySetSource(Path path, Duration reloadInterval, Clock clock) {
+        this.path = path;
+        this.reloadInterval = reloadInterval;
+        this.clock = clock;
+    }
+
+    @Override
+    public SigningKeys load() throws IOException {
+        return SigningKeys.fromJwks(Files.readAllBytes(path), clock.instant().plus(reloadInterval));
+    }
+}
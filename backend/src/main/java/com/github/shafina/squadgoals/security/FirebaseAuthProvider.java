@@ -1,13 +1,57 @@
 package com.github.shafina.squadgoals.security;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseToken;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Verifies Firebase ID tokens, reusing a verification for up to {@code token-cache.max-ttl}. Sign-out happens in
+ * the client only, and nothing tells the server about it. With {@code check-revoked}, a revoked token is therefore
+ * rejected once its cache entry expires, so {@code max-ttl} bounds how late revocation takes effect. Without it,
+ * and with the offline verifier, the token's own {@code exp} is the bound.
+ */
 @Component
 public class FirebaseAuthProvider {
 
-    public FirebaseToken verifyIdToken(String idToken) throws Exception {
-        return FirebaseAuth.getInstance().verifyIdToken(idToken);
+    private final IdTokenVerifier idTokenVerifier;
+    private final VerifiedTokenCache tokenCache;
+
+    public FirebaseAuthProvider(
+            IdTokenVerifier idTokenVerifier,
+            @Value("${squadgoals.auth.token-cache.max-size:10000}") int maxSize,
+            @Value("${squadgoals.auth.token-cache.max-ttl:PT5M}") Duration maxTtl,
+            MeterRegistry meterRegistry) {
+        this.idTokenVerifier = idTokenVerifier;
+        this.tokenCache = new VerifiedTokenCache(maxSize, maxTtl, Clock.systemUTC());
+
+        FunctionCounter.builder("squadgoals.auth.token.cache", tokenCache, VerifiedTokenCache::hitCount)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("squadgoals.auth.token.cache", tokenCache, VerifiedTokenCache::missCount)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("squadgoals.auth.token.cache.evictions", tokenCache, VerifiedTokenCache::evictionCount)
+                .register(meterRegistry);
+        Gauge.builder("squadgoals.auth.token.cache.size", tokenCache, VerifiedTokenCache::size)
+                .register(meterRegistry);
+    }
+
+    public VerifiedToken verifyIdToken(String idToken) throws Exception {
+        VerifiedToken cached = tokenCache.get(idToken);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        VerifiedToken verifiedToken = idTokenVerifier.verify(idToken);
+
+        tokenCache.put(idToken, verifiedToken);
+
+        return verifiedToken;
     }
 }
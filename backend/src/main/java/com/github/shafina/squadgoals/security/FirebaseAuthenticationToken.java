@@ -0,0 +1,36 @@
+package com.github.shafina.squadgoals.security;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+
+import java.util.Collections;
+
+/**
+ * Authentication for a verified Firebase ID token. The principal stays the Firebase uid; the resolved
+ * application user is attached when one exists (it is {@code null} before the user has signed up).
+ */
+public class FirebaseAuthenticationToken extends AbstractAuthenticationToken {
+
+    private final String uid;
+    private final AuthenticatedUser user;
+
+    public FirebaseAuthenticationToken(String uid, AuthenticatedUser user) {
+        super(Collections.emptyList());
+        this.uid = uid;
+        this.user = user;
+        setAuthenticated(true);
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return uid;
+    }
+
+    public AuthenticatedUser getUser() {
+        return user;
+    }
+}
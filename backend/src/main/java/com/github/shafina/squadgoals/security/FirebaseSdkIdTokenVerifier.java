@@ -0,0 +1,23 @@
+package com.github.shafina.squadgoals.security;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseToken;
+
+import java.time.Instant;
+
+public class FirebaseSdkIdTokenVerifier implements IdTokenVerifier {
+
+    private final boolean checkRevoked;
+
+    public FirebaseSdkIdTokenVerifier(boolean checkRevoked) {
+        this.checkRevoked = checkRevoked;
+    }
+
+    @Override
+    public VerifiedToken verify(String idToken) throws Exception {
+        FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken, checkRevoked);
+
+        Number exp = (Number) decodedToken.getClaims().get("exp");
+        return new VerifiedToken(decodedToken.getUid(), Instant.ofEpochSecond(exp.longValue()));
+    }
+}
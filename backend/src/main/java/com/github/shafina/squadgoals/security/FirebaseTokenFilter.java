@@ -1,25 +1,46 @@
 package com.github.shafina.squadgoals.security;
 
-import com.google.firebase.auth.FirebaseToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.stereotype.Component;
+import org.springframework.util.function.SingletonSupplier;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
 
 @Component
 public class FirebaseTokenFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(FirebaseTokenFilter.class);
+
     private final FirebaseAuthProvider firebaseAuthProvider;
+    private final AuthenticatedUserResolver authenticatedUserResolver;
+    private final SecurityContextHolderStrategy securityContextHolderStrategy =
+            SecurityContextHolder.getContextHolderStrategy();
+
+    private RequestMatcher deferredRequestMatcher = request -> false;
 
-    public FirebaseTokenFilter(FirebaseAuthProvider firebaseAuthProvider) {
+    public FirebaseTokenFilter(FirebaseAuthProvider firebaseAuthProvider,
+                               AuthenticatedUserResolver authenticatedUserResolver) {
         this.firebaseAuthProvider = firebaseAuthProvider;
+        this.authenticatedUserResolver = authenticatedUserResolver;
+    }
+
+    /**
+     * Requests matching {@code matcher} only verify their token when something first reads the security
+     * context. They must be {@code permitAll}: a token that fails verification leaves them anonymous instead
+     * of answering 401.
+     */
+    public void setDeferredRequestMatcher(RequestMatcher matcher) {
+        this.deferredRequestMatcher = matcher;
     }
 
     @Override
@@ -31,18 +52,37 @@ public class FirebaseTokenFilter extends OncePerRequestFilter {
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
 
-            try {
-                FirebaseToken decodedToken = firebaseAuthProvider.verifyIdToken(token);
-
-                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(decodedToken.getUid(), null, Collections.emptyList());
-
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-            } catch (Exception e) {
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                return;
+            if (deferredRequestMatcher.matches(request)) {
+                securityContextHolderStrategy.setDeferredContext(SingletonSupplier.of(() -> deferredContext(token)));
+            } else {
+                try {
+                    securityContextHolderStrategy.setContext(authenticate(token));
+                } catch (Exception e) {
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    return;
+                }
             }
         }
 
         chain.doFilter(request, response);
     }
+
+    private SecurityContext deferredContext(String token) {
+        try {
+            return authenticate(token);
+        } catch (Exception e) {
+            log.debug("Deferred token verification failed, continuing anonymously", e);
+            return securityContextHolderStrategy.createEmptyContext();
+        }
+    }
+
+    private SecurityContext authenticate(String token) throws Exception {
+        VerifiedToken verifiedToken = firebaseAuthProvider.verifyIdToken(token);
+
+        AuthenticatedUser user = authenticatedUserResolver.findByFirebaseUid(verifiedToken.uid()).orElse(null);
+
+        SecurityContext context = securityContextHolderStrategy.createEmptyContext();
+        context.setAuthentication(new FirebaseAuthenticationToken(verifiedToken.uid(), user));
+        return context;
+    }
 }
@@ -0,0 +1,60 @@
+package com.github.shafina.squadgoals.security;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class HttpKeySetSource implements KeySetSource {
+
+    public static final String FIREBASE_JWKS_URL =
+            "https://www.googleapis.com/service_accounts/v1/jwk/securetoken@system.gserviceaccount.com";
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofHours(1);
+
+    private final URI uri;
+    private final Clock clock;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public HttpKeySetSource(URI uri, Clock clock) {
+        this.uri = uri;
+        this.clock = clock;
+    }
+
+    @Override
+    public SigningKeys load() throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching signing keys", e);
+        }
+
+        if (response.statusCode() != 200) {
+            throw new IOException("Fetching signing keys returned HTTP " + response.statusCode());
+        }
+
+        Duration maxAge = response.headers()
+                .firstValue("Cache-Control")
+                .map(MAX_AGE::matcher)
+                .filter(Matcher::find)
+                .map(matcher -> Duration.ofSeconds(Long.parseLong(matcher.group(1))))
+                .orElse(DEFAULT_MAX_AGE);
+
+        return SigningKeys.fromJwks(response.body(), clock.instant().plus(maxAge));
+    }
+}
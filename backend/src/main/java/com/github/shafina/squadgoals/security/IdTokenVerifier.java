@@ -0,0 +1,5 @@
+package com.github.shafina.squadgoals.security;
+
+public interface IdTokenVerifier {
+    VerifiedToken verify(String idToken) throws Exception;
+}
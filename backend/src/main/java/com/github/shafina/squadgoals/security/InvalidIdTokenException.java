@@ -0,0 +1,11 @@
+package com.github.shafina.squadgoals.security;
+
+public class InvalidIdTokenException extends Exception {
+    public InvalidIdTokenException(String message) {
+        super(message);
+    }
+
+    public InvalidIdTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
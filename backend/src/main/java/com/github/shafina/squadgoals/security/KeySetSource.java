@@ -0,0 +1,7 @@
+package com.github.shafina.squadgoals.security;
+
+import java.io.IOException;
+
+public interface KeySetSource {
+    SigningKeys load() throws IOException;
+}
@@ -0,0 +1,127 @@
+package com.github.shafina.squadgoals.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Verifies Firebase ID tokens against an in-memory {@link RotatingKeySet}, following the checks described
+ * in Firebase's "verify ID tokens using a third-party JWT library" guide. Does no I/O, and unlike the SDK
+ * verifier it cannot check whether the token has been revoked.
+ */
+public class OfflineIdTokenVerifier implements IdTokenVerifier {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String ISSUER_PREFIX = "https://securetoken.google.com/";
+
+    private final RotatingKeySet keySet;
+    private final String projectId;
+    private final String issuer;
+    private final Duration clockSkew;
+    private final Clock clock;
+
+    public OfflineIdTokenVerifier(RotatingKeySet keySet, String projectId, Duration clockSkew, Clock clock) {
+        this.keySet = keySet;
+        this.projectId = projectId;
+        this.issuer = ISSUER_PREFIX + projectId;
+        this.clockSkew = clockSkew;
+        this.clock = clock;
+    }
+
+    @Override
+    public VerifiedToken verify(String idToken) throws InvalidIdTokenException {
+        String[] parts = idToken.split("\\.", -1);
+
+        if (parts.length != 3) {
+            throw new InvalidIdTokenException("Token is not a JWS compact serialization");
+        }
+
+        JsonNode header = decodeJson(parts[0]);
+        JsonNode payload = decodeJson(parts[1]);
+
+        if (!"RS256".equals(header.path("alg").asText())) {
+            throw new InvalidIdTokenException("Unexpected signing algorithm");
+        }
+
+        String kid = header.path("kid").asText(null);
+        PublicKey publicKey = kid != null ? keySet.publicKey(kid) : null;
+
+        if (publicKey == null) {
+            throw new InvalidIdTokenException("Unknown signing key: " + kid);
+        }
+
+        verifySignature(publicKey, parts);
+
+        Instant now = clock.instant();
+        Instant expiresAt = epochClaim(payload, "exp");
+
+        if (!expiresAt.plus(clockSkew).isAfter(now)) {
+            throw new InvalidIdTokenException("Token has expired");
+        }
+
+        if (epochClaim(payload, "iat").minus(clockSkew).isAfter(now)) {
+            throw new InvalidIdTokenException("Token issued in the future");
+        }
+
+        if (epochClaim(payload, "auth_time").minus(clockSkew).isAfter(now)) {
+            throw new InvalidIdTokenException("Token has an invalid auth_time");
+        }
+
+        if (!projectId.equals(payload.path("aud").asText())) {
+            throw new InvalidIdTokenException("Token has an unexpected audience");
+        }
+
+        if (!issuer.equals(payload.path("iss").asText())) {
+            throw new InvalidIdTokenException("Token has an unexpected issuer");
+        }
+
+        String uid = payload.path("sub").asText("");
+
+        if (uid.isEmpty() || uid.length() > 128) {
+            throw new InvalidIdTokenException("Token has an invalid subject");
+        }
+
+        return new VerifiedToken(uid, expiresAt);
+    }
+
+    private static Instant epochClaim(JsonNode payload, String claim) throws InvalidIdTokenException {
+        JsonNode value = payload.path(claim);
+
+        if (!value.canConvertToLong()) {
+            throw new InvalidIdTokenException("Token is missing the " + claim + " claim");
+        }
+
+        return Instant.ofEpochSecond(value.asLong());
+    }
+
+    private static void verifySignature(PublicKey publicKey, String[] parts) throws InvalidIdTokenException {
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(publicKey);
+            signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+
+            if (!signature.verify(Base64.getUrlDecoder().decode(parts[2]))) {
+                throw new InvalidIdTokenException("Invalid token signature");
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new InvalidIdTokenException("Invalid token signature", e);
+        }
+    }
+
+    private static JsonNode decodeJson(String part) throws InvalidIdTokenException {
+        try {
+            return MAPPER.readTree(Base64.getUrlDecoder().decode(part));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidIdTokenException("Malformed token", e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.shafina.squadgoals.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.PublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory signing key set that is refreshed on a background thread ahead of its expiry, so request
+ * threads only ever read the current snapshot. If a refresh fails the previous keys stay in use and the
+ * refresh is retried.
+ */
+public class RotatingKeySet implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RotatingKeySet.class);
+
+    private static final Duration MIN_REFRESH_DELAY = Duration.ofSeconds(30);
+
+    private final KeySetSource source;
+    private final Duration refreshAhead;
+    private final Duration retryDelay;
+    private final Clock clock;
+    private final AtomicReference<SigningKeys> current = new AtomicReference<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "signing-key-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RotatingKeySet(KeySetSource source, Duration refreshAhead, Duration retryDelay, Clock clock) {
+        this.source = source;
+        this.refreshAhead = refreshAhead;
+        this.retryDelay = retryDelay;
+        this.clock = clock;
+    }
+
+    public void start() {
+        refresh();
+    }
+
+    public PublicKey publicKey(String kid) {
+        SigningKeys keys = current.get();
+        return keys != null ? keys.get(kid) : null;
+    }
+
+    public SigningKeys current() {
+        return current.get();
+    }
+
+    void refresh() {
+        Duration nextRefresh;
+
+        try {
+            SigningKeys keys = source.load();
+            current.set(keys);
+
+            Instant refreshAt = keys.expiresAt().minus(refreshAhead);
+            nextRefresh = Duration.between(clock.instant(), refreshAt);
+            if (nextRefresh.compareTo(MIN_REFRESH_DELAY) < 0) {
+                nextRefresh = MIN_REFRESH_DELAY;
+            }
+
+            log.debug("Loaded {} signing keys, next refresh in {}", keys.keys().size(), nextRefresh);
+        } catch (Exception e) {
+            log.warn("Failed to refresh signing keys, retrying in {}", retryDelay, e);
+            nextRefresh = retryDelay;
+        }
+
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::refresh, nextRefresh.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.shafina.squadgoals.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+public record SigningKeys(Map<String, PublicKey> keys, Instant expiresAt) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public SigningKeys {
+        keys = Map.copyOf(keys);
+    }
+
+    public PublicKey get(String kid) {
+        return keys.get(kid);
+    }
+
+    public static SigningKeys fromJwks(byte[] json, Instant expiresAt) throws IOException {
+        JsonNode keysNode = MAPPER.readTree(json).path("keys");
+
+        if (!keysNode.isArray()) {
+            throw new IOException("Key set has no 'keys' array");
+        }
+
+        Map<String, PublicKey> keys = new HashMap<>();
+
+        for (JsonNode jwk : keysNode) {
+            if (!"RSA".equals(jwk.path("kty").asText())) {
+                continue;
+            }
+
+            String kid = jwk.path("kid").asText(null);
+            String modulus = jwk.path("n").asText(null);
+            String exponent = jwk.path("e").asText(null);
+
+            if (kid == null || modulus == null || exponent == null) {
+                throw new IOException("RSA key is missing kid, n or e");
+            }
+
+            keys.put(kid, rsaPublicKey(modulus, exponent));
+        }
+
+        return new SigningKeys(keys, expiresAt);
+    }
+
+    private static PublicKey rsaPublicKey(String modulus, String exponent) throws IOException {
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        RSAPublicKeySpec spec = new RSAPublicKeySpec(
+                new BigInteger(1, decoder.decode(modulus)),
+                new BigInteger(1, decoder.decode(exponent)));
+
+        try {
+            return KeyFactory.getInstance("RSA").generatePublic(spec);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Invalid RSA key", e);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.github.shafina.squadgoals.security;
+
+import java.time.Instant;
+
+public record VerifiedToken(String uid, Instant expiresAt) {
+}
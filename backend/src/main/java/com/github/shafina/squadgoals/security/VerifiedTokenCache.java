@@ -0,0 +1,119 @@
+package com.github.shafina.squadgoals.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded cache of already verified ID tokens, keyed by a SHA-256 digest of the raw token so the
+ * bearer credential itself is never retained. Entries are dropped at the token's {@code exp}, or after
+ * {@code maxTtl} if that comes first, so revocation is picked up within one TTL window.
+ */
+public class VerifiedTokenCache {
+
+    private record Entry(VerifiedToken token, Instant evictAt) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final Duration maxTtl;
+    private final Clock clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedTokenCache(int maxSize, Duration maxTtl, Clock clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.maxSize = maxSize;
+        this.maxTtl = maxTtl;
+        this.clock = clock;
+    }
+
+    public VerifiedToken get(String idToken) {
+        String key = digest(idToken);
+        Entry entry = entries.get(key);
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        if (!entry.evictAt().isAfter(clock.instant())) {
+            entries.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.token();
+    }
+
+    public void put(String idToken, VerifiedToken token) {
+        Instant now = clock.instant();
+
+        if (!token.expiresAt().isAfter(now)) {
+            return;
+        }
+
+        Instant ttlLimit = now.plus(maxTtl);
+        Instant evictAt = token.expiresAt().isBefore(ttlLimit) ? token.expiresAt() : ttlLimit;
+
+        if (entries.size() >= maxSize) {
+            makeRoom(now);
+        }
+
+        entries.put(digest(idToken), new Entry(token, evictAt));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void makeRoom(Instant now) {
+        entries.values().removeIf(entry -> !entry.evictAt().isAfter(now));
+
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+        }
+    }
+
+    private static String digest(String idToken) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(idToken.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.dto.BadgeCounts;
+import com.github.shafina.squadgoals.enums.InvitationStatus;
+import com.github.shafina.squadgoals.event.NotificationCreatedEvent;
+import com.github.shafina.squadgoals.repository.GoalBroadcastRepository;
+import com.github.shafina.squadgoals.repository.InvitationRepository;
+import com.github.shafina.squadgoals.repository.NotificationReadStateRepository;
+import com.github.shafina.squadgoals.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user unread notification and pending invitation counts, kept in memory so the header badges never scan rows.
+ *
+ * <p>A user's counters are seeded from count queries on first read and then moved by the writes that change
+ * them, once those commit. Changes for users without counters are ignored; their seed will include them. Every
+ * {@code reconcile-interval} the counters of users read since the previous pass are recounted to correct drift
+ * from lost races, and the others are dropped.
+ */
+@Component
+public class BadgeCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(BadgeCounters.class);
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationReadStateRepository readStateRepository;
+    private final InvitationRepository invitationRepository;
+    private final GoalBroadcastRepository broadcastRepository;
+    private final Map<Long, Counts> counts = new ConcurrentHashMap<>();
+    private final Counter corrections;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "badge-reconcile");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BadgeCounters(NotificationRepository notificationRepository,
+                         NotificationReadStateRepository readStateRepository,
+                         InvitationRepository invitationRepository, GoalBroadcastRepository broadcastRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${squadgoals.badges.reconcile-interval:PT5M}") Duration reconcileInterval) {
+        this.notificationRepository = notificationRepository;
+        this.readStateRepository = readStateRepository;
+        this.invitationRepository = invitationRepository;
+        this.broadcastRepository = broadcastRepository;
+
+        Gauge.builder("squadgoals.badges.users", counts, Map::size)
+                .register(meterRegistry);
+        this.corrections = Counter.builder("squadgoals.badges.reconcile.corrections")
+                .register(meterRegistry);
+
+        scheduler.scheduleWithFixedDelay(this::reconcile, reconcileInterval.toMillis(), reconcileInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public BadgeCounts get(Long userId) {
+        Counts userCounts = counts.get(userId);
+
+        if (userCounts == null) {
+            Counts seeded = seed(userId);
+            userCounts = counts.putIfAbsent(userId, seeded);
+            if (userCounts == null) {
+                userCounts = seeded;
+            }
+        }
+
+        userCounts.touched = true;
+
+        return new BadgeCounts(Math.max(userCounts.unread.sum(), 0), Math.max(userCounts.pending.sum(), 0));
+    }
+
+    public void adjustUnread(Long userId, long delta) {
+        afterCommit(() -> addUnread(userId, delta));
+    }
+
+    public void adjustPending(Long userId, long delta) {
+        afterCommit(() -> {
+            Counts userCounts = counts.get(userId);
+            if (userCounts != null) {
+                userCounts.pending.add(delta);
+            }
+        });
+    }
+
+    /**
+     * Drops the user's counters so the next read seeds them again, for changes that cannot be expressed as a delta.
+     */
+    public void invalidate(Long userId) {
+        afterCommit(() -> counts.remove(userId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        // Already past the commit; a synchronization registered now would never run
+        addUnread(event.userId(), 1);
+    }
+
+    void reconcile() {
+        counts.forEach((userId, userCounts) -> {
+            if (!userCounts.touched) {
+                counts.remove(userId, userCounts);
+                return;
+            }
+
+            userCounts.touched = false;
+
+            try {
+                Counts actual = seed(userId);
+                correct(userCounts.unread, actual.unread.sum());
+                correct(userCounts.pending, actual.pending.sum());
+            } catch (RuntimeException e) {
+                log.warn("Failed to reconcile badge counts for user {}", userId, e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void addUnread(Long userId, long delta) {
+        Counts userCounts = counts.get(userId);
+        if (userCounts != null) {
+            userCounts.unread.add(delta);
+        }
+    }
+
+    private Counts seed(Long userId) {
+        long readUpToId = readStateRepository.findReadUpToId(userId).orElse(0L);
+
+        Counts seeded = new Counts();
+        seeded.unread.add(notificationRepository.countUnread(userId, readUpToId));
+        seeded.unread.add(broadcastRepository.countUnread(userId, readUpToId));
+        seeded.pending.add(invitationRepository.countByInvitedUserIdAndStatus(userId, InvitationStatus.PENDING));
+        return seeded;
+    }
+
+    private void correct(LongAdder counter, long actual) {
+        long drift = actual - counter.sum();
+
+        if (drift != 0) {
+            counter.add(drift);
+            corrections.increment();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class Counts {
+        final LongAdder unread = new LongAdder();
+        final LongAdder pending = new LongAdder();
+        volatile boolean touched;
+    }
+}
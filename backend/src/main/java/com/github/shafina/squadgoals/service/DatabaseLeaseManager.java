@@ -0,0 +1,54 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.repository.JobLeaseRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Leases kept in the {@code job_lease} table, shared by every node on the database. Each call is a single short
+ * statement of its own, so holding a lease never holds a connection or a transaction. Expiry is judged by the
+ * calling node's clock, so the TTL has to be well above the clock skew between nodes.
+ */
+public class DatabaseLeaseManager implements LeaseManager {
+
+    private final JobLeaseRepository leaseRepository;
+    private final Clock clock;
+
+    public DatabaseLeaseManager(JobLeaseRepository leaseRepository, Clock clock) {
+        this.leaseRepository = leaseRepository;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean tryAcquire(String name, String owner, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime expiresAt = now.plus(ttl);
+
+        if (leaseRepository.takeOver(name, owner, now, expiresAt) > 0) {
+            return true;
+        }
+
+        try {
+            return leaseRepository.insertIfAbsent(name, owner, expiresAt) > 0;
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the lease between our two statements
+            return false;
+        }
+    }
+
+    @Override
+    public void release(String name, String owner) {
+        leaseRepository.release(name, owner);
+    }
+
+    @Override
+    public long countHeld(String prefix) {
+        LocalDateTime now = LocalDateTime.now(clock);
+
+        leaseRepository.deleteExpired(prefix, now);
+        return leaseRepository.countHeld(prefix, now);
+    }
+}
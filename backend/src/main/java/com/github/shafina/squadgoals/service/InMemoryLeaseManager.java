@@ -0,0 +1,50 @@
+package com.github.shafina.squadgoals.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Leases held in memory, for tests and single-node setups. Owners only compete within this process.
+ */
+public class InMemoryLeaseManager implements LeaseManager {
+
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final Clock clock;
+
+    public InMemoryLeaseManager(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean tryAcquire(String name, String owner, Duration ttl) {
+        Instant now = clock.instant();
+
+        Lease lease = leases.compute(name, (key, current) ->
+                current == null || current.owner().equals(owner) || current.expiresAt().isBefore(now)
+                        ? new Lease(owner, now.plus(ttl))
+                        : current);
+
+        return lease.owner().equals(owner);
+    }
+
+    @Override
+    public void release(String name, String owner) {
+        leases.computeIfPresent(name, (key, current) -> current.owner().equals(owner) ? null : current);
+    }
+
+    @Override
+    public long countHeld(String prefix) {
+        Instant now = clock.instant();
+
+        leases.entrySet().removeIf(entry ->
+                entry.getKey().startsWith(prefix) && entry.getValue().expiresAt().isBefore(now));
+
+        return leases.keySet().stream().filter(name -> name.startsWith(prefix)).count();
+    }
+
+    private record Lease(String owner, Instant expiresAt) {
+    }
+}
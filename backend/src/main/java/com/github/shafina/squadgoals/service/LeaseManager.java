@@ -0,0 +1,28 @@
+package com.github.shafina.squadgoals.service;
+
+import java.time.Duration;
+
+/**
+ * Hands out named leases, each held by at most one owner at a time. Backed by the database across the cluster,
+ * or by memory for a single process.
+ */
+public interface LeaseManager {
+    /**
+     * Takes the lease for {@code ttl}, extends it when {@code owner} already holds it, or takes it over when its
+     * holder let it expire.
+     *
+     * @return true when {@code owner} holds the lease afterwards
+     */
+    boolean tryAcquire(String name, String owner, Duration ttl);
+
+    /**
+     * Gives the lease up if {@code owner} holds it, so another node need not wait for it to expire.
+     */
+    void release(String name, String owner);
+
+    /**
+     * Counts the unexpired leases whose name starts with {@code prefix}, and deletes the expired ones under it,
+     * which their holders, e.g. nodes that died, will never release.
+     */
+    long countHeld(String prefix);
+}
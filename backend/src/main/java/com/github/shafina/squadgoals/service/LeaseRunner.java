@@ -0,0 +1,172 @@
+package com.github.shafina.squadgoals.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Runs work on whichever node holds its lease. The lease is renewed every third of {@code ttl} while the work
+ * runs and released when it ends; a node that dies stops renewing, so another takes over once the lease expires.
+ *
+ * <p>Work is handed a check that turns false as soon as this node can no longer be sure it holds the lease: when a
+ * renewal is refused, or when renewals have failed for a whole {@code ttl}. Long work should look at it between
+ * steps and stop.
+ *
+ * <p>Nodes can also {@link #join} a named group, which keeps a lease per member renewed for as long as the node
+ * runs, so the group's live size can be {@link #members counted}.
+ *
+ * <p>Cancelling a heartbeat does not stop a renewal already under way, and one that lands after the release would
+ * take the lease again. Renewals and releases therefore run under the same lock, and a renewal that finds its
+ * lease released does nothing.
+ */
+@Component
+public class LeaseRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaseRunner.class);
+
+    private final LeaseManager leaseManager;
+    private final String nodeId;
+    private final Duration ttl;
+    private final Set<String> groups = ConcurrentHashMap.newKeySet();
+    private final Object membershipLock = new Object();
+    private boolean closed;
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lease-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LeaseRunner(LeaseManager leaseManager,
+                       @Value("${squadgoals.node-id:}") String nodeId,
+                       @Value("${squadgoals.leases.ttl:PT2M}") Duration ttl) {
+        this.leaseManager = leaseManager;
+        this.nodeId = nodeId.isBlank()
+                ? System.getenv().getOrDefault("HOSTNAME", "node") + "-" + UUID.randomUUID()
+                : nodeId;
+        this.ttl = ttl;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Runs {@code work} on this thread if this node gets the lease on {@code name}.
+     *
+     * @return false when another node holds the lease and {@code work} did not run
+     */
+    public boolean runExclusively(String name, Consumer<BooleanSupplier> work) {
+        if (!leaseManager.tryAcquire(name, nodeId, ttl)) {
+            return false;
+        }
+
+        AtomicLong heldUntil = new AtomicLong(System.nanoTime() + ttl.toNanos());
+        AtomicBoolean released = new AtomicBoolean();
+        long period = Math.max(1, ttl.toMillis() / 3);
+
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(() -> {
+            synchronized (released) {
+                if (released.get()) {
+                    return;
+                }
+
+                long renewedAt = System.nanoTime();
+
+                try {
+                    if (leaseManager.tryAcquire(name, nodeId, ttl)) {
+                        heldUntil.set(renewedAt + ttl.toNanos());
+                    } else {
+                        log.warn("Lease {} was taken over by another node", name);
+                        heldUntil.set(renewedAt);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Failed to renew lease {}", name, e);
+                }
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+
+        try {
+            work.accept(() -> System.nanoTime() < heldUntil.get());
+        } finally {
+            heartbeat.cancel(false);
+
+            synchronized (released) {
+                released.set(true);
+                leaseManager.release(name, nodeId);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Makes this node a member of {@code group} until it shuts down. Joining again is a no-op.
+     */
+    public void join(String group) {
+        if (!groups.add(group)) {
+            return;
+        }
+
+        String membership = membership(group);
+        long period = Math.max(1, ttl.toMillis() / 3);
+
+        heartbeats.scheduleAtFixedRate(() -> {
+            synchronized (membershipLock) {
+                if (closed) {
+                    return;
+                }
+
+                try {
+                    leaseManager.tryAcquire(membership, nodeId, ttl);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to renew membership {}", membership, e);
+                }
+            }
+        }, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts the live members of {@code group}, never fewer than one. Memberships of nodes that died are purged
+     * along the way.
+     */
+    public long members(String group) {
+        return Math.max(1, leaseManager.countHeld(group + "/"));
+    }
+
+    @PreDestroy
+    public void close() {
+        // Waits out a renewal under way, so none can rejoin after the memberships below are released
+        synchronized (membershipLock) {
+            closed = true;
+        }
+        heartbeats.shutdownNow();
+
+        // Leave right away rather than on expiry, so the remaining members rebalance at once
+        for (String group : groups) {
+            try {
+                leaseManager.release(membership(group), nodeId);
+            } catch (RuntimeException e) {
+                log.warn("Failed to leave {}", group, e);
+            }
+        }
+    }
+
+    private String membership(String group) {
+        return group + "/" + nodeId;
+    }
+}
@@ -0,0 +1,262 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.dto.NotificationDTO;
+import com.github.shafina.squadgoals.event.NotificationCreatedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fans newly created notifications out to the recipient's open SSE connections.
+ *
+ * <p>Publishers only append to a bounded per-connection buffer; a small pool of sender threads drains the buffers
+ * and writes heartbeats, one connection at a time each, so a slow client never holds up the request that created
+ * the notification nor the other connections. A connection whose buffer overflows, or whose write has been stuck
+ * for longer than {@code write-timeout}, is closed rather than silently losing notifications: the client
+ * reconnects and reloads its list.
+ *
+ * <p>Completing an emitter waits for its lock, which a stuck write holds until the container gives up on the
+ * socket. Closing therefore only marks the connection and hands completion to the sender that owns the emitter,
+ * which runs it once its current write, if any, has returned. A stuck write holds up its own connection and
+ * nobody else's.
+ */
+@Component
+public class NotificationBroker {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationBroker.class);
+
+    private final int bufferSize;
+    private final int maxConnectionsPerUser;
+    private final long timeoutMillis;
+    private final long writeTimeoutNanos;
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService sender;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            daemon("notification-stream-scheduler"));
+
+    public NotificationBroker(@Value("${squadgoals.notifications.stream.buffer-size:64}") int bufferSize,
+                              @Value("${squadgoals.notifications.stream.max-connections-per-user:5}") int maxConnectionsPerUser,
+                              @Value("${squadgoals.notifications.stream.timeout:PT30M}") Duration timeout,
+                              @Value("${squadgoals.notifications.stream.heartbeat:PT15S}") Duration heartbeat,
+                              @Value("${squadgoals.notifications.stream.senders:4}") int senders,
+                              @Value("${squadgoals.notifications.stream.write-timeout:PT5S}") Duration writeTimeout) {
+        this.bufferSize = bufferSize;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        this.timeoutMillis = timeout.toMillis();
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+
+        AtomicInteger senderCount = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senders,
+                runnable -> daemon("notification-stream-" + senderCount.incrementAndGet()).newThread(runnable));
+
+        long checkMillis = Math.max(writeTimeout.toMillis() / 2, 1);
+        scheduler.scheduleAtFixedRate(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::closeStalled, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        Subscriber subscriber = new Subscriber(userId, createEmitter(timeoutMillis), new ArrayBlockingQueue<>(bufferSize));
+
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(e -> remove(subscriber));
+
+        subscribers.compute(userId, (id, existing) -> {
+            List<Subscriber> connections = existing != null ? existing : new CopyOnWriteArrayList<>();
+            connections.add(subscriber);
+
+            // Oldest connections give way, e.g. tabs that were closed without the server noticing yet
+            while (connections.size() > maxConnectionsPerUser) {
+                complete(connections.remove(0), null);
+            }
+
+            return connections;
+        });
+
+        return subscriber.emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        publish(event.userId(), event.notification());
+    }
+
+    public void publish(Long userId, NotificationDTO notification) {
+        for (Subscriber subscriber : subscribers.getOrDefault(userId, List.of())) {
+            if (subscriber.buffer.offer(notification)) {
+                scheduleDrain(subscriber);
+            } else {
+                log.debug("Notification stream buffer for user {} overflowed, closing connection", userId);
+                close(subscriber, null);
+            }
+        }
+    }
+
+    int connectionCount(Long userId) {
+        return subscribers.getOrDefault(userId, List.of()).size();
+    }
+
+    SseEmitter createEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    void heartbeat() {
+        subscribers.values().forEach(connections -> connections.forEach(subscriber -> {
+            subscriber.heartbeatDue.set(true);
+            scheduleDrain(subscriber);
+        }));
+    }
+
+    void closeStalled() {
+        long now = System.nanoTime();
+
+        subscribers.values().forEach(connections -> connections.forEach(subscriber -> {
+            long sendingSince = subscriber.sendingSince.get();
+
+            if (sendingSince != 0 && now - sendingSince > writeTimeoutNanos) {
+                log.debug("Notification stream write for user {} timed out, closing connection", subscriber.userId);
+                close(subscriber, new SocketTimeoutException("Notification stream write timed out"));
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+        subscribers.values().forEach(connections -> connections.forEach(subscriber -> complete(subscriber, null)));
+        subscribers.clear();
+        // Lets the queued completions run; the container closes whatever a stuck write still holds
+        sender.shutdown();
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            sendPending(subscriber);
+            finishIfClosed(subscriber);
+        } finally {
+            subscriber.draining.set(false);
+        }
+
+        // A publisher may have appended, or a connection been closed, after the last check but before draining
+        // was released
+        boolean pending = subscriber.completion.get() != null
+                ? !subscriber.completed.get()
+                : !subscriber.buffer.isEmpty() || subscriber.heartbeatDue.get();
+
+        if (pending) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private void sendPending(Subscriber subscriber) {
+        if (subscriber.heartbeatDue.getAndSet(false)
+                && !send(subscriber, SseEmitter.event().comment("heartbeat"))) {
+            return;
+        }
+
+        NotificationDTO notification;
+        while ((notification = subscriber.buffer.poll()) != null) {
+            if (!send(subscriber, SseEmitter.event()
+                    .name("notification")
+                    .id(String.valueOf(notification.id()))
+                    .data(notification, MediaType.APPLICATION_JSON))) {
+                return;
+            }
+        }
+    }
+
+    private void finishIfClosed(Subscriber subscriber) {
+        Runnable completion = subscriber.completion.get();
+
+        if (completion != null && subscriber.completed.compareAndSet(false, true)) {
+            try {
+                completion.run();
+            } catch (RuntimeException e) {
+                log.debug("Failed to complete notification stream for user {}", subscriber.userId, e);
+            }
+        }
+    }
+
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.completion.get() != null) {
+            return false;
+        }
+
+        subscriber.sendingSince.set(System.nanoTime());
+        try {
+            subscriber.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Notification stream for user {} is gone, dropping connection", subscriber.userId, e);
+            close(subscriber, e);
+            return false;
+        } finally {
+            subscriber.sendingSince.set(0);
+        }
+    }
+
+    private void close(Subscriber subscriber, Throwable error) {
+        remove(subscriber);
+        complete(subscriber, error);
+    }
+
+    private void complete(Subscriber subscriber, Throwable error) {
+        Runnable completion = error != null
+                ? () -> subscriber.emitter.completeWithError(error)
+                : subscriber.emitter::complete;
+
+        if (subscriber.completion.compareAndSet(null, completion)) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (id, connections) -> {
+            connections.remove(subscriber);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Subscriber(Long userId, SseEmitter emitter, BlockingQueue<NotificationDTO> buffer,
+                              AtomicBoolean draining, AtomicBoolean heartbeatDue, AtomicLong sendingSince,
+                              AtomicReference<Runnable> completion, AtomicBoolean completed) {
+        Subscriber(Long userId, SseEmitter emitter, BlockingQueue<NotificationDTO> buffer) {
+            this(userId, emitter, buffer, new AtomicBoolean(), new AtomicBoolean(), new AtomicLong(),
+                    new AtomicReference<>(), new AtomicBoolean());
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.dto.NotificationChanges;
+import com.github.shafina.squadgoals.dto.NotificationDTO;
+import com.github.shafina.squadgoals.event.NotificationCreatedEvent;
+import com.github.shafina.squadgoals.repository.GoalBroadcastRepository;
+import com.github.shafina.squadgoals.repository.NotificationReadStateRepository;
+import com.github.shafina.squadgoals.repository.NotificationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Answers long-polls for inbox changes. A poll with nothing new parks as a {@link DeferredResult}, holding no
+ * servlet thread, until the user gets a notification or their read state changes, or until its wait runs out.
+ * Read state the client already holds is compared up front, so a change made between two polls, say another tab
+ * marking all as read, is answered right away rather than with the next signal.
+ *
+ * <p>The delta is keyed on id: notifications and broadcasts share one sequence, so ids rise in the order they are
+ * handed out. They do not rise in the order rows commit, as a transaction can take an id and commit after a later one
+ * has. Each answer therefore re-reads the last {@code lookback-ids} ids below {@code sinceId}, and the client drops
+ * rows it already holds. Such re-read rows never answer a poll by themselves; a late unread row still does, as it
+ * moves the unread count the client passed.
+ *
+ * <p>A woken poll runs its change query on a small pool of {@code responders} threads, so whoever signalled,
+ * typically the notification writer, only pays for a map lookup, and one slow query does not hold up the others.
+ */
+@Component
+public class NotificationChangeFeed {
+
+    static final int MAX_CHANGES = 50;
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationChangeFeed.class);
+
+    private final NotificationRepository notificationRepository;
+    private final GoalBroadcastRepository broadcastRepository;
+    private final NotificationReadStateRepository readStateRepository;
+    private final BadgeCounters badgeCounters;
+    private final Duration maxWait;
+    private final int maxWaitersPerUser;
+    private final long lookbackIds;
+    private final Map<Long, List<Waiter>> waiters = new ConcurrentHashMap<>();
+    private final ExecutorService responder;
+
+    public NotificationChangeFeed(NotificationRepository notificationRepository,
+                                  GoalBroadcastRepository broadcastRepository,
+                                  NotificationReadStateRepository readStateRepository, BadgeCounters badgeCounters,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${squadgoals.notifications.changes.max-wait:PT30S}") Duration maxWait,
+                                  @Value("${squadgoals.notifications.changes.max-waiters-per-user:5}") int maxWaitersPerUser,
+                                  @Value("${squadgoals.notifications.changes.lookback-ids:1000}") long lookbackIds,
+                                  @Value("${squadgoals.notifications.changes.responders:4}") int responders) {
+        this.notificationRepository = notificationRepository;
+        this.broadcastRepository = broadcastRepository;
+        this.readStateRepository = readStateRepository;
+        this.badgeCounters = badgeCounters;
+        this.maxWait = maxWait;
+        this.maxWaitersPerUser = maxWaitersPerUser;
+        this.lookbackIds = lookbackIds;
+
+        AtomicInteger responderCount = new AtomicInteger();
+        this.responder = Executors.newFixedThreadPool(responders, runnable -> {
+            Thread thread = new Thread(runnable, "notification-changes-" + responderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("squadgoals.notifications.changes.waiters", waiters,
+                        map -> map.values().stream().mapToInt(List::size).sum())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the changes after {@code sinceId} right away if there are any, or if the read watermark or unread
+     * count differ from the {@code knownReadUpToId} and {@code knownUnread} the client passed, and otherwise once
+     * the user is signalled. A poll that waits {@code wait} (capped at {@code max-wait}) without a signal answers 204.
+     */
+    public DeferredResult<ResponseEntity<NotificationChanges>> poll(Long userId, long sinceId, Long knownReadUpToId,
+                                                                    Long knownUnread, Duration wait) {
+        Duration timeout = wait.compareTo(maxWait) > 0 ? maxWait : wait;
+
+        if (timeout.isZero()) {
+            DeferredResult<ResponseEntity<NotificationChanges>> result = new DeferredResult<>();
+            result.setResult(ResponseEntity.ok(changes(userId, sinceId)));
+            return result;
+        }
+
+        Waiter waiter = new Waiter(userId, sinceId,
+                new DeferredResult<>(timeout.toMillis(), ResponseEntity.noContent().build()));
+        waiter.result.onTimeout(() -> remove(waiter));
+        waiter.result.onError(error -> remove(waiter));
+        park(waiter);
+
+        // Parked before looking, so a signal in between wakes the poll instead of being missed
+        NotificationChanges changes = changes(userId, sinceId);
+
+        if (changes.notifications().stream().anyMatch(notification -> notification.id() > sinceId)
+                || knownReadUpToId != null && knownReadUpToId != changes.readUpToId()
+                || knownUnread != null && knownUnread != changes.unread()) {
+            remove(waiter);
+            waiter.result.setResult(ResponseEntity.ok(changes));
+        }
+
+        return waiter.result;
+    }
+
+    /**
+     * Wakes the user's parked polls once the current transaction commits, or right away outside one.
+     */
+    public void signal(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wake(userId);
+                }
+            });
+        } else {
+            wake(userId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        wake(event.userId());
+    }
+
+    NotificationChanges changes(Long userId, long sinceId) {
+        long readUpToId = readStateRepository.findReadUpToId(userId).orElse(0L);
+        long fromId = Math.max(sinceId - lookbackIds, 0);
+        Limit limit = Limit.of(MAX_CHANGES + 1);
+
+        List<NotificationDTO> changed = Stream.concat(
+                        notificationRepository.findInboxAfter(userId, readUpToId, fromId, limit).stream(),
+                        broadcastRepository.findInboxAfter(userId, readUpToId, fromId, limit).stream())
+                .sorted(NotificationDTO.NEWEST_FIRST)
+                .toList();
+
+        boolean truncated = changed.size() > MAX_CHANGES;
+
+        return new NotificationChanges(truncated ? changed.subList(0, MAX_CHANGES) : changed, truncated, readUpToId,
+                badgeCounters.get(userId).unreadNotifications());
+    }
+
+    int waiterCount(Long userId) {
+        return waiters.getOrDefault(userId, List.of()).size();
+    }
+
+    @PreDestroy
+    public void close() {
+        responder.shutdownNow();
+        waiters.values().forEach(parked -> parked.forEach(waiter ->
+                waiter.result.setResult(ResponseEntity.noContent().build())));
+        waiters.clear();
+    }
+
+    private void park(Waiter waiter) {
+        List<Waiter> evicted = new ArrayList<>();
+
+        waiters.compute(waiter.userId, (id, existing) -> {
+            List<Waiter> parked = existing != null ? existing : new CopyOnWriteArrayList<>();
+            parked.add(waiter);
+
+            // Oldest polls give way, e.g. from tabs that were closed without the server noticing yet
+            while (parked.size() > maxWaitersPerUser) {
+                evicted.add(parked.remove(0));
+            }
+
+            return parked;
+        });
+
+        evicted.forEach(old -> old.result.setResult(ResponseEntity.noContent().build()));
+    }
+
+    private void remove(Waiter waiter) {
+        waiters.computeIfPresent(waiter.userId, (id, parked) -> {
+            parked.remove(waiter);
+            return parked.isEmpty() ? null : parked;
+        });
+    }
+
+    private void wake(Long userId) {
+        List<Waiter> parked = waiters.remove(userId);
+
+        if (parked == null) {
+            return;
+        }
+
+        for (Waiter waiter : parked) {
+            try {
+                responder.execute(() -> respond(waiter));
+            } catch (RejectedExecutionException e) {
+                waiter.result.setResult(ResponseEntity.noContent().build());
+            }
+        }
+    }
+
+    private void respond(Waiter waiter) {
+        try {
+            waiter.result.setResult(ResponseEntity.ok(changes(waiter.userId, waiter.sinceId)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to answer notification poll for user {}", waiter.userId, e);
+            waiter.result.setErrorResult(e);
+        }
+    }
+
+    private record Waiter(Long userId, long sinceId, DeferredResult<ResponseEntity<NotificationChanges>> result) {
+    }
+}
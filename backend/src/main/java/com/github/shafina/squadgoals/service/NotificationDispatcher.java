@@ -0,0 +1,263 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.dto.NotificationDTO;
+import com.github.shafina.squadgoals.event.NotificationCreatedEvent;
+import com.github.shafina.squadgoals.model.Notification;
+import com.github.shafina.squadgoals.repository.GoalRepository;
+import com.github.shafina.squadgoals.repository.NotificationRepository;
+import com.github.shafina.squadgoals.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes notifications behind the requests that cause them.
+ *
+ * <p>Drafts go into a bounded queue once the caller's transaction commits. A single writer thread takes them off in
+ * batches, closing a batch when it is full or {@code flush-interval} after its first draft, and inserts each batch
+ * in its own transaction after collapsing duplicates. When the queue is full, callers wait up to
+ * {@code enqueue-timeout} for the whole call and then write the drafts that did not fit themselves, so a backlog
+ * slows producers down rather than losing notifications. Whatever is still queued at shutdown is written before the context closes.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    // Upper bound on a single wait, so close() is noticed without sitting out a whole flush interval
+    private static final long POLL_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final NotificationRepository notificationRepository;
+    private final UserRepository userRepository;
+    private final GoalRepository goalRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<NotificationDraft> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long enqueueTimeoutNanos;
+    private final Duration shutdownTimeout;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final DistributionSummary batchSizes;
+    private final Timer flushLatency;
+    private final Counter coalesced;
+    private final Counter callerWrites;
+    private final Counter failed;
+
+    public NotificationDispatcher(NotificationRepository notificationRepository, UserRepository userRepository,
+                                  GoalRepository goalRepository, ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                  @Value("${squadgoals.notifications.dispatch.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${squadgoals.notifications.dispatch.batch-size:50}") int batchSize,
+                                  @Value("${squadgoals.notifications.dispatch.flush-interval:PT0.2S}") Duration flushInterval,
+                                  @Value("${squadgoals.notifications.dispatch.enqueue-timeout:PT1S}") Duration enqueueTimeout,
+                                  @Value("${squadgoals.notifications.dispatch.shutdown-timeout:PT30S}") Duration shutdownTimeout) {
+        this.notificationRepository = notificationRepository;
+        this.userRepository = userRepository;
+        this.goalRepository = goalRepository;
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.enqueueTimeoutNanos = enqueueTimeout.toNanos();
+        this.shutdownTimeout = shutdownTimeout;
+
+        // Flushes also run after the caller's commit, where REQUIRED would join the finished transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Gauge.builder("squadgoals.notifications.dispatch.queue.depth", queue, BlockingQueue::size)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("squadgoals.notifications.dispatch.batch.size")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("squadgoals.notifications.dispatch.flush")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("squadgoals.notifications.dispatch.coalesced")
+                .register(meterRegistry);
+        this.callerWrites = Counter.builder("squadgoals.notifications.dispatch.caller.writes")
+                .register(meterRegistry);
+        this.failed = Counter.builder("squadgoals.notifications.dispatch.failed")
+                .register(meterRegistry);
+
+        this.writer = new Thread(this::run, "notification-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues {@code drafts} for writing once the current transaction commits, or right away outside one. Drafts of a
+     * transaction that rolls back are dropped.
+     */
+    public void dispatch(Collection<NotificationDraft> drafts) {
+        if (drafts.isEmpty()) {
+            return;
+        }
+
+        List<NotificationDraft> pending = List.copyOf(drafts);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(pending);
+                }
+            });
+        } else {
+            enqueue(pending);
+        }
+    }
+
+    int queueDepth() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(shutdownTimeout.toMillis());
+
+        if (!queue.isEmpty()) {
+            log.warn("Notification writer did not drain in {}, {} notifications were not written", shutdownTimeout,
+                    queue.size());
+        }
+    }
+
+    private void enqueue(List<NotificationDraft> drafts) {
+        List<NotificationDraft> overflow = new ArrayList<>();
+        long deadline = System.nanoTime() + enqueueTimeoutNanos;
+
+        for (NotificationDraft draft : drafts) {
+            // One wait per call, not per draft: once the queue has stayed full that long, the rest go to overflow
+            if (!overflow.isEmpty() || !offer(draft, deadline - System.nanoTime())) {
+                overflow.add(draft);
+            }
+        }
+
+        if (!overflow.isEmpty()) {
+            callerWrites.increment(overflow.size());
+            flush(overflow);
+        }
+    }
+
+    private boolean offer(NotificationDraft draft, long timeoutNanos) {
+        if (!running) {
+            return false;
+        }
+
+        try {
+            return queue.offer(draft, Math.max(timeoutNanos, 0), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void run() {
+        List<NotificationDraft> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                NotificationDraft first = queue.poll(Math.min(flushIntervalNanos, POLL_SLICE_NANOS),
+                        TimeUnit.NANOSECONDS);
+
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                fill(batch, System.nanoTime() + flushIntervalNanos);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void fill(List<NotificationDraft> batch, long deadline) throws InterruptedException {
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+
+            long remaining = deadline - System.nanoTime();
+
+            // Once shutting down, write what is there instead of waiting for more
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+
+            NotificationDraft next = queue.poll(Math.min(remaining, POLL_SLICE_NANOS), TimeUnit.NANOSECONDS);
+
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void flush(List<NotificationDraft> batch) {
+        Map<NotificationDraft.Key, NotificationDraft> unique = new LinkedHashMap<>();
+
+        for (NotificationDraft draft : batch) {
+            unique.putIfAbsent(draft.key(), draft);
+        }
+
+        coalesced.increment(batch.size() - unique.size());
+        batchSizes.record(unique.size());
+
+        try {
+            flushLatency.record(() -> transactionTemplate.executeWithoutResult(status -> write(unique.values())));
+        } catch (RuntimeException e) {
+            failed.increment(unique.size());
+            log.error("Failed to write {} notifications", unique.size(), e);
+        }
+    }
+
+    private void write(Collection<NotificationDraft> drafts) {
+        List<Notification> notifications = new ArrayList<>(drafts.size());
+
+        for (NotificationDraft draft : drafts) {
+            Notification notification = new Notification();
+            notification.setUser(userRepository.getReferenceById(draft.userId()));
+            notification.setSender(draft.senderId() != null ? userRepository.getReferenceById(draft.senderId()) : null);
+            notification.setGoal(goalRepository.getReferenceById(draft.goalId()));
+            notification.setSenderName(draft.senderName());
+            notification.setGoalTitle(draft.goalTitle());
+            notification.setNotificationType(draft.type());
+            notification.setCreatedAt(draft.createdAt());
+            notifications.add(notification);
+        }
+
+        notificationRepository.saveAll(notifications);
+
+        for (Notification notification : notifications) {
+            eventPublisher.publishEvent(new NotificationCreatedEvent(notification.getUser().getId(),
+                    NotificationDTO.from(notification)));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.enums.NotificationType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A notification waiting in {@link NotificationDispatcher} to be written. {@code senderId} and {@code senderName}
+ * are null for system notifications; the names are written onto the notification as they are now.
+ */
+public record NotificationDraft(Long userId, Long senderId, String senderName, Long goalId, String goalTitle,
+                                NotificationType type, LocalDateTime createdAt) {
+
+    public NotificationDraft(Long userId, Long senderId, String senderName, Long goalId, String goalTitle,
+                             NotificationType type) {
+        this(userId, senderId, senderName, goalId, goalTitle, type, LocalDateTime.now());
+    }
+
+    /**
+     * Drafts with equal keys are duplicates: a user gets at most one notification of a type per goal and day.
+     */
+    Key key() {
+        return new Key(userId, goalId, type, createdAt.toLocalDate());
+    }
+
+    record Key(Long userId, Long goalId, NotificationType type, LocalDate day) {
+    }
+}
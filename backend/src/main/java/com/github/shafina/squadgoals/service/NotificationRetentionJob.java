@@ -0,0 +1,175 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.repository.GoalBroadcastRepository;
+import com.github.shafina.squadgoals.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Deletes notifications past their retention: read ones after {@code read-after}, unread ones after
+ * {@code unread-after}. Goal broadcasts carry no read flag of their own and are kept for {@code unread-after}; their
+ * per-user read markers go with them.
+ *
+ * <p>A run walks the id range up to the newest expired row in windows of {@code batch-size} ids. Each window is a
+ * single short delete transaction, followed by a {@code pause}, so the job never holds many row locks or a long
+ * transaction against the inbox queries. Badge counters pick up deleted unread rows at their next reconciliation.
+ *
+ * <p>Every {@code interval} each node tries the job, and only the one holding its lease runs it. The lease is
+ * checked between windows, so a run whose lease was taken over stops instead of deleting alongside the new holder.
+ */
+@Component
+public class NotificationRetentionJob {
+
+    static final String JOB_NAME = "notification-retention";
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationRetentionJob.class);
+
+    private final NotificationRepository notificationRepository;
+    private final GoalBroadcastRepository broadcastRepository;
+    private final LeaseRunner leaseRunner;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Duration readAfter;
+    private final Duration unreadAfter;
+    private final int batchSize;
+    private final Duration pause;
+    private final Counter deleted;
+    private final Timer runTime;
+
+    @Autowired
+    public NotificationRetentionJob(NotificationRepository notificationRepository,
+                                    GoalBroadcastRepository broadcastRepository, LeaseRunner leaseRunner,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${squadgoals.notifications.retention.enabled:true}") boolean enabled,
+                                    @Value("${squadgoals.notifications.retention.read-after:P30D}") Duration readAfter,
+                                    @Value("${squadgoals.notifications.retention.unread-after:P90D}") Duration unreadAfter,
+                                    @Value("${squadgoals.notifications.retention.batch-size:1000}") int batchSize,
+                                    @Value("${squadgoals.notifications.retention.pause:PT0.1S}") Duration pause) {
+        this(notificationRepository, broadcastRepository, leaseRunner, meterRegistry, Clock.systemDefaultZone(),
+                enabled, readAfter, unreadAfter, batchSize, pause);
+    }
+
+    NotificationRetentionJob(NotificationRepository notificationRepository, GoalBroadcastRepository broadcastRepository,
+                             LeaseRunner leaseRunner, MeterRegistry meterRegistry, Clock clock, boolean enabled,
+                             Duration readAfter, Duration unreadAfter, int batchSize, Duration pause) {
+        this.notificationRepository = notificationRepository;
+        this.broadcastRepository = broadcastRepository;
+        this.leaseRunner = leaseRunner;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.readAfter = readAfter;
+        this.unreadAfter = unreadAfter;
+        this.batchSize = batchSize;
+        this.pause = pause;
+
+        this.deleted = Counter.builder("squadgoals.notifications.retention.deleted")
+                .register(meterRegistry);
+        this.runTime = Timer.builder("squadgoals.notifications.retention.run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${squadgoals.notifications.retention.interval:PT6H}",
+            fixedDelayString = "${squadgoals.notifications.retention.interval:PT6H}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            if (!leaseRunner.runExclusively(JOB_NAME, this::timedPurge)) {
+                log.debug("Notification retention is running on another node");
+            }
+        } catch (RuntimeException e) {
+            log.warn("Notification retention run failed", e);
+        }
+    }
+
+    /**
+     * Purges window by window for as long as {@code leaseHeld} stays true.
+     *
+     * @return the number of notifications and broadcasts deleted
+     */
+    public long purge(BooleanSupplier leaseHeld) throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime readCutoff = now.minus(readAfter);
+        LocalDateTime unreadCutoff = now.minus(unreadAfter);
+        LocalDateTime newestCutoff = readCutoff.isAfter(unreadCutoff) ? readCutoff : unreadCutoff;
+
+        long notifications = purgeWindows(notificationRepository.findMinId(),
+                notificationRepository.findMaxIdCreatedBefore(newestCutoff),
+                (fromId, toId) -> notificationRepository.deleteExpired(fromId, toId, readCutoff, unreadCutoff),
+                leaseHeld);
+
+        long broadcasts = purgeWindows(broadcastRepository.findMinId(),
+                broadcastRepository.findMaxIdCreatedBefore(unreadCutoff),
+                (fromId, toId) -> {
+                    int removed = broadcastRepository.deleteExpired(fromId, toId, unreadCutoff);
+                    broadcastRepository.deleteOrphanedReads(fromId, toId);
+                    return removed;
+                },
+                leaseHeld);
+
+        return notifications + broadcasts;
+    }
+
+    private long purgeWindows(Optional<Long> firstId, Optional<Long> lastId, WindowDelete delete,
+                              BooleanSupplier leaseHeld) throws InterruptedException {
+        if (lastId.isEmpty() || firstId.isEmpty()) {
+            return 0;
+        }
+
+        long total = 0;
+
+        for (long fromId = firstId.get(); fromId <= lastId.get(); fromId += batchSize) {
+            if (!leaseHeld.getAsBoolean()) {
+                log.warn("Lost the notification retention lease, stopping at id {}", fromId);
+                break;
+            }
+
+
+            long toId = Math.min(fromId + batchSize, lastId.get() + 1);
+            int removed = delete.apply(fromId, toId);
+
+            total += removed;
+            deleted.increment(removed);
+
+            if (removed > 0 && !pause.isZero()) {
+                Thread.sleep(pause.toMillis());
+            }
+        }
+
+        return total;
+    }
+
+    private void timedPurge(BooleanSupplier leaseHeld) {
+        long start = System.nanoTime();
+
+        try {
+            long removed = purge(leaseHeld);
+            log.info("Notification retention removed {} rows", removed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            runTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @FunctionalInterface
+    private interface WindowDelete {
+        int apply(long fromId, long toId);
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.model.BackfillState;
+import com.github.shafina.squadgoals.repository.BackfillStateRepository;
+import com.github.shafina.squadgoals.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Copies the sender name and goal title onto notifications written before those snapshots existed. Runs once, on
+ * whichever node holds its lease, walking the id range in windows of {@code batch-size} ids with a {@code pause}
+ * after each, like the retention job. Progress is recorded per window, so a restart carries on where the last run
+ * stopped; once the range is done the backfill is marked complete and never scans again. Rows without a sender
+ * or goal are simply left as they are.
+ */
+@Component
+public class NotificationSnapshotBackfill {
+
+    static final String JOB_NAME = "notification-snapshot-backfill";
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationSnapshotBackfill.class);
+
+    private final NotificationRepository notificationRepository;
+    private final BackfillStateRepository stateRepository;
+    private final LeaseRunner leaseRunner;
+    private final int batchSize;
+    private final Duration pause;
+    private volatile boolean completed;
+
+    public NotificationSnapshotBackfill(NotificationRepository notificationRepository,
+                                        BackfillStateRepository stateRepository, LeaseRunner leaseRunner,
+                                        @Value("${squadgoals.notifications.snapshot-backfill.batch-size:1000}") int batchSize,
+                                        @Value("${squadgoals.notifications.snapshot-backfill.pause:PT0.1S}") Duration pause) {
+        this.notificationRepository = notificationRepository;
+        this.stateRepository = stateRepository;
+        this.leaseRunner = leaseRunner;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    /**
+     * Tries the backfill until it has completed, after which each tick is a no-op.
+     */
+    @Scheduled(initialDelayString = "${squadgoals.notifications.snapshot-backfill.delay:PT1M}",
+            fixedDelayString = "${squadgoals.notifications.snapshot-backfill.interval:PT1H}")
+    public void run() {
+        if (completed) {
+            return;
+        }
+
+        try {
+            leaseRunner.runExclusively(JOB_NAME, leaseHeld -> {
+                try {
+                    backfill(leaseHeld);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Notification snapshot backfill failed", e);
+        }
+    }
+
+    /**
+     * Backfills window by window for as long as {@code leaseHeld} stays true.
+     *
+     * @return true once the whole range has been backfilled
+     */
+    boolean backfill(BooleanSupplier leaseHeld) throws InterruptedException {
+        BackfillState state = stateRepository.findById(JOB_NAME).orElseGet(() -> {
+            BackfillState created = new BackfillState(JOB_NAME);
+            stateRepository.save(created);
+            return created;
+        });
+
+        if (state.isCompleted()) {
+            completed = true;
+            return true;
+        }
+
+        // Notifications written from here on carry their snapshots, so the range ends at today's newest row
+        long lastId = notificationRepository.findMaxId().orElse(0L);
+        long fromId = Math.max(state.getLastId() + 1, notificationRepository.findMinId().orElse(0L));
+        long updated = 0;
+
+        while (fromId <= lastId) {
+            if (!leaseHeld.getAsBoolean()) {
+                log.warn("Lost the notification snapshot backfill lease, stopping at id {}", fromId);
+                return false;
+            }
+
+            long toId = Math.min(fromId + batchSize, lastId + 1);
+            int windowUpdated = notificationRepository.backfillGoalTitles(fromId, toId)
+                    + notificationRepository.backfillSenderNames(fromId, toId);
+
+            stateRepository.recordProgress(JOB_NAME, toId - 1);
+            updated += windowUpdated;
+            fromId = toId;
+
+            if (windowUpdated > 0 && !pause.isZero()) {
+                Thread.sleep(pause.toMillis());
+            }
+        }
+
+        stateRepository.recordCompletion(JOB_NAME, LocalDateTime.now());
+        completed = true;
+        log.info("Notification snapshot backfill completed, {} snapshots filled in", updated);
+        return true;
+    }
+}
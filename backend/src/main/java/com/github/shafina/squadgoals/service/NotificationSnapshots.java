@@ -0,0 +1,28 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.event.GoalTitleChangedEvent;
+import com.github.shafina.squadgoals.repository.NotificationRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps the goal title copied onto notifications in step with the goal.
+ */
+@Component
+public class NotificationSnapshots {
+
+    private final NotificationRepository notificationRepository;
+
+    public NotificationSnapshots(NotificationRepository notificationRepository) {
+        this.notificationRepository = notificationRepository;
+    }
+
+    /**
+     * Runs inside the transaction that renamed the goal, so the inbox never shows a title the goal no longer has.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onGoalTitleChanged(GoalTitleChangedEvent event) {
+        notificationRepository.refreshGoalTitle(event.goalId(), event.title());
+    }
+}
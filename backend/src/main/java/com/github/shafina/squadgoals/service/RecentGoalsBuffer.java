@@ -0,0 +1,187 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.dto.GoalDTO;
+import com.github.shafina.squadgoals.event.GoalCreatedEvent;
+import com.github.shafina.squadgoals.event.GoalSquadChangedEvent;
+import com.github.shafina.squadgoals.repository.GoalRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free ring of the newest public goals, so the landing feed can be served without a query.
+ *
+ * <p>Writers claim a sequence number and publish into slot {@code seq % capacity}; every slot remembers
+ * its sequence, so readers can tell a live entry from one that is still being written or has been
+ * overwritten. The ring always covers a contiguous stretch of the newest goals. Any prefix of its live
+ * entries is therefore exact, and {@link #newest(int)} declines when it cannot fill the request.
+ *
+ * <p>Entries are kept current by the events of this node: new goals are appended and goals whose squad changed
+ * are mapped again. Goals created or changed on other nodes only arrive with the reload every {@code refresh}.
+ */
+@Component
+public class RecentGoalsBuffer {
+
+    private static final Comparator<GoalDTO> NEWEST_FIRST = Comparator
+            .comparing(GoalDTO::createdAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(GoalDTO::id, Comparator.reverseOrder());
+
+    private final GoalRepository goalRepository;
+    private final TransactionOperations transactionOperations;
+    private final int capacity;
+    private final AtomicReference<Ring> ring;
+
+    public RecentGoalsBuffer(GoalRepository goalRepository, TransactionOperations transactionOperations,
+                             @Value("${squadgoals.goals.recent-buffer.capacity:100}") int capacity) {
+        this.goalRepository = goalRepository;
+        this.transactionOperations = transactionOperations;
+        this.capacity = capacity;
+        this.ring = new AtomicReference<>(new Ring(capacity));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${squadgoals.goals.recent-buffer.refresh:PT1M}",
+            fixedDelayString = "${squadgoals.goals.recent-buffer.refresh:PT1M}")
+    public void reload() {
+        List<GoalDTO> newest = transactionOperations.execute(status ->
+                goalRepository.toGoalDTOs(goalRepository.findPublicFeed(Limit.of(capacity))));
+
+        Ring loaded = new Ring(capacity);
+
+        for (int i = newest.size() - 1; i >= 0; i--) {
+            loaded.append(newest.get(i));
+        }
+
+        ring.set(loaded);
+    }
+
+    @TransactionalEventListener
+    public void onGoalCreated(GoalCreatedEvent event) {
+        if (event.goal().isPublic()) {
+            ring.get().append(event.goal());
+        }
+    }
+
+    /**
+     * Maps a goal held in the ring again, so the feed shows its new squad. Goals outside the ring cost nothing.
+     */
+    @TransactionalEventListener
+    public void onGoalSquadChanged(GoalSquadChangedEvent event) {
+        Ring current = ring.get();
+
+        if (!current.holds(event.goalId())) {
+            return;
+        }
+
+        Optional<GoalDTO> fresh = transactionOperations.execute(status -> goalRepository.findById(event.goalId())
+                .map(goal -> goalRepository.toGoalDTOs(List.of(goal)).get(0)));
+
+        if (fresh.isEmpty() || !fresh.get().isPublic()) {
+            evict(event.goalId());
+            return;
+        }
+
+        for (int i = 0; i < capacity; i++) {
+            Slot slot = current.slots.get(i);
+
+            if (slot != null && slot.goal() != null && event.goalId().equals(slot.goal().id())) {
+                current.slots.compareAndSet(i, slot, new Slot(slot.seq(), fresh.get()));
+            }
+        }
+    }
+
+    /**
+     * Returns the newest {@code limit} public goals, or empty when the ring cannot answer exactly and the
+     * caller should query the database.
+     */
+    public Optional<List<GoalDTO>> newest(int limit) {
+        Ring current = ring.get();
+        long end = current.head.get();
+        long start = Math.max(0, end - capacity);
+
+        List<GoalDTO> live = new ArrayList<>();
+
+        for (long seq = end - 1; seq >= start; seq--) {
+            Slot slot = current.slots.get(current.index(seq));
+
+            if (slot == null || slot.seq() < seq) {
+                continue;
+            }
+
+            if (slot.seq() > seq) {
+                break;
+            }
+
+            if (slot.goal() != null) {
+                live.add(slot.goal());
+            }
+        }
+
+        live.sort(NEWEST_FIRST);
+
+        if (live.size() >= limit) {
+            return Optional.of(live.subList(0, limit));
+        }
+
+        boolean holdsEveryPublicGoal = end < capacity;
+        return holdsEveryPublicGoal ? Optional.of(live) : Optional.empty();
+    }
+
+    public void evict(Long goalId) {
+        Ring current = ring.get();
+
+        for (int i = 0; i < capacity; i++) {
+            Slot slot = current.slots.get(i);
+
+            if (slot != null && slot.goal() != null && goalId.equals(slot.goal().id())) {
+                current.slots.compareAndSet(i, slot, new Slot(slot.seq(), null));
+            }
+        }
+    }
+
+    private record Slot(long seq, GoalDTO goal) {
+    }
+
+    private static final class Ring {
+        private final AtomicReferenceArray<Slot> slots;
+        private final AtomicLong head = new AtomicLong();
+
+        private Ring(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        private void append(GoalDTO goal) {
+            long seq = head.getAndIncrement();
+            slots.set(index(seq), new Slot(seq, goal));
+        }
+
+        private boolean holds(Long goalId) {
+            for (int i = 0; i < slots.length(); i++) {
+                Slot slot = slots.get(i);
+
+                if (slot != null && slot.goal() != null && goalId.equals(slot.goal().id())) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private int index(long seq) {
+            return (int) (seq % slots.length());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.shafina.squadgoals.service;
+
+/**
+ * Outcome of a reminder run, or of one chunk of it.
+ *
+ * @param inserted due goals that got today's reminder
+ * @param skipped  due goals that already had it, e.g. from an earlier run the same day
+ */
+public record ReminderRun(int inserted, int skipped) {
+}
@@ -1,69 +1,431 @@
 package com.github.shafina.squadgoals.service;
 
-import com.github.shafina.squadgoals.enums.NotificationType;
-import com.github.shafina.squadgoals.model.Goal;
-import com.github.shafina.squadgoals.model.Notification;
-import com.github.shafina.squadgoals.model.User;
+import com.github.shafina.squadgoals.dto.ReminderRecipient;
+import com.github.shafina.squadgoals.event.NotificationCreatedEvent;
+import com.github.shafina.squadgoals.model.ReminderJobState;
+import com.github.shafina.squadgoals.repository.GoalBroadcastRepository;
 import com.github.shafina.squadgoals.repository.GoalRepository;
-import com.github.shafina.squadgoals.repository.NotificationRepository;
+import com.github.shafina.squadgoals.repository.ReminderJobStateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
 
 @Service
 public class ReminderService {
+    private static final Logger log = LoggerFactory.getLogger(ReminderService.class);
+
+    static final String JOB_NAME = "daily-reminders";
+    static final String NODES = JOB_NAME + "-nodes";
+
     @Autowired
     private GoalRepository goalRepository;
 
     @Autowired
-    private NotificationRepository notificationRepository;
+    private GoalBroadcastRepository goalBroadcastRepository;
+
+    @Autowired
+    private ReminderJobStateRepository jobStateRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LeaseRunner leaseRunner;
+
+    @Value("${squadgoals.reminders.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${squadgoals.reminders.shards:16}")
+    private int shardCount;
+
+    @Value("${squadgoals.reminders.parallelism:1}")
+    private int parallelism;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    // Shards this node is claiming or working on right now
+    private final AtomicInteger heldShards = new AtomicInteger();
 
     // @Autowired
     // private EmailService emailService;
 
-    @Scheduled(cron = "0 0 8 * * *") // every day at 8am
-    public void sendDailyReminders() {
-        List<Goal> dailyGoals = goalRepository.findGoalsDueToday(LocalDateTime.now());
+    /**
+     * Works on today's reminders until every shard is done. Every node ticks through the reminder window and
+     * claims what shards it can; when a node dies, its shard leases expire and the next tick elsewhere picks them up
+     * from their recorded progress.
+     */
+    @Scheduled(cron = "${squadgoals.reminders.cron:0 */5 8-23 * * *}") // every 5 minutes from 8am
+    public void runDueWindow() {
+        LocalDate today = LocalDate.now();
+
+        if (isCompleted(today)) {
+            return;
+        }
+
+        leaseRunner.join(NODES);
+        sendDailyReminders();
+
+        List<String> shards = shards().stream().map(Shard::jobName).toList();
+
+        if (jobStateRepository.findCompleted(shards, today).size() == shards.size()) {
+            ReminderJobState window = new ReminderJobState(JOB_NAME, today, 0);
+            window.setCompletedAt(LocalDateTime.now());
+            jobStateRepository.save(window);
+            log.info("All {} reminder shards are done for {}", shards.size(), today);
+        }
+    }
+
+    /**
+     * Posts one broadcast per due goal rather than one notification per squad member; members' inboxes pick it up
+     * at read time.
+     *
+     * <p>Due goals are split into {@code shards} shards by goal id, and nodes claim shards through leases, so each
+     * shard is worked by one node at a time. A node works up to {@code parallelism} shards at once and never more
+     * than its fair share of the live nodes; when nodes join, those over their share hand shards back after the
+     * current chunk. Within a shard, goals are handled in id order, {@code chunk-size} at a time, each chunk in its
+     * own short transaction of a fixed number of set-based statements. The chunk's last goal id is committed with
+     * it, so whichever node claims the shard next carries on after it.
+     *
+     * @return what this node posted; shards held by other nodes are not included
+     */
+    public ReminderRun sendDailyReminders() {
+        // Postgres keeps microseconds, so the marker has to match what is read back
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        LocalDate today = now.toLocalDate();
+
+        Queue<Shard> pending = new ConcurrentLinkedQueue<>(pendingShards(today));
+        int workers = Math.min(workers(), pending.size());
+
+        if (workers == 0) {
+            return new ReminderRun(0, 0);
+        }
+
+        ReminderRun run = workers == 1
+                ? remindClaimable(pending, now, today)
+                : remindInParallel(workers, pending, now, today);
+
+        log.info("Reminder run posted {} reminders, skipped {} goals that already had one", run.inserted(),
+                run.skipped());
+
+        return run;
+    }
+
+    /**
+     * Returns how many shards to work at once. Each one holds a connection while it works, so they are kept to
+     * half the pool to leave the other half to requests.
+     */
+    int workers() {
+        int limit = Math.max(1, connectionPoolSize / 2);
+
+        if (parallelism > limit) {
+            log.warn("Reminder parallelism {} exceeds half the connection pool of {}, using {}", parallelism,
+                    connectionPoolSize, limit);
+        }
+
+        return Math.max(1, Math.min(parallelism, limit));
+    }
+
+    /**
+     * Returns how many shards this node should hold at most: an even split between the live nodes.
+     */
+    long fairShare() {
+        long nodes = leaseRunner.members(NODES);
+        return (shardCount + nodes - 1) / nodes;
+    }
+
+    private List<Shard> shards() {
+        return IntStream.range(0, shardCount).mapToObj(index -> new Shard(index, shardCount)).toList();
+    }
+
+    /**
+     * Returns the shards not yet done today, starting at a node-specific offset so that nodes ticking at the same
+     * moment mostly try different shards first.
+     */
+    private List<Shard> pendingShards(LocalDate today) {
+        List<Shard> shards = shards();
+        Set<String> completed = new HashSet<>(jobStateRepository.findCompleted(
+                shards.stream().map(Shard::jobName).toList(), today));
+        int offset = Math.floorMod(leaseRunner.nodeId().hashCode(), shardCount);
 
-        for (Goal goal : dailyGoals) {
-            Set<User> squad = goal.getSquad();
+        List<Shard> pending = new ArrayList<>(shardCount);
 
-            for (User user : squad) {
-                boolean exists = notificationRepository.existsByUserAndGoalAndNotificationTypeAndCreatedAtBetween(
-                        user,
-                        goal,
-                        NotificationType.SYSTEM,
-                        LocalDateTime.now().toLocalDate().atStartOfDay(),
-                        LocalDateTime.now().toLocalDate().atTime(23, 59, 59)
-                );
+        for (int i = 0; i < shardCount; i++) {
+            Shard shard = shards.get((offset + i) % shardCount);
 
-                if (exists) {
-                    continue;
+            if (!completed.contains(shard.jobName())) {
+                pending.add(shard);
+            }
+        }
+
+        return pending;
+    }
+
+    private boolean isCompleted(LocalDate today) {
+        return jobStateRepository.findById(JOB_NAME).map(state -> state.isCompletedOn(today)).orElse(false);
+    }
+
+    private ReminderRun remindInParallel(int workers, Queue<Shard> pending, LocalDateTime now, LocalDate today) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, task -> {
+            Thread thread = new Thread(task, "reminder-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<ReminderRun>> results = new ArrayList<>(workers);
+
+            for (int i = 0; i < workers; i++) {
+                results.add(pool.submit(() -> remindClaimable(pending, now, today)));
+            }
+
+            int inserted = 0;
+            int skipped = 0;
+            RuntimeException failure = null;
+
+            // Wait for every worker, so a failed one does not leave the others running unobserved
+            for (Future<ReminderRun> result : results) {
+                try {
+                    ReminderRun workerRun = result.get();
+                    inserted += workerRun.inserted();
+                    skipped += workerRun.skipped();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = new IllegalStateException("Reminder worker failed", e.getCause());
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
                 }
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+
+            return new ReminderRun(inserted, skipped);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for reminder workers", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Takes shards off {@code pending} and works each one this node can claim, until none are left or the node
+     * holds its fair share.
+     */
+    private ReminderRun remindClaimable(Queue<Shard> pending, LocalDateTime now, LocalDate today) {
+        int inserted = 0;
+        int skipped = 0;
+
+        while (reserveShard()) {
+            Shard shard = pending.poll();
+
+            if (shard == null) {
+                heldShards.decrementAndGet();
+                break;
+            }
+
+            ReminderRun run = claimAndRemind(shard, now, today);
+            inserted += run.inserted();
+            skipped += run.skipped();
+        }
+
+        return new ReminderRun(inserted, skipped);
+    }
+
+    /**
+     * Takes one of this node's shard slots, unless it already holds its fair share.
+     */
+    private boolean reserveShard() {
+        long fairShare = fairShare();
+        int held;
+
+        do {
+            held = heldShards.get();
+
+            if (held >= fairShare) {
+                return false;
+            }
+        } while (!heldShards.compareAndSet(held, held + 1));
+
+        return true;
+    }
+
+    /**
+     * Gives back a slot if this node holds more than its fair share, which happens once another node joins. Only as
+     * many shards as the node is over hand over, however many of them ask at once.
+     */
+    private boolean handOverShard(AtomicBoolean slotHeld) {
+        long fairShare = fairShare();
+        int held;
+
+        do {
+            held = heldShards.get();
+
+            if (held <= fairShare) {
+                return false;
+            }
+        } while (!heldShards.compareAndSet(held, held - 1));
+
+        slotHeld.set(false);
+        return true;
+    }
+
+    private ReminderRun claimAndRemind(Shard shard, LocalDateTime now, LocalDate today) {
+        AtomicReference<ReminderRun> result = new AtomicReference<>(new ReminderRun(0, 0));
+        AtomicBoolean slotHeld = new AtomicBoolean(true);
+
+        try {
+            leaseRunner.runExclusively(shard.jobName(), leaseHeld -> result.set(remind(shard, now, today,
+                    () -> leaseHeld.getAsBoolean() && !handOverShard(slotHeld))));
+        } finally {
+            if (slotHeld.get()) {
+                heldShards.decrementAndGet();
+            }
+        }
 
-                Notification notif = new Notification();
-                notif.setNotificationType(NotificationType.SYSTEM);
-                notif.setUser(user);
-                notif.setGoal(goal);
+        return result.get();
+    }
+
+    private ReminderRun remind(Shard shard, LocalDateTime now, LocalDate today, BooleanSupplier keepGoing) {
+        Timer timer = Timer.builder("squadgoals.reminders.shard")
+                .tag("shard", String.valueOf(shard.index()))
+                .register(meterRegistry);
+        Counter posted = Counter.builder("squadgoals.reminders.posted")
+                .tag("shard", String.valueOf(shard.index()))
+                .register(meterRegistry);
+
+        ReminderRun run = timer.record(() -> remindInChunks(shard, now, today, keepGoing));
+        posted.increment(run.inserted());
+
+        return run;
+    }
+
+    private ReminderRun remindInChunks(Shard shard, LocalDateTime now, LocalDate today, BooleanSupplier keepGoing) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ReminderJobState state = resume(shard, today);
+
+        if (state.isCompletedOn(today)) {
+            // Finished by another node while this one waited for the lease
+            return new ReminderRun(0, 0);
+        }
+
+        long afterId = state.getLastGoalId();
+        int inserted = 0;
+        int skipped = 0;
+        List<Long> dueIds;
+
+        do {
+            if (!keepGoing.getAsBoolean()) {
+                log.info("Handing {} over after goal {}", shard.jobName(), afterId);
+                return new ReminderRun(inserted, skipped);
+            }
+
+            dueIds = goalRepository.findDueGoalIds(shard.index(), shard.count(), afterId, now, Limit.of(chunkSize));
+
+            if (dueIds.isEmpty()) {
+                break;
+            }
 
-                notificationRepository.save(notif);
+            long fromId = afterId;
+            long upToId = dueIds.get(dueIds.size() - 1);
+            ReminderRun chunk = transactionTemplate.execute(status ->
+                    remindChunk(shard, fromId, upToId, now, today));
 
-                // emailService.send(user.getEmail(), "Goal Reminder", msg);
+            inserted += chunk.inserted();
+            skipped += chunk.skipped();
+            afterId = upToId;
+        } while (dueIds.size() == chunkSize);
+
+        jobStateRepository.recordCompletion(shard.jobName(), today, LocalDateTime.now());
+        log.info("{} is done for {} after goal {}, {} reminders posted by this node", shard.jobName(), today, afterId,
+                inserted);
+
+        return new ReminderRun(inserted, skipped);
+    }
+
+    /**
+     * Returns the shard's progress today: where an earlier claim stopped, or a fresh start for the day's first one.
+     */
+    private ReminderJobState resume(Shard shard, LocalDate today) {
+        ReminderJobState state = jobStateRepository.findById(shard.jobName()).orElse(null);
+
+        if (state != null && state.getRunDate().equals(today)) {
+            return state;
+        }
+
+        ReminderJobState fresh = new ReminderJobState(shard.jobName(), today, 0);
+        jobStateRepository.save(fresh);
+        return fresh;
+    }
+
+    private ReminderRun remindChunk(Shard shard, long afterId, long upToId, LocalDateTime now, LocalDate today) {
+        int inserted = goalBroadcastRepository.insertDueReminders(shard.index(), shard.count(), afterId, upToId, now,
+                today, now);
+
+        if (inserted > 0) {
+            for (ReminderRecipient recipient : goalBroadcastRepository.findReminderRecipients(shard.index(),
+                    shard.count(), afterId, upToId, today, now)) {
+                eventPublisher.publishEvent(new NotificationCreatedEvent(recipient.userId(),
+                        recipient.notification()));
             }
 
-            LocalDateTime nextDueAt = switch (goal.getFrequency()) {
-                case DAILY -> goal.getNextDueAt().plusDays(1);
-                case WEEKLY -> goal.getNextDueAt().plusWeeks(1);
-                case MONTHLY -> goal.getNextDueAt().plusMonths(1);
-                default -> goal.getNextDueAt();
-            };
+            // emailService.send(user.getEmail(), "Goal Reminder", msg);
+        }
+
+        // Goals that already had today's reminder are moved on as well, so a rerun does not leave them due
+        int advanced = goalRepository.advanceDueGoals(shard.index(), shard.count(), afterId, upToId, now, today);
+        jobStateRepository.recordProgress(shard.jobName(), today, upToId, inserted);
+
+        return new ReminderRun(inserted, Math.max(advanced - inserted, 0));
+    }
 
-            goal.setNextDueAt(nextDueAt);
-            goalRepository.save(goal);
+    /**
+     * The goals with {@code id mod count == index}. Shards never share a goal, so they can run side by side without
+     * posting the same reminder twice. Progress is kept per shard and shard count, so a changed shard count starts
+     * the day's remaining work from scratch rather than from another layout's cursor.
+     */
+    record Shard(int index, int count) {
+        String jobName() {
+            return JOB_NAME + ":" + index + "/" + count;
         }
     }
-}
\ No newline at end of file
+}
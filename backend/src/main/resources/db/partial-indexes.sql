@@ -0,0 +1,5 @@
+-- Partial indexes for the badge count queries. Hibernate cannot declare a WHERE clause on an index, so they live
+-- here rather than on the entities. Runs on every startup.
+
+CREATE INDEX IF NOT EXISTS idx_notification_unread ON notification (user_id, id) WHERE read = false;
+CREATE INDEX IF NOT EXISTS idx_invitations_pending ON invitations (invited_user_id) WHERE status = 'PENDING';
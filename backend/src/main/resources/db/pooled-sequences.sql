@@ -0,0 +1,24 @@
+-- Moves tables created with IDENTITY ids onto the pooled sequences Hibernate now draws ids from.
+-- The pooled optimizer hands out ids (nextval - 49 .. nextval], so every sequence is kept at least 49 above the
+-- highest existing id. Runs on every startup: it never moves a sequence backwards.
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS goals_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS tags_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS invitations_seq START WITH 1 INCREMENT BY 50;
+
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE goals ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE tags ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE invitations ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE notification ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+SELECT setval('users_seq', GREATEST((SELECT last_value FROM users_seq), (SELECT COALESCE(MAX(id), 0) + 49 FROM users)));
+SELECT setval('goals_seq', GREATEST((SELECT last_value FROM goals_seq), (SELECT COALESCE(MAX(id), 0) + 49 FROM goals)));
+SELECT setval('tags_seq', GREATEST((SELECT last_value FROM tags_seq), (SELECT COALESCE(MAX(id), 0) + 49 FROM tags)));
+SELECT setval('invitations_seq', GREATEST((SELECT last_value FROM invitations_seq), (SELECT COALESCE(MAX(id), 0) + 49 FROM invitations)));
+
+-- Notifications and goal broadcasts share one id sequence that is not pooled, so a single read watermark covers both.
+-- Ids rise in the order they are handed out, not the order rows commit. It carries on above every existing id.
+CREATE SEQUENCE IF NOT EXISTS notification_id_seq START WITH 1 INCREMENT BY 1;
+SELECT setval('notification_id_seq', GREATEST((SELECT last_value FROM notification_id_seq), (SELECT COALESCE(MAX(id), 0) FROM notification), (SELECT COALESCE(MAX(id), 0) FROM goal_broadcast)));
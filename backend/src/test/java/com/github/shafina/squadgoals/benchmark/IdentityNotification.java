@@ -0,0 +1,37 @@
+package com.github.shafina.squadgoals.benchmark;
+
+import com.github.shafina.squadgoals.enums.NotificationType;
+import com.github.shafina.squadgoals.model.User;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Copy of {@link com.github.shafina.squadgoals.model.Notification} that keeps the old IDENTITY ids, as a baseline
+ * for {@link NotificationInsertBenchmarkTest}.
+ */
+@Entity
+@Table(name = "benchmark_identity_notification")
+public class IdentityNotification {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    private NotificationType notificationType;
+
+    private boolean read = false;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public IdentityNotification() {
+    }
+
+    public IdentityNotification(User user, NotificationType notificationType) {
+        this.user = user;
+        this.notificationType = notificationType;
+    }
+}
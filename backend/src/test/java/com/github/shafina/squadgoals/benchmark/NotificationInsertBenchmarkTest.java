@@ -0,0 +1,137 @@
+package com.github.shafina.squadgoals.benchmark;
+
+import com.github.shafina.squadgoals.enums.NotificationType;
+import com.github.shafina.squadgoals.model.Goal;
+import com.github.shafina.squadgoals.model.GoalBroadcast;
+import com.github.shafina.squadgoals.model.Notification;
+import com.github.shafina.squadgoals.model.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Inserts 10k rows each of {@link Notification} and {@link GoalBroadcast}, of {@link com.github.shafina.squadgoals.model.Tag}
+ * as an entity on a pooled sequence, and of an IDENTITY baseline, and compares the JDBC statements prepared and the
+ * wall time. Notifications and broadcasts draw one id per row from {@code notification_id_seq}, so they pay a
+ * sequence call per row on top of their batched inserts; only pooled entities get close to one statement per batch.
+ * Runs on H2, so only the statement counts carry over to Postgres as-is.
+ * <p>
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class NotificationInsertBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationInsertBenchmarkTest.class);
+
+    private static final int ROWS = 10_000;
+    private static final int WARM_UP_ROWS = 1_000;
+    private static final int FLUSH_EVERY = 500;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2000, 1, 1);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void notificationInsertsCostOneSequenceCallPerRow() {
+        User user = new User();
+        user.setFirebaseUid("benchmark-uid");
+        user.setEmail("benchmark@example.com");
+        entityManager.persist(user);
+        Long warmUpGoalId = goal(user).getId();
+        Long goalId = goal(user).getId();
+        entityManager.flush();
+
+        // Warm up every path so class loading and statement caching don't land on the first measured run.
+        insert(WARM_UP_ROWS, i -> new IdentityNotification(userRef(user), NotificationType.SYSTEM));
+        insert(WARM_UP_ROWS, i -> tag("warm-up-" + i));
+        insert(WARM_UP_ROWS, i -> notification(user));
+        insert(WARM_UP_ROWS, i -> broadcast(warmUpGoalId, i));
+
+        Result identity = insert(ROWS, i -> new IdentityNotification(userRef(user), NotificationType.SYSTEM));
+        Result pooled = insert(ROWS, i -> tag("tag-" + i));
+        Result notifications = insert(ROWS, i -> notification(user));
+        Result broadcasts = insert(ROWS, i -> broadcast(goalId, i));
+
+        log.info("Inserting {} rows: IDENTITY {} statements in {} ms, pooled sequence (tags) {} statements in {} ms,"
+                        + " notifications {} statements in {} ms, goal broadcasts {} statements in {} ms",
+                ROWS, identity.statements(), identity.millis(), pooled.statements(), pooled.millis(),
+                notifications.statements(), notifications.millis(), broadcasts.statements(), broadcasts.millis());
+
+        assertTrue(identity.statements() >= ROWS);
+        assertTrue(pooled.statements() * 10 < identity.statements());
+        // One nextval per row, plus one statement per insert batch
+        assertTrue(notifications.statements() >= ROWS);
+        assertTrue(notifications.statements() <= ROWS + ROWS / 10);
+        assertTrue(broadcasts.statements() >= ROWS);
+        assertTrue(broadcasts.statements() <= ROWS + ROWS / 10);
+    }
+
+    private Result insert(int rows, IntFunction<Object> factory) {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= rows; i++) {
+            entityManager.persist(factory.apply(i));
+            if (i % FLUSH_EVERY == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        return new Result(statistics.getPrepareStatementCount(), millis);
+    }
+
+    private User userRef(User user) {
+        return entityManager.getReference(User.class, user.getId());
+    }
+
+    private Goal goal(User creator) {
+        Goal goal = new Goal();
+        goal.setTitle("Benchmark");
+        goal.setCreatedBy(creator);
+        entityManager.persist(goal);
+        return goal;
+    }
+
+    private Notification notification(User user) {
+        Notification notification = new Notification();
+        notification.setUser(userRef(user));
+        notification.setNotificationType(NotificationType.SYSTEM);
+        return notification;
+    }
+
+    private GoalBroadcast broadcast(Long goalId, int day) {
+        return new GoalBroadcast(entityManager.getReference(Goal.class, goalId), NotificationType.SYSTEM,
+                FIRST_DAY.plusDays(day));
+    }
+
+    private static com.github.shafina.squadgoals.model.Tag tag(String name) {
+        com.github.shafina.squadgoals.model.Tag tag = new com.github.shafina.squadgoals.model.Tag();
+        tag.setName(name);
+        return tag;
+    }
+
+    private record Result(long statements, long millis) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.shafina.squadgoals.controller;
+
+import com.github.shafina.squadgoals.config.SecurityConfig;
+import com.github.shafina.squadgoals.dto.BadgeCounts;
+import com.github.shafina.squadgoals.model.User;
+import com.github.shafina.squadgoals.repository.UserRepository;
+import com.github.shafina.squadgoals.security.AuthenticatedUserResolver;
+import com.github.shafina.squadgoals.security.FirebaseAuthProvider;
+import com.github.shafina.squadgoals.service.BadgeCounters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Import({SecurityConfig.class, AuthenticatedUserResolver.class})
+@WebMvcTest(controllers = BadgeController.class)
+public class BadgeControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private BadgeCounters badgeCounters;
+
+    @MockitoBean
+    private FirebaseAuthProvider firebaseAuthProvider;
+
+    @Autowired
+    private AuthenticatedUserResolver authenticatedUserResolver;
+
+    @BeforeEach
+    void clearUserCache() {
+        authenticatedUserResolver.clear();
+    }
+
+    @Test
+    @WithMockUser(username = "firebase-uid-1")
+    void getBadges_shouldReturnCounts() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setFirebaseUid("firebase-uid-1");
+
+        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
+        when(badgeCounters.get(1L)).thenReturn(new BadgeCounts(4, 1));
+
+        mockMvc.perform(get("/api/badges"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.unreadNotifications").value(4))
+                .andExpect(jsonPath("$.pendingInvitations").value(1));
+    }
+
+    @Test
+    void getBadges_shouldReturnUnauthorized_whenNoAuthentication() throws Exception {
+        mockMvc.perform(get("/api/badges"))
+                .andExpect(status().isUnauthorized());
+    }
+}
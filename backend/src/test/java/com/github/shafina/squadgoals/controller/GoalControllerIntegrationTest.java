@@ -5,20 +5,37 @@ import com.github.shafina.squadgoals.config.SecurityConfig;
 import com.github.shafina.squadgoals.dto.CreateGoalRequest;
 import com.github.shafina.squadgoals.enums.Frequency;
 import com.github.shafina.squadgoals.enums.NotificationType;
+import com.github.shafina.squadgoals.event.GoalCreatedEvent;
 import com.github.shafina.squadgoals.model.Goal;
+import com.github.shafina.squadgoals.model.Invitation;
 import com.github.shafina.squadgoals.model.Tag;
 import com.github.shafina.squadgoals.model.User;
 import com.github.shafina.squadgoals.repository.*;
+import com.github.shafina.squadgoals.security.AuthenticatedUserResolver;
 import com.github.shafina.squadgoals.security.FirebaseAuthProvider;
+import com.github.shafina.squadgoals.security.InvalidIdTokenException;
+import com.github.shafina.squadgoals.security.VerifiedToken;
+import com.github.shafina.squadgoals.service.BadgeCounters;
+import com.github.shafina.squadgoals.service.NotificationDispatcher;
+import com.github.shafina.squadgoals.service.NotificationDraft;
+import com.github.shafina.squadgoals.service.RecentGoalsBuffer;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcBuilderCustomizer;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -27,6 +44,8 @@ import java.util.Set;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -36,13 +55,29 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, AuthenticatedUserResolver.class})
 @WebMvcTest(controllers = GoalController.class)
+@RecordApplicationEvents
 public class GoalControllerIntegrationTest {
 
+    /**
+     * MockMvc does not apply {@code spring.mvc.publish-request-handled-events}; mirror it so the servlet does
+     * not read the principal after every request.
+     */
+    @TestConfiguration
+    static class RequestHandledEventsConfig {
+        @Bean
+        MockMvcBuilderCustomizer disableRequestHandledEvents() {
+            return builder -> builder.addDispatcherServletCustomizer(servlet -> servlet.setPublishEvents(false));
+        }
+    }
+
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ApplicationEvents events;
+
     @MockitoBean
     private UserRepository userRepository;
 
@@ -56,7 +91,13 @@ public class GoalControllerIntegrationTest {
     private InvitationRepository invitationRepository;
 
     @MockitoBean
-    private NotificationRepository notificationRepository;
+    private NotificationDispatcher notificationDispatcher;
+
+    @MockitoBean
+    private BadgeCounters badgeCounters;
+
+    @MockitoBean
+    private RecentGoalsBuffer recentGoalsBuffer;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -64,6 +105,15 @@ public class GoalControllerIntegrationTest {
     @MockitoBean
     private FirebaseAuthProvider firebaseAuthProvider;
 
+    @Autowired
+    private AuthenticatedUserResolver authenticatedUserResolver;
+
+    @BeforeEach
+    void setUp() {
+        authenticatedUserResolver.clear();
+        GoalDTOQueriesStubs.mapInMemory(goalRepository);
+    }
+
     @Test
     void createGoal_shouldCreateGoal_whenValidRequest() throws Exception {
         String firebaseUid = "test-firebase-uid";
@@ -105,11 +155,10 @@ public class GoalControllerIntegrationTest {
         savedGoal.setSquad(Set.of(squadUser1, squadUser2));
 
         when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(creator));
-        when(userRepository.findById(2L)).thenReturn(Optional.of(squadUser1));
-        when(userRepository.findById(3L)).thenReturn(Optional.of(squadUser2));
-        when(tagRepository.findByName("reading")).thenReturn(Optional.of(tag1));
-        when(tagRepository.findByName("habit")).thenReturn(Optional.of(tag2));
-        when(goalRepository.save(any(Goal.class))).thenReturn(savedGoal);
+        when(userRepository.getReferenceById(creator.getId())).thenReturn(creator);
+        when(userRepository.findAllById(Set.of(2L, 3L))).thenReturn(List.of(squadUser1, squadUser2));
+        when(tagRepository.findByNameIn(Set.of("reading", "habit"))).thenReturn(List.of(tag1, tag2));
+        when(goalRepository.saveAndFlush(any(Goal.class))).thenReturn(savedGoal);
 
         mockMvc.perform(post("/api/goals")
                 .with(user(firebaseUid).roles("USER"))
@@ -122,27 +171,25 @@ public class GoalControllerIntegrationTest {
                 .andExpect(jsonPath("$.timezone").value("America/New_York"))
                 .andExpect(jsonPath("$.id").value(100L));
 
-        verify(invitationRepository, times(1))
-                .save(argThat(invitation -> invitation.getInvitedUser().equals(squadUser1) &&
-                        invitation.getInviter().equals(creator) &&
-                        invitation.getGoal().equals(savedGoal)));
-
-        verify(notificationRepository, times(1))
-                .save(argThat(notification -> notification.getUser().equals(squadUser1) &&
-                        notification.getNotificationType().equals(NotificationType.INVITE) &&
-                        notification.getSender().equals(creator) &&
-                        notification.getGoal().equals(savedGoal)));
-
-        verify(invitationRepository, times(1))
-                .save(argThat(invitation -> invitation.getInvitedUser().equals(squadUser2) &&
-                        invitation.getInviter().equals(creator) &&
-                        invitation.getGoal().equals(savedGoal)));
-
-        verify(notificationRepository, times(1))
-                .save(argThat(notification -> notification.getUser().equals(squadUser2) &&
-                        notification.getNotificationType().equals(NotificationType.INVITE) &&
-                        notification.getSender().equals(creator) &&
-                        notification.getGoal().equals(savedGoal)));
+        verify(invitationRepository)
+                .saveAll(argThat((List<Invitation> invitations) -> invitations.stream()
+                        .anyMatch(invitation -> invitation.getInvitedUser().equals(squadUser1) &&
+                                invitation.getInviter().equals(creator) &&
+                                invitation.getGoal().equals(savedGoal))));
+
+        verify(notificationDispatcher)
+                .dispatch(argThat((List<NotificationDraft> notifications) -> notifications.stream()
+                        .anyMatch(notification -> notification.userId().equals(squadUser1.getId()) &&                                notification.type().equals(NotificationType.INVITE) &&                                notification.senderId().equals(creator.getId()) &&                                notification.goalId().equals(savedGoal.getId()))));
+
+        verify(invitationRepository)
+                .saveAll(argThat((List<Invitation> invitations) -> invitations.stream()
+                        .anyMatch(invitation -> invitation.getInvitedUser().equals(squadUser2) &&
+                                invitation.getInviter().equals(creator) &&
+                                invitation.getGoal().equals(savedGoal))));
+
+        verify(notificationDispatcher)
+                .dispatch(argThat((List<NotificationDraft> notifications) -> notifications.stream()
+                        .anyMatch(notification -> notification.userId().equals(squadUser2.getId()) &&                                notification.type().equals(NotificationType.INVITE) &&                                notification.senderId().equals(creator.getId()) &&                                notification.goalId().equals(savedGoal.getId()))));
     }
 
     @Test
@@ -184,15 +231,12 @@ public class GoalControllerIntegrationTest {
         savedGoal.setSquad(Set.of(squadUser));
 
         when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(creator));
-        when(userRepository.findById(2L)).thenReturn(Optional.of(squadUser));
+        when(userRepository.getReferenceById(creator.getId())).thenReturn(creator);
+        when(userRepository.findAllById(Set.of(2L))).thenReturn(List.of(squadUser));
 
-        when(tagRepository.findByName("guitar")).thenReturn(Optional.empty());
-        when(tagRepository.findByName("music")).thenReturn(Optional.empty());
+        when(tagRepository.saveAll(anyList())).thenReturn(List.of(createdTag1, createdTag2));
 
-        when(tagRepository.save(argThat(tag -> tag != null && "guitar".equals(tag.getName())))).thenReturn(createdTag1);
-        when(tagRepository.save(argThat(tag -> tag != null && "music".equals(tag.getName())))).thenReturn(createdTag2);
-
-        when(goalRepository.save(any(Goal.class))).thenReturn(savedGoal);
+        when(goalRepository.saveAndFlush(any(Goal.class))).thenReturn(savedGoal);
 
         mockMvc.perform(post("/api/goals")
                 .with(user(firebaseUid).roles("USER"))
@@ -205,18 +249,18 @@ public class GoalControllerIntegrationTest {
                 .andExpect(jsonPath("$.tags[0]").value("music"))
                 .andExpect(jsonPath("$.tags[1]").value("guitar"));
 
-        verify(tagRepository, times(1)).save(argThat(tag -> tag.getName().equals("guitar")));
-        verify(tagRepository, times(1)).save(argThat(tag -> tag.getName().equals("music")));
+        verify(tagRepository).saveAll(argThat((List<Tag> tags) -> tags.stream().anyMatch(tag -> tag.getName().equals("guitar"))));
+        verify(tagRepository).saveAll(argThat((List<Tag> tags) -> tags.stream().anyMatch(tag -> tag.getName().equals("music"))));
 
-        verify(invitationRepository, times(1))
-                .save(argThat(invitation -> invitation.getInvitedUser().equals(squadUser) &&
-                        invitation.getInviter().equals(creator) &&
-                        invitation.getGoal().equals(savedGoal)));
+        verify(invitationRepository)
+                .saveAll(argThat((List<Invitation> invitations) -> invitations.stream()
+                        .anyMatch(invitation -> invitation.getInvitedUser().equals(squadUser) &&
+                                invitation.getInviter().equals(creator) &&
+                                invitation.getGoal().equals(savedGoal))));
 
-        verify(notificationRepository, times(1))
-                .save(argThat(notification -> notification.getUser().equals(squadUser) &&
-                        notification.getSender().equals(creator) &&
-                        notification.getGoal().equals(savedGoal)));
+        verify(notificationDispatcher)
+                .dispatch(argThat((List<NotificationDraft> notifications) -> notifications.stream()
+                        .anyMatch(notification -> notification.userId().equals(squadUser.getId()) &&                                notification.senderId().equals(creator.getId()) &&                                notification.goalId().equals(savedGoal.getId()))));
     }
 
     @Test
@@ -256,10 +300,12 @@ public class GoalControllerIntegrationTest {
         request.setSquadUserIds(Set.of(999L));
 
         User creator = new User();
+        creator.setId(1L);
         creator.setFirebaseUid(firebaseUid);
 
         when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(creator));
-        when(userRepository.findById(999L)).thenReturn(Optional.empty());
+        when(userRepository.getReferenceById(creator.getId())).thenReturn(creator);
+        when(userRepository.findAllById(Set.of(999L))).thenReturn(List.of());
 
         mockMvc.perform(post("/api/goals")
                 .with(user(firebaseUid).roles("USER"))
@@ -299,6 +345,49 @@ public class GoalControllerIntegrationTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    void createGoal_shouldReturnAndFeedTheDatabaseTimestamps() throws Exception {
+        String firebaseUid = "test-firebase-uid";
+        CreateGoalRequest request = new CreateGoalRequest();
+        request.setTitle("Fresh Goal");
+        request.setTimezone("UTC");
+        request.setStartAt(LocalDateTime.now());
+        request.setFrequency(Frequency.DAILY);
+        User creator = new User();
+        creator.setId(1L);
+        creator.setFirebaseUid(firebaseUid);
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(creator));
+        when(userRepository.getReferenceById(creator.getId())).thenReturn(creator);
+        // The flush is what assigns the id and reads the database timestamps back
+        when(goalRepository.saveAndFlush(any(Goal.class))).thenAnswer(invocation -> {
+            Goal g = invocation.getArgument(0);
+            g.setId(100L);
+            g.setCreatedAt(createdAt);
+            g.setUpdatedAt(createdAt);
+            return g;
+        });
+
+        mockMvc.perform(post("/api/goals")
+                .with(user(firebaseUid).roles("USER"))
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.createdAt").value("2025-01-01T08:00:00"));
+
+        RecentGoalsBuffer feed = new RecentGoalsBuffer(goalRepository, TransactionOperations.withoutTransaction(), 10);
+        events.stream(GoalCreatedEvent.class).forEach(feed::onGoalCreated);
+        when(recentGoalsBuffer.newest(anyInt())).thenAnswer(invocation -> feed.newest(invocation.getArgument(0)));
+
+        mockMvc.perform(get("/api/goals").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(100L))
+                .andExpect(jsonPath("$.content[0].createdAt").value("2025-01-01T08:00:00"));
+        verify(goalRepository, never()).save(any(Goal.class));
+    }
+
     @Test
     void createGoal_shouldSetIsPublicTrue_whenPublicTrueProvided() throws Exception {
         String firebaseUid = "test-firebase-uid";
@@ -314,7 +403,8 @@ public class GoalControllerIntegrationTest {
         creator.setFirebaseUid(firebaseUid);
 
         when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(creator));
-        when(goalRepository.save(any(Goal.class))).thenAnswer(invocation -> {
+        when(userRepository.getReferenceById(creator.getId())).thenReturn(creator);
+        when(goalRepository.saveAndFlush(any(Goal.class))).thenAnswer(invocation -> {
             Goal g = invocation.getArgument(0);
             assertTrue(g.getPublic());
             return g;
@@ -343,7 +433,8 @@ public class GoalControllerIntegrationTest {
         creator.setFirebaseUid(firebaseUid);
 
         when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(creator));
-        when(goalRepository.save(any(Goal.class))).thenAnswer(invocation -> {
+        when(userRepository.getReferenceById(creator.getId())).thenReturn(creator);
+        when(goalRepository.saveAndFlush(any(Goal.class))).thenAnswer(invocation -> {
             Goal g = invocation.getArgument(0);
             assertFalse(g.getPublic());
             return g;
@@ -372,7 +463,8 @@ public class GoalControllerIntegrationTest {
         creator.setFirebaseUid(firebaseUid);
 
         when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(creator));
-        when(goalRepository.save(any(Goal.class))).thenAnswer(invocation -> {
+        when(userRepository.getReferenceById(creator.getId())).thenReturn(creator);
+        when(goalRepository.saveAndFlush(any(Goal.class))).thenAnswer(invocation -> {
             Goal g = invocation.getArgument(0);
             assertTrue(g.getPublic());
             return g;
@@ -405,12 +497,100 @@ public class GoalControllerIntegrationTest {
         privateGoal.setPublic(false);
         privateGoal.setCreatedBy(creator);
 
-        when(goalRepository.findByIsPublicTrue()).thenReturn(List.of(publicGoal));
+        when(goalRepository.findPublicFeed(any())).thenReturn(List.of(publicGoal));
 
         mockMvc.perform(get("/api/goals")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].title").value("Public Goal"))
-                .andExpect(jsonPath("$[0].id").value(1L));
+                .andExpect(jsonPath("$.content[0].title").value("Public Goal"))
+                .andExpect(jsonPath("$.content[0].id").value(1L))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getPublicGoals_shouldNotVerifyBearerToken() throws Exception {
+        when(goalRepository.findPublicFeed(any())).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/goals")
+                .header("Authorization", "Bearer some-id-token"))
+                .andExpect(status().isOk());
+
+        verify(firebaseAuthProvider, never()).verifyIdToken(anyString());
+    }
+
+    @Test
+    void getGoalById_shouldNotVerifyBearerToken_whenGoalIsPublic() throws Exception {
+        User creator = new User();
+        creator.setId(1L);
+
+        Goal publicGoal = new Goal();
+        publicGoal.setId(1L);
+        publicGoal.setTitle("Public Goal");
+        publicGoal.setPublic(true);
+        publicGoal.setCreatedBy(creator);
+
+        when(goalRepository.findWithCreatorById(1L)).thenReturn(Optional.of(publicGoal));
+
+        mockMvc.perform(get("/api/goals/1")
+                .header("Authorization", "Bearer some-id-token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Public Goal"));
+
+        verify(firebaseAuthProvider, never()).verifyIdToken(anyString());
+    }
+
+    @Test
+    void getGoalById_shouldVerifyBearerToken_whenGoalIsPrivate() throws Exception {
+        String firebaseUid = "test-firebase-uid";
+        User member = new User();
+        member.setId(1L);
+        member.setFirebaseUid(firebaseUid);
+
+        Goal privateGoal = new Goal();
+        privateGoal.setId(2L);
+        privateGoal.setTitle("Private Goal");
+        privateGoal.setPublic(false);
+        privateGoal.setCreatedBy(member);
+        privateGoal.setSquad(Set.of(member));
+
+        when(goalRepository.findWithCreatorById(2L)).thenReturn(Optional.of(privateGoal));
+        when(firebaseAuthProvider.verifyIdToken("some-id-token"))
+                .thenReturn(new VerifiedToken(firebaseUid, Instant.now().plusSeconds(3600)));
+        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(member));
+
+        mockMvc.perform(get("/api/goals/2")
+                .header("Authorization", "Bearer some-id-token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Private Goal"));
+
+        verify(firebaseAuthProvider, times(1)).verifyIdToken("some-id-token");
+    }
+
+    @Test
+    void getGoalById_shouldReturnUnauthorized_whenDeferredTokenInvalidAndGoalIsPrivate() throws Exception {
+        Goal privateGoal = new Goal();
+        privateGoal.setId(2L);
+        privateGoal.setPublic(false);
+        privateGoal.setSquad(Set.of());
+
+        when(goalRepository.findWithCreatorById(2L)).thenReturn(Optional.of(privateGoal));
+        when(firebaseAuthProvider.verifyIdToken("bad-token")).thenThrow(new InvalidIdTokenException("Malformed token"));
+
+        mockMvc.perform(get("/api/goals/2")
+                .header("Authorization", "Bearer bad-token"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void createGoal_shouldStillRejectInvalidBearerToken() throws Exception {
+        when(firebaseAuthProvider.verifyIdToken("bad-token")).thenThrow(new InvalidIdTokenException("Malformed token"));
+
+        mockMvc.perform(post("/api/goals")
+                .header("Authorization", "Bearer bad-token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(goalRepository);
     }
 }
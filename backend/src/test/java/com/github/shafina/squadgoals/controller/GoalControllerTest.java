@@ -1,23 +1,37 @@
 package com.github.shafina.squadgoals.controller;
 
 import com.github.shafina.squadgoals.dto.CreateGoalRequest;
+import com.github.shafina.squadgoals.dto.CursorPage;
 import com.github.shafina.squadgoals.dto.GoalDTO;
+import com.github.shafina.squadgoals.dto.UserDTO;
 import com.github.shafina.squadgoals.enums.Frequency;
+import com.github.shafina.squadgoals.event.GoalCreatedEvent;
 import com.github.shafina.squadgoals.model.Goal;
+import com.github.shafina.squadgoals.model.Invitation;
 import com.github.shafina.squadgoals.model.Tag;
 import com.github.shafina.squadgoals.model.User;
 import com.github.shafina.squadgoals.repository.*;
+import com.github.shafina.squadgoals.security.AuthenticatedUser;
+import com.github.shafina.squadgoals.security.AuthenticatedUserResolver;
+import com.github.shafina.squadgoals.service.BadgeCounters;
+import com.github.shafina.squadgoals.service.NotificationDispatcher;
+import com.github.shafina.squadgoals.service.NotificationDraft;
+import com.github.shafina.squadgoals.service.RecentGoalsBuffer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,9 +42,11 @@ class GoalControllerTest {
     private UserRepository userRepository;
     private TagRepository tagRepository;
     private InvitationRepository invitationRepository;
-    private NotificationRepository notificationRepository;
+    private NotificationDispatcher notificationDispatcher;
+    private RecentGoalsBuffer recentGoalsBuffer;
+    private ApplicationEventPublisher eventPublisher;
+    private BadgeCounters badgeCounters;
     private GoalController goalController;
-    private Authentication authentication;
 
     @BeforeEach
     void setUp() {
@@ -38,35 +54,37 @@ class GoalControllerTest {
         userRepository = mock(UserRepository.class);
         tagRepository = mock(TagRepository.class);
         invitationRepository = mock(InvitationRepository.class);
-        notificationRepository = mock(NotificationRepository.class);
-        authentication = mock(Authentication.class);
-        goalController = new GoalController(goalRepository, userRepository, tagRepository, invitationRepository, notificationRepository);
+        notificationDispatcher = mock(NotificationDispatcher.class);
+        recentGoalsBuffer = mock(RecentGoalsBuffer.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        badgeCounters = mock(BadgeCounters.class);
+        goalController = new GoalController(goalRepository, userRepository, tagRepository, invitationRepository, notificationDispatcher,
+                new AuthenticatedUserResolver(userRepository, 100), recentGoalsBuffer, eventPublisher,
+                badgeCounters);
+        GoalDTOQueriesStubs.mapInMemory(goalRepository);
     }
 
     @Test
     void createGoal_shouldCreateGoal_whenValidRequest() {
         String firebaseUid = "firebase-uid";
-        when(authentication.getName()).thenReturn(firebaseUid);
 
         User creator = new User();
         creator.setId(1L);
         creator.setFirebaseUid(firebaseUid);
 
-        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(creator));
+        when(userRepository.getReferenceById(creator.getId())).thenReturn(creator);
 
         Tag tag1 = new Tag();
         tag1.setId(10L);
         tag1.setName("reading");
-        when(tagRepository.findByName("reading")).thenReturn(Optional.of(tag1));
 
         Tag tag2 = new Tag();
         tag2.setId(11L);
         tag2.setName("habit");
-        when(tagRepository.findByName("habit")).thenReturn(Optional.of(tag2));
 
         User squadUser = new User();
         squadUser.setId(2L);
-        when(userRepository.findById(2L)).thenReturn(Optional.of(squadUser));
+        when(userRepository.findAllById(Set.of(2L))).thenReturn(List.of(squadUser));
 
         CreateGoalRequest request = new CreateGoalRequest();
         request.setTitle("Read Books");
@@ -88,9 +106,10 @@ class GoalControllerTest {
         savedGoal.setSquad(Set.of(creator, squadUser));
         savedGoal.setCreatedBy(creator);
 
-        when(goalRepository.save(any(Goal.class))).thenReturn(savedGoal);
+        when(tagRepository.findByNameIn(Set.of("reading", "habit"))).thenReturn(List.of(tag1, tag2));
+        when(goalRepository.saveAndFlush(any(Goal.class))).thenReturn(savedGoal);
 
-        ResponseEntity<GoalDTO> response = goalController.createGoal(request, authentication);
+        ResponseEntity<GoalDTO> response = goalController.createGoal(request, AuthenticatedUser.from(creator));
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -100,30 +119,31 @@ class GoalControllerTest {
         assertEquals(savedGoal.getDescription(), response.getBody().description());
         assertEquals(savedGoal.getCreatedBy().getId(), response.getBody().createdBy().id());
 
-        verify(invitationRepository, times(1))
-                .save(argThat(invitation -> invitation.getInvitedUser().equals(squadUser) &&
-                        invitation.getInviter().equals(creator) &&
-                        invitation.getGoal().equals(savedGoal)));
+        verify(invitationRepository)
+                .saveAll(argThat((List<Invitation> invitations) -> invitations.stream()
+                        .anyMatch(invitation -> invitation.getInvitedUser().equals(squadUser) &&
+                                invitation.getInviter().equals(creator) &&
+                                invitation.getGoal().equals(savedGoal))));
 
-        verify(notificationRepository, times(1))
-                .save(argThat(notification -> notification.getUser().equals(squadUser) &&
-                        notification.getSender().equals(creator) &&
-                        notification.getGoal().equals(savedGoal)));
+        verify(notificationDispatcher)
+                .dispatch(argThat((List<NotificationDraft> notifications) -> notifications.stream()
+                        .anyMatch(notification -> notification.userId().equals(squadUser.getId()) &&
+                                notification.senderId().equals(creator.getId()) &&
+                                notification.goalId().equals(savedGoal.getId()))));
+
+        verify(eventPublisher).publishEvent(new GoalCreatedEvent(response.getBody()));
+        verify(badgeCounters).adjustPending(squadUser.getId(), 1);
     }
 
     @Test
     void createGoal_shouldCreateNewTags_whenTagDoesNotExist() {
         String firebaseUid = "firebase-uid";
-        when(authentication.getName()).thenReturn(firebaseUid);
 
         User creator = new User();
         creator.setId(1L);
         creator.setFirebaseUid(firebaseUid);
 
-        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(creator));
-
-        when(tagRepository.findByName("guitar")).thenReturn(Optional.empty());
-        when(tagRepository.findByName("music")).thenReturn(Optional.empty());
+        when(userRepository.getReferenceById(creator.getId())).thenReturn(creator);
 
         Tag tag1 = new Tag();
         tag1.setId(100L);
@@ -132,12 +152,11 @@ class GoalControllerTest {
         tag2.setId(101L);
         tag2.setName("music");
 
-        when(tagRepository.save(argThat(tag -> tag != null && "guitar".equals(tag.getName())))).thenReturn(tag1);
-        when(tagRepository.save(argThat(tag -> tag != null && "music".equals(tag.getName())))).thenReturn(tag2);
+        when(tagRepository.saveAll(anyList())).thenReturn(List.of(tag1, tag2));
 
         User squadUser = new User();
         squadUser.setId(2L);
-        when(userRepository.findById(2L)).thenReturn(Optional.of(squadUser));
+        when(userRepository.findAllById(Set.of(2L))).thenReturn(List.of(squadUser));
 
         CreateGoalRequest request = new CreateGoalRequest();
         request.setTitle("Learn Guitar");
@@ -159,9 +178,9 @@ class GoalControllerTest {
         savedGoal.setSquad(Set.of(creator, squadUser));
         savedGoal.setCreatedBy(creator);
 
-        when(goalRepository.save(any(Goal.class))).thenReturn(savedGoal);
+        when(goalRepository.saveAndFlush(any(Goal.class))).thenReturn(savedGoal);
 
-        ResponseEntity<GoalDTO> response = goalController.createGoal(request, authentication);
+        ResponseEntity<GoalDTO> response = goalController.createGoal(request, AuthenticatedUser.from(creator));
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -171,71 +190,116 @@ class GoalControllerTest {
         assertEquals(savedGoal.getDescription(), response.getBody().description());
         assertEquals(savedGoal.getCreatedBy().getId(), response.getBody().createdBy().id());
 
-        verify(tagRepository, times(1)).save(argThat(tag -> tag.getName().equals("guitar")));
-        verify(tagRepository, times(1)).save(argThat(tag -> tag.getName().equals("music")));
-        verify(invitationRepository, times(1))
-                .save(argThat(invitation -> invitation.getInvitedUser().equals(squadUser) &&
-                        invitation.getInviter().equals(creator) &&
-                        invitation.getGoal().equals(savedGoal)));
-        verify(notificationRepository, times(1))
-                .save(argThat(notification -> notification.getUser().equals(squadUser) &&
-                        notification.getSender().equals(creator) &&
-                        notification.getGoal().equals(savedGoal)));
+        verify(tagRepository).saveAll(argThat((List<Tag> tags) -> tags.stream().anyMatch(tag -> tag.getName().equals("guitar"))));
+        verify(tagRepository).saveAll(argThat((List<Tag> tags) -> tags.stream().anyMatch(tag -> tag.getName().equals("music"))));
+        verify(invitationRepository)
+                .saveAll(argThat((List<Invitation> invitations) -> invitations.stream()
+                        .anyMatch(invitation -> invitation.getInvitedUser().equals(squadUser) &&
+                                invitation.getInviter().equals(creator) &&
+                                invitation.getGoal().equals(savedGoal))));
+        verify(notificationDispatcher)
+                .dispatch(argThat((List<NotificationDraft> notifications) -> notifications.stream()
+                        .anyMatch(notification -> notification.userId().equals(squadUser.getId()) &&
+                                notification.senderId().equals(creator.getId()) &&
+                                notification.goalId().equals(savedGoal.getId()))));
     }
 
     @Test
-    void createGoal_shouldReturnNotFound_whenCreatorUserNotFound() {
-        String firebaseUid = "notfound-uid";
-        when(authentication.getName()).thenReturn(firebaseUid);
-        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.empty());
+    void createGoal_shouldReturnNotFound_whenSquadUserNotFound() {
+        String firebaseUid = "firebase-uid";
+
+        User creator = new User();
+        creator.setId(1L);
+        creator.setFirebaseUid(firebaseUid);
+
+        when(userRepository.getReferenceById(creator.getId())).thenReturn(creator);
+
+        when(userRepository.findAllById(Set.of(2L))).thenReturn(List.of());
 
         CreateGoalRequest request = new CreateGoalRequest();
         request.setTitle("Test Goal");
+        request.setTagNames(Set.of("tag"));
+        request.setSquadUserIds(Set.of(2L));
 
         ResponseStatusException ex = assertThrows(ResponseStatusException.class,
-                () -> goalController.createGoal(request, authentication));
+                () -> goalController.createGoal(request, AuthenticatedUser.from(creator)));
         assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
         assertNotNull(ex.getReason());
-        assertTrue(ex.getReason().contains("User not found"));
+        assertTrue(ex.getReason().contains("User not found with ID: 2"));
     }
 
     @Test
-    void createGoal_shouldReturnNotFound_whenSquadUserNotFound() {
-        String firebaseUid = "firebase-uid";
-        when(authentication.getName()).thenReturn(firebaseUid);
-
+    void createGoal_shouldBatchTagAndInviteeLookupsAndInserts() {
         User creator = new User();
         creator.setId(1L);
-        creator.setFirebaseUid(firebaseUid);
+        when(userRepository.getReferenceById(1L)).thenReturn(creator);
 
-        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(creator));
-        when(tagRepository.findByName(anyString())).thenReturn(Optional.empty());
-        when(tagRepository.save(any(Tag.class))).thenReturn(new Tag());
+        Tag existing = new Tag();
+        existing.setId(10L);
+        existing.setName("reading");
+        when(tagRepository.findByNameIn(Set.of("reading", "habit", "books"))).thenReturn(List.of(existing));
 
-        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+        List<User> invitees = new ArrayList<>();
+        for (long id = 2; id <= 31; id++) {
+            User invitee = new User();
+            invitee.setId(id);
+            invitees.add(invitee);
+        }
+        Set<Long> inviteeIds = invitees.stream().map(User::getId).collect(Collectors.toSet());
+        when(userRepository.findAllById(inviteeIds)).thenReturn(invitees);
+
+        when(goalRepository.saveAndFlush(any(Goal.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CreateGoalRequest request = new CreateGoalRequest();
+        request.setTitle("Read Books");
+        request.setTagNames(Set.of("reading", "habit", "books"));
+        Set<Long> squadUserIds = new HashSet<>(inviteeIds);
+        squadUserIds.add(1L);
+        request.setSquadUserIds(squadUserIds);
+
+        goalController.createGoal(request, AuthenticatedUser.from(creator));
+
+        verify(tagRepository, times(1)).findByNameIn(any());
+        verify(tagRepository, times(1)).saveAll(argThat((List<Tag> tags) -> tags.size() == 2
+                && tags.stream().noneMatch(tag -> tag.getName().equals("reading"))));
+        verify(userRepository, times(1)).findAllById(inviteeIds);
+        verify(userRepository, never()).findById(any());
+        verify(invitationRepository, times(1)).saveAll(argThat((List<Invitation> invitations) -> invitations.size() == 30));
+        verify(notificationDispatcher, times(1)).dispatch(argThat((List<NotificationDraft> notifications) -> notifications.size() == 30));
+        verify(invitationRepository, never()).save(any());
+    }
+
+    @Test
+    void createGoal_shouldReportLowestMissingUserId_beforeSavingGoal() {
+        User creator = new User();
+        creator.setId(1L);
+        when(userRepository.getReferenceById(1L)).thenReturn(creator);
+
+        User found = new User();
+        found.setId(2L);
+        when(userRepository.findAllById(Set.of(2L, 7L, 5L))).thenReturn(List.of(found));
 
         CreateGoalRequest request = new CreateGoalRequest();
         request.setTitle("Test Goal");
-        request.setTagNames(Set.of("tag"));
-        request.setSquadUserIds(Set.of(2L));
+        request.setSquadUserIds(Set.of(2L, 7L, 5L));
 
         ResponseStatusException ex = assertThrows(ResponseStatusException.class,
-                () -> goalController.createGoal(request, authentication));
+                () -> goalController.createGoal(request, AuthenticatedUser.from(creator)));
+
         assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
-        assertNotNull(ex.getReason());
-        assertTrue(ex.getReason().contains("User not found with ID: 2"));
+        assertEquals("User not found with ID: 5", ex.getReason());
+        verify(goalRepository, never()).saveAndFlush(any());
     }
 
     @Test
     void createGoal_shouldSetIsPublicTrue_whenPublicTrueProvided() {
         String firebaseUid = "firebase-uid";
-        when(authentication.getName()).thenReturn(firebaseUid);
 
         User creator = new User();
         creator.setId(1L);
         creator.setFirebaseUid(firebaseUid);
 
-        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(creator));
+        when(userRepository.getReferenceById(creator.getId())).thenReturn(creator);
 
         CreateGoalRequest request = new CreateGoalRequest();
         request.setTitle("Test Goal");
@@ -245,26 +309,25 @@ class GoalControllerTest {
         savedGoal.setId(1L);
         savedGoal.setCreatedBy(creator);
 
-        when(goalRepository.save(any(Goal.class))).thenAnswer(invocation -> {
+        when(goalRepository.saveAndFlush(any(Goal.class))).thenAnswer(invocation -> {
             Goal g = invocation.getArgument(0);
             assertTrue(g.getPublic());
             return savedGoal;
         });
 
-        ResponseEntity<GoalDTO> response = goalController.createGoal(request, authentication);
+        ResponseEntity<GoalDTO> response = goalController.createGoal(request, AuthenticatedUser.from(creator));
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
     }
 
     @Test
     void createGoal_shouldSetIsPublicFalse_whenPublicFalseProvided() {
         String firebaseUid = "firebase-uid";
-        when(authentication.getName()).thenReturn(firebaseUid);
 
         User creator = new User();
         creator.setId(1L);
         creator.setFirebaseUid(firebaseUid);
 
-        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(creator));
+        when(userRepository.getReferenceById(creator.getId())).thenReturn(creator);
 
         CreateGoalRequest request = new CreateGoalRequest();
         request.setTitle("Test Goal");
@@ -274,26 +337,25 @@ class GoalControllerTest {
         savedGoal.setId(1L);
         savedGoal.setCreatedBy(creator);
 
-        when(goalRepository.save(any(Goal.class))).thenAnswer(invocation -> {
+        when(goalRepository.saveAndFlush(any(Goal.class))).thenAnswer(invocation -> {
             Goal g = invocation.getArgument(0);
             assertFalse(g.getPublic());
             return savedGoal;
         });
 
-        ResponseEntity<GoalDTO> response = goalController.createGoal(request, authentication);
+        ResponseEntity<GoalDTO> response = goalController.createGoal(request, AuthenticatedUser.from(creator));
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
     }
 
     @Test
     void createGoal_shouldDefaultIsPublicTrue_whenPublicNull() {
         String firebaseUid = "firebase-uid";
-        when(authentication.getName()).thenReturn(firebaseUid);
 
         User creator = new User();
         creator.setId(1L);
         creator.setFirebaseUid(firebaseUid);
 
-        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(creator));
+        when(userRepository.getReferenceById(creator.getId())).thenReturn(creator);
 
         CreateGoalRequest request = new CreateGoalRequest();
         request.setTitle("Test Goal");
@@ -303,13 +365,13 @@ class GoalControllerTest {
         savedGoal.setId(1L);
         savedGoal.setCreatedBy(creator);
 
-        when(goalRepository.save(any(Goal.class))).thenAnswer(invocation -> {
+        when(goalRepository.saveAndFlush(any(Goal.class))).thenAnswer(invocation -> {
             Goal g = invocation.getArgument(0);
             assertTrue(g.getPublic());
             return savedGoal;
         });
 
-        ResponseEntity<GoalDTO> response = goalController.createGoal(request, authentication);
+        ResponseEntity<GoalDTO> response = goalController.createGoal(request, AuthenticatedUser.from(creator));
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
     }
 
@@ -332,13 +394,88 @@ class GoalControllerTest {
         privateGoal.setPublic(false);
         privateGoal.setCreatedBy(creator);
 
-        when(goalRepository.findByIsPublicTrue()).thenReturn(List.of(publicGoal));
+        when(goalRepository.findPublicFeed(Limit.of(11))).thenReturn(List.of(publicGoal));
+
+        ResponseEntity<CursorPage<GoalDTO>> response = goalController.getPublicGoals(null, 10);
+        CursorPage<GoalDTO> page = response.getBody();
+
+        assertNotNull(page);
+        assertEquals(1, page.content().size());
+        assertEquals("Public Goal", page.content().get(0).title());
+        assertNull(page.nextCursor());
+    }
 
-        ResponseEntity<List<GoalDTO>> response = goalController.getPublicGoals(true, 10);
-        List<GoalDTO> goals = response.getBody();
+    @Test
+    void getPublicGoals_shouldReturnNextCursor_whenMoreGoalsExist() {
+        User creator = new User();
+        creator.setId(1L);
+
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 10, 0, 30);
+        List<Goal> rows = new ArrayList<>();
+        for (long id = 3; id >= 1; id--) {
+            Goal goal = new Goal();
+            goal.setId(id);
+            goal.setCreatedBy(creator);
+            goal.setCreatedAt(createdAt.minusMinutes(3 - id));
+            rows.add(goal);
+        }
+
+        when(goalRepository.findPublicFeed(Limit.of(3))).thenReturn(rows);
+
+        CursorPage<GoalDTO> page = goalController.getPublicGoals(null, 2).getBody();
+
+        assertNotNull(page);
+        assertEquals(List.of(3L, 2L), page.content().stream().map(GoalDTO::id).toList());
+        assertEquals("2025-01-01T09:59:30,2", page.nextCursor());
+    }
+
+    @Test
+    void getPublicGoals_shouldServeFromRecentBuffer_withoutQuerying() {
+        UserDTO creator = new UserDTO(1L, "Alice", "alice@example.com", "UTC");
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 10, 0, 30);
+        GoalDTO newest = new GoalDTO(2L, "Newest", null, creator, "UTC", null, null, true, createdAt, createdAt,
+                null, Set.of(), Set.of());
+        GoalDTO older = new GoalDTO(1L, "Older", null, creator, "UTC", null, null, true, createdAt.minusHours(1),
+                createdAt, null, Set.of(), Set.of());
+
+        when(recentGoalsBuffer.newest(2)).thenReturn(Optional.of(List.of(newest, older)));
+
+        CursorPage<GoalDTO> page = goalController.getPublicGoals(null, 1).getBody();
+
+        assertNotNull(page);
+        assertEquals(List.of(newest), page.content());
+        assertEquals("2025-01-01T10:00:30,2", page.nextCursor());
+        verifyNoInteractions(goalRepository);
+    }
+
+    @Test
+    void getPublicGoals_shouldSeekPastCursor_whenBeforeProvided() {
+        when(goalRepository.findPublicFeedBefore(LocalDateTime.of(2025, 1, 1, 9, 59, 30), 2L, Limit.of(3)))
+                .thenReturn(List.of());
+
+        CursorPage<GoalDTO> page = goalController.getPublicGoals("2025-01-01T09:59:30,2", 2).getBody();
+
+        assertNotNull(page);
+        assertTrue(page.content().isEmpty());
+        assertNull(page.nextCursor());
+        verify(goalRepository, never()).findPublicFeed(any());
+    }
+
+    @Test
+    void getPublicGoals_shouldCapLimit() {
+        when(goalRepository.findPublicFeed(Limit.of(51))).thenReturn(List.of());
+
+        goalController.getPublicGoals(null, 1000);
+
+        verify(goalRepository).findPublicFeed(Limit.of(51));
+    }
+
+    @Test
+    void getPublicGoals_shouldReturnBadRequest_whenCursorMalformed() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> goalController.getPublicGoals("not-a-cursor", 10));
 
-        assertNotNull(goals);
-        assertEquals(1, goals.size());
-        assertEquals("Public Goal", goals.get(0).title());
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        assertEquals("Invalid cursor", ex.getReason());
     }
 }
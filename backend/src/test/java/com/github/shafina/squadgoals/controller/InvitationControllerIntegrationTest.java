@@ -5,11 +5,16 @@ import com.github.shafina.squadgoals.enums.InvitationStatus;
 import com.github.shafina.squadgoals.model.Goal;
 import com.github.shafina.squadgoals.model.Invitation;
 import com.github.shafina.squadgoals.model.User;
+import com.github.shafina.squadgoals.repository.GoalDTOQueriesStubs;
+import com.github.shafina.squadgoals.repository.GoalBroadcastRepository;
 import com.github.shafina.squadgoals.repository.GoalRepository;
 import com.github.shafina.squadgoals.repository.InvitationRepository;
+import com.github.shafina.squadgoals.repository.SquadMembershipRepository;
 import com.github.shafina.squadgoals.repository.TagRepository;
 import com.github.shafina.squadgoals.repository.UserRepository;
+import com.github.shafina.squadgoals.security.AuthenticatedUserResolver;
 import com.github.shafina.squadgoals.security.FirebaseAuthProvider;
+import com.github.shafina.squadgoals.service.BadgeCounters;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,7 +38,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, AuthenticatedUserResolver.class})
 @WebMvcTest(controllers = InvitationController.class)
 public class InvitationControllerIntegrationTest {
 
@@ -52,9 +57,21 @@ public class InvitationControllerIntegrationTest {
     @MockitoBean
     private InvitationRepository invitationRepository;
 
+    @MockitoBean
+    private GoalBroadcastRepository broadcastRepository;
+
+    @MockitoBean
+    private SquadMembershipRepository membershipRepository;
+
+    @MockitoBean
+    private BadgeCounters badgeCounters;
+
     @MockitoBean
     private FirebaseAuthProvider firebaseAuthProvider;
 
+    @Autowired
+    private AuthenticatedUserResolver authenticatedUserResolver;
+
     private User invitedUser;
     private User inviter;
     private Goal goal;
@@ -62,6 +79,9 @@ public class InvitationControllerIntegrationTest {
 
     @BeforeEach
     void setup() {
+        authenticatedUserResolver.clear();
+        GoalDTOQueriesStubs.mapInMemory(goalRepository);
+
         invitedUser = new User();
         invitedUser.setId(1L);
         invitedUser.setFirebaseUid("firebase-uid-1");
@@ -90,7 +110,7 @@ public class InvitationControllerIntegrationTest {
         Page<Invitation> invitationPage = new PageImpl<>(List.of(invitation), pageable, 1);
 
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(invitedUser));
-        when(invitationRepository.findAllByInvitedUserAndStatus(eq(invitedUser), eq(InvitationStatus.PENDING), any(Pageable.class)))
+        when(invitationRepository.findAllByInvitedUserIdAndStatus(eq(invitedUser.getId()), eq(InvitationStatus.PENDING), any(Pageable.class)))
                 .thenReturn(invitationPage);
 
         mockMvc.perform(get("/api/invitations?page=0&size=10"))
@@ -109,7 +129,7 @@ public class InvitationControllerIntegrationTest {
         Page<Invitation> invitationPage = new PageImpl<>(List.of(invitation), pageable, 1);
 
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(invitedUser));
-        when(invitationRepository.findAllByInvitedUserAndStatus(eq(invitedUser), eq(InvitationStatus.ACCEPTED), any(Pageable.class)))
+        when(invitationRepository.findAllByInvitedUserIdAndStatus(eq(invitedUser.getId()), eq(InvitationStatus.ACCEPTED), any(Pageable.class)))
                 .thenReturn(invitationPage);
 
         mockMvc.perform(get("/api/invitations?status=accepted&page=0&size=10"))
@@ -128,7 +148,7 @@ public class InvitationControllerIntegrationTest {
         Page<Invitation> invitationPage = new PageImpl<>(List.of(invitation), pageable, 1);
 
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(invitedUser));
-        when(invitationRepository.findAllByInvitedUserAndStatus(eq(invitedUser), eq(InvitationStatus.DECLINED), any(Pageable.class)))
+        when(invitationRepository.findAllByInvitedUserIdAndStatus(eq(invitedUser.getId()), eq(InvitationStatus.DECLINED), any(Pageable.class)))
                 .thenReturn(invitationPage);
 
         mockMvc.perform(get("/api/invitations?status=declined&page=0&size=10"))
@@ -145,7 +165,7 @@ public class InvitationControllerIntegrationTest {
         Page<Invitation> invitationPage = new PageImpl<>(Collections.emptyList(), pageable, 1);
 
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(invitedUser));
-        when(invitationRepository.findAllByInvitedUserAndStatus(invitedUser, InvitationStatus.PENDING, pageable))
+        when(invitationRepository.findAllByInvitedUserIdAndStatus(invitedUser.getId(), InvitationStatus.PENDING, pageable))
                 .thenReturn(invitationPage);
 
         mockMvc.perform(get("/api/invitations?page=0&size=10"))
@@ -167,7 +187,7 @@ public class InvitationControllerIntegrationTest {
     @Test
     @WithMockUser(username = "firebase-uid-1")
     void acceptInvitation_shouldReturnOk_whenSuccess() throws Exception {
-        when(invitationRepository.findById(100L)).thenReturn(Optional.of(invitation));
+        when(invitationRepository.findWithGoalSquadById(100L)).thenReturn(Optional.of(invitation));
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(invitedUser));
         when(invitationRepository.save(any(Invitation.class))).thenReturn(invitation);
         when(goalRepository.save(any(Goal.class))).thenReturn(goal);
@@ -179,7 +199,7 @@ public class InvitationControllerIntegrationTest {
     @Test
     @WithMockUser(username = "firebase-uid-2")
     void acceptInvitation_shouldReturnForbidden_whenNotInvitedUser() throws Exception {
-        when(invitationRepository.findById(100L)).thenReturn(Optional.of(invitation));
+        when(invitationRepository.findWithGoalSquadById(100L)).thenReturn(Optional.of(invitation));
         when(userRepository.findByFirebaseUid("firebase-uid-2")).thenReturn(Optional.of(inviter));
 
         mockMvc.perform(post("/api/invitations/100/accept"))
@@ -189,7 +209,7 @@ public class InvitationControllerIntegrationTest {
     @Test
     @WithMockUser(username = "firebase-uid-1")
     void acceptInvitation_shouldReturnNotFound_whenInvitationNotFound() throws Exception {
-        when(invitationRepository.findById(999L)).thenReturn(Optional.empty());
+        when(invitationRepository.findWithGoalSquadById(999L)).thenReturn(Optional.empty());
 
         mockMvc.perform(post("/api/invitations/999/accept"))
                 .andExpect(status().isNotFound());
@@ -198,7 +218,7 @@ public class InvitationControllerIntegrationTest {
     @Test
     @WithMockUser(username = "firebase-uid-1")
     void acceptInvitation_shouldReturnNotFound_whenUserNotFound() throws Exception {
-        when(invitationRepository.findById(100L)).thenReturn(Optional.of(invitation));
+        when(invitationRepository.findWithGoalSquadById(100L)).thenReturn(Optional.of(invitation));
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.empty());
 
         mockMvc.perform(post("/api/invitations/100/accept"))
@@ -209,7 +229,7 @@ public class InvitationControllerIntegrationTest {
     @WithMockUser(username = "firebase-uid-1")
     void acceptInvitation_shouldReturnOk_whenAlreadyAccepted() throws Exception {
         invitation.setStatus(InvitationStatus.ACCEPTED);
-        when(invitationRepository.findById(100L)).thenReturn(Optional.of(invitation));
+        when(invitationRepository.findWithGoalSquadById(100L)).thenReturn(Optional.of(invitation));
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(invitedUser));
 
         mockMvc.perform(post("/api/invitations/100/accept"))
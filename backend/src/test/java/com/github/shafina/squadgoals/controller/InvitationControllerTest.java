@@ -3,21 +3,28 @@ package com.github.shafina.squadgoals.controller;
 import com.github.shafina.squadgoals.dto.InvitationDTO;
 import com.github.shafina.squadgoals.dto.PaginatedResponse;
 import com.github.shafina.squadgoals.enums.InvitationStatus;
+import com.github.shafina.squadgoals.event.GoalSquadChangedEvent;
 import com.github.shafina.squadgoals.model.Goal;
 import com.github.shafina.squadgoals.model.Invitation;
+import com.github.shafina.squadgoals.model.SquadMembership;
 import com.github.shafina.squadgoals.model.User;
+import com.github.shafina.squadgoals.repository.GoalBroadcastRepository;
+import com.github.shafina.squadgoals.repository.GoalDTOQueriesStubs;
 import com.github.shafina.squadgoals.repository.GoalRepository;
 import com.github.shafina.squadgoals.repository.InvitationRepository;
-import com.github.shafina.squadgoals.repository.UserRepository;
+import com.github.shafina.squadgoals.repository.SquadMembershipRepository;
+import com.github.shafina.squadgoals.security.AuthenticatedUser;
+import com.github.shafina.squadgoals.service.BadgeCounters;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.HashSet;
@@ -31,17 +38,23 @@ class InvitationControllerTest {
 
     private InvitationRepository invitationRepository;
     private GoalRepository goalRepository;
-    private UserRepository userRepository;
+    private GoalBroadcastRepository broadcastRepository;
+    private SquadMembershipRepository membershipRepository;
+    private BadgeCounters badgeCounters;
+    private ApplicationEventPublisher eventPublisher;
     private InvitationController invitationController;
-    private Authentication authentication;
 
     @BeforeEach
     void setUp() {
         invitationRepository = mock(InvitationRepository.class);
         goalRepository = mock(GoalRepository.class);
-        userRepository = mock(UserRepository.class);
-        authentication = mock(Authentication.class);
-        invitationController = new InvitationController(invitationRepository, goalRepository, userRepository);
+        broadcastRepository = mock(GoalBroadcastRepository.class);
+        membershipRepository = mock(SquadMembershipRepository.class);
+        badgeCounters = mock(BadgeCounters.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        invitationController = new InvitationController(invitationRepository, goalRepository, broadcastRepository,
+                membershipRepository, badgeCounters, eventPublisher);
+        GoalDTOQueriesStubs.mapInMemory(goalRepository);
     }
 
     @Test
@@ -68,17 +81,15 @@ class InvitationControllerTest {
         invitation.setGoal(goal);
         invitation.setStatus(InvitationStatus.PENDING);
 
-        when(authentication.getName()).thenReturn(firebaseInvitedUid);
-        when(userRepository.findByFirebaseUid(firebaseInvitedUid)).thenReturn(Optional.of(invitedUser));
 
         Pageable pageable = PageRequest.of(0, 10);
         Page<Invitation> invitationPage = new PageImpl<>(List.of(invitation), pageable, 1);
 
-        when(invitationRepository.findAllByInvitedUserAndStatus(invitedUser, InvitationStatus.PENDING, pageable))
+        when(invitationRepository.findAllByInvitedUserIdAndStatus(invitedUser.getId(), InvitationStatus.PENDING, pageable))
                 .thenReturn(invitationPage);
 
         ResponseEntity<PaginatedResponse<InvitationDTO>> response = invitationController.getInvitations(
-                "pending", pageable, authentication);
+                "pending", pageable, AuthenticatedUser.from(invitedUser));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         PaginatedResponse<InvitationDTO> body = response.getBody();
@@ -112,17 +123,15 @@ class InvitationControllerTest {
         invitation.setGoal(goal);
         invitation.setStatus(InvitationStatus.ACCEPTED);
 
-        when(authentication.getName()).thenReturn(firebaseInvitedUid);
-        when(userRepository.findByFirebaseUid(firebaseInvitedUid)).thenReturn(Optional.of(invitedUser));
 
         Pageable pageable = PageRequest.of(0, 10);
         Page<Invitation> invitationPage = new PageImpl<>(List.of(invitation), pageable, 1);
 
-        when(invitationRepository.findAllByInvitedUserAndStatus(invitedUser, InvitationStatus.ACCEPTED, pageable))
+        when(invitationRepository.findAllByInvitedUserIdAndStatus(invitedUser.getId(), InvitationStatus.ACCEPTED, pageable))
                 .thenReturn(invitationPage);
 
         ResponseEntity<PaginatedResponse<InvitationDTO>> response = invitationController.getInvitations(
-                "accepted", pageable, authentication);
+                "accepted", pageable, AuthenticatedUser.from(invitedUser));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         PaginatedResponse<InvitationDTO> body = response.getBody();
@@ -156,17 +165,15 @@ class InvitationControllerTest {
         invitation.setGoal(goal);
         invitation.setStatus(InvitationStatus.DECLINED);
 
-        when(authentication.getName()).thenReturn(firebaseInvitedUid);
-        when(userRepository.findByFirebaseUid(firebaseInvitedUid)).thenReturn(Optional.of(invitedUser));
 
         Pageable pageable = PageRequest.of(0, 10);
         Page<Invitation> invitationPage = new PageImpl<>(List.of(invitation), pageable, 1);
 
-        when(invitationRepository.findAllByInvitedUserAndStatus(invitedUser, InvitationStatus.DECLINED, pageable))
+        when(invitationRepository.findAllByInvitedUserIdAndStatus(invitedUser.getId(), InvitationStatus.DECLINED, pageable))
                 .thenReturn(invitationPage);
 
         ResponseEntity<PaginatedResponse<InvitationDTO>> response = invitationController.getInvitations(
-                "declined", pageable, authentication);
+                "declined", pageable, AuthenticatedUser.from(invitedUser));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         PaginatedResponse<InvitationDTO> body = response.getBody();
@@ -176,18 +183,6 @@ class InvitationControllerTest {
         assertEquals(InvitationStatus.DECLINED, body.content().get(0).status());
     }
 
-    @Test
-    void getInvitations_userNotFound_throwsException() {
-        String firebaseUid = "uid123";
-
-        Pageable pageable = PageRequest.of(0, 10);
-
-        when(authentication.getName()).thenReturn(firebaseUid);
-        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.empty());
-
-        assertThrows(ResponseStatusException.class, () -> invitationController.getInvitations("pending", pageable, authentication));
-    }
-
     @Test
     void acceptInvitation_success() {
         Long invitationId = 1L;
@@ -206,17 +201,23 @@ class InvitationControllerTest {
         invitation.setGoal(goal);
         invitation.setStatus(InvitationStatus.PENDING);
 
-        when(invitationRepository.findById(invitationId)).thenReturn(Optional.of(invitation));
-        when(authentication.getName()).thenReturn(firebaseUid);
-        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(invitedUser));
+        when(invitationRepository.findWithGoalSquadById(invitationId)).thenReturn(Optional.of(invitation));
+        when(broadcastRepository.findLatestIdForGoal(5L)).thenReturn(Optional.of(40L));
 
-        ResponseEntity<Void> response = invitationController.acceptInvitation(invitationId, authentication);
+        ResponseEntity<Void> response = invitationController.acceptInvitation(invitationId, AuthenticatedUser.from(invitedUser));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(InvitationStatus.ACCEPTED, invitation.getStatus());
         assertTrue(goal.getSquad().contains(invitedUser));
         verify(invitationRepository).save(invitation);
         verify(goalRepository).save(goal);
+        verify(badgeCounters).adjustPending(invitedUser.getId(), -1);
+
+        ArgumentCaptor<SquadMembership> membership = ArgumentCaptor.forClass(SquadMembership.class);
+        verify(membershipRepository).save(membership.capture());
+        assertEquals(40L, membership.getValue().getJoinedAfterId());
+        verify(badgeCounters).invalidate(invitedUser.getId());
+        verify(eventPublisher).publishEvent(new GoalSquadChangedEvent(5L));
     }
 
     @Test
@@ -234,11 +235,9 @@ class InvitationControllerTest {
         invitation.setId(invitationId);
         invitation.setInvitedUser(invitedUser);
 
-        when(invitationRepository.findById(invitationId)).thenReturn(Optional.of(invitation));
-        when(authentication.getName()).thenReturn(firebaseUid);
-        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(authUser));
+        when(invitationRepository.findWithGoalSquadById(invitationId)).thenReturn(Optional.of(invitation));
 
-        ResponseEntity<Void> response = invitationController.acceptInvitation(invitationId, authentication);
+        ResponseEntity<Void> response = invitationController.acceptInvitation(invitationId, AuthenticatedUser.from(authUser));
 
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
@@ -246,8 +245,8 @@ class InvitationControllerTest {
     @Test
     void acceptInvitation_invitationNotFound() {
         Long invitationId = 1L;
-        when(invitationRepository.findById(invitationId)).thenReturn(Optional.empty());
-        assertThrows(ResponseStatusException.class, () -> invitationController.acceptInvitation(invitationId, authentication));
+        when(invitationRepository.findWithGoalSquadById(invitationId)).thenReturn(Optional.empty());
+        assertThrows(ResponseStatusException.class, () -> invitationController.acceptInvitation(invitationId, new AuthenticatedUser(2L, "uid123", null, null, null)));
     }
 
     @Test
@@ -264,14 +263,13 @@ class InvitationControllerTest {
         invitation.setStatus(InvitationStatus.PENDING);
 
         when(invitationRepository.findById(invitationId)).thenReturn(Optional.of(invitation));
-        when(authentication.getName()).thenReturn(firebaseUid);
-        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(invitedUser));
 
-        ResponseEntity<Void> response = invitationController.declineInvitation(invitationId, authentication);
+        ResponseEntity<Void> response = invitationController.declineInvitation(invitationId, AuthenticatedUser.from(invitedUser));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(InvitationStatus.DECLINED, invitation.getStatus());
         verify(invitationRepository).save(invitation);
+        verify(badgeCounters).adjustPending(invitedUser.getId(), -1);
     }
 
     @Test
@@ -290,10 +288,8 @@ class InvitationControllerTest {
         invitation.setInvitedUser(invitedUser);
 
         when(invitationRepository.findById(invitationId)).thenReturn(Optional.of(invitation));
-        when(authentication.getName()).thenReturn(firebaseUid);
-        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(authUser));
 
-        ResponseEntity<Void> response = invitationController.declineInvitation(invitationId, authentication);
+        ResponseEntity<Void> response = invitationController.declineInvitation(invitationId, AuthenticatedUser.from(authUser));
 
         assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
     }
@@ -302,6 +298,6 @@ class InvitationControllerTest {
     void declineInvitation_invitationNotFound() {
         Long invitationId = 1L;
         when(invitationRepository.findById(invitationId)).thenReturn(Optional.empty());
-        assertThrows(ResponseStatusException.class, () -> invitationController.declineInvitation(invitationId, authentication));
+        assertThrows(ResponseStatusException.class, () -> invitationController.declineInvitation(invitationId, new AuthenticatedUser(2L, "uid123", null, null, null)));
     }
 }
@@ -1,36 +1,53 @@
 package com.github.shafina.squadgoals.controller;
 
 import com.github.shafina.squadgoals.config.SecurityConfig;
+import com.github.shafina.squadgoals.dto.NotificationChanges;
+import com.github.shafina.squadgoals.dto.NotificationDTO;
 import com.github.shafina.squadgoals.enums.NotificationType;
 import com.github.shafina.squadgoals.model.Goal;
 import com.github.shafina.squadgoals.model.Notification;
 import com.github.shafina.squadgoals.model.User;
+import com.github.shafina.squadgoals.repository.GoalBroadcastReadRepository;
+import com.github.shafina.squadgoals.repository.GoalBroadcastRepository;
+import com.github.shafina.squadgoals.repository.NotificationReadStateRepository;
 import com.github.shafina.squadgoals.repository.NotificationRepository;
 import com.github.shafina.squadgoals.repository.UserRepository;
+import com.github.shafina.squadgoals.security.AuthenticatedUserResolver;
 import com.github.shafina.squadgoals.security.FirebaseAuthProvider;
+import com.github.shafina.squadgoals.service.BadgeCounters;
+import com.github.shafina.squadgoals.service.NotificationBroker;
+import com.github.shafina.squadgoals.service.NotificationChangeFeed;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.request.async.DeferredResult;
 
-import java.util.Arrays;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, AuthenticatedUserResolver.class})
 @WebMvcTest(controllers = NotificationController.class)
 public class NotificationControllerIntegrationTest {
 
@@ -43,15 +60,38 @@ public class NotificationControllerIntegrationTest {
     @MockitoBean
     private NotificationRepository notificationRepository;
 
+    @MockitoBean
+    private NotificationReadStateRepository readStateRepository;
+
+    @MockitoBean
+    private GoalBroadcastRepository broadcastRepository;
+
+    @MockitoBean
+    private GoalBroadcastReadRepository broadcastReadRepository;
+
+    @MockitoBean
+    private NotificationBroker notificationBroker;
+
+    @MockitoBean
+    private NotificationChangeFeed notificationChangeFeed;
+
+    @MockitoBean
+    private BadgeCounters badgeCounters;
+
     @MockitoBean
     private FirebaseAuthProvider firebaseAuthProvider;
 
+    @Autowired
+    private AuthenticatedUserResolver authenticatedUserResolver;
+
     private User user;
     private Notification notification;
     private Goal goal;
 
     @BeforeEach
     void setup() {
+        authenticatedUserResolver.clear();
+
         user = new User();
         user.setId(1L);
         user.setFirebaseUid("firebase-uid-1");
@@ -66,31 +106,32 @@ public class NotificationControllerIntegrationTest {
         notification.setGoal(goal);
         notification.setUser(user);
         notification.setRead(false);
+        notification.setGoalTitle(goal.getTitle());
     }
 
     @Test
     @WithMockUser(username = "firebase-uid-1")
     void getNotifications_shouldReturnNotifications() throws Exception {
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByUser(user)).thenReturn(List.of(notification));
+        when(notificationRepository.findInbox(eq(user.getId()), anyLong(), any())).thenReturn(List.of(inboxRow(notification)));
 
         mockMvc.perform(get("/api/notifications"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$[0].id").value(notification.getId()))
-                .andExpect(jsonPath("$[0].notificationType").value(NotificationType.SYSTEM.name()))
-                .andExpect(jsonPath("$[0].goalTitle").value(goal.getTitle()));
+                .andExpect(jsonPath("$.content[0].id").value(notification.getId()))
+                .andExpect(jsonPath("$.content[0].notificationType").value(NotificationType.SYSTEM.name()))
+                .andExpect(jsonPath("$.content[0].goalTitle").value(goal.getTitle()));
     }
 
     @Test
     @WithMockUser(username = "firebase-uid-1")
     void getNotifications_shouldReturnEmptyList_whenNoNotifications() throws Exception {
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByUser(user)).thenReturn(Collections.emptyList());
+        when(notificationRepository.findInbox(eq(user.getId()), anyLong(), any())).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/api/notifications"))
                 .andExpect(status().isOk())
-                .andExpect(content().json("[]"));
+                .andExpect(content().json("{\"content\":[]}"));
     }
 
     @Test
@@ -116,19 +157,20 @@ public class NotificationControllerIntegrationTest {
         notification2.setGoal(goal2);
         notification2.setRead(true);
         notification2.setCreatedAt(notification2.getCreatedAt().plusDays(1));
+        notification2.setGoalTitle(goal2.getTitle());
 
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByUser(user)).thenReturn(List.of(notification, notification2));
+        when(notificationRepository.findInbox(eq(user.getId()), anyLong(), any()))
+                .thenReturn(List.of(inboxRow(notification2), inboxRow(notification)));
 
-        mockMvc.perform(get("/api/notifications")
-                .param("recent", "true"))
+        mockMvc.perform(get("/api/notifications"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(notification2.getId()))
-                .andExpect(jsonPath("$[0].notificationType").value(NotificationType.INVITE.name()))
-                .andExpect(jsonPath("$[0].goalTitle").value(goal2.getTitle()))
-                .andExpect(jsonPath("$[1].id").value(notification.getId()))
-                .andExpect(jsonPath("$[1].notificationType").value(NotificationType.SYSTEM.name()))
-                .andExpect(jsonPath("$[1].goalTitle").value(goal.getTitle()));
+                .andExpect(jsonPath("$.content[0].id").value(notification2.getId()))
+                .andExpect(jsonPath("$.content[0].notificationType").value(NotificationType.INVITE.name()))
+                .andExpect(jsonPath("$.content[0].goalTitle").value(goal2.getTitle()))
+                .andExpect(jsonPath("$.content[1].id").value(notification.getId()))
+                .andExpect(jsonPath("$.content[1].notificationType").value(NotificationType.SYSTEM.name()))
+                .andExpect(jsonPath("$.content[1].goalTitle").value(goal.getTitle()));
     }
 
     @Test
@@ -136,11 +178,11 @@ public class NotificationControllerIntegrationTest {
     void getNotifications_shouldReturnUnreadStatus() throws Exception {
         notification.setRead(false);
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByUser(user)).thenReturn(List.of(notification));
+        when(notificationRepository.findInbox(eq(user.getId()), anyLong(), any())).thenReturn(List.of(inboxRow(notification)));
 
         mockMvc.perform(get("/api/notifications"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].read").value(false));
+                .andExpect(jsonPath("$.content[0].read").value(false));
     }
 
     @Test
@@ -148,11 +190,11 @@ public class NotificationControllerIntegrationTest {
     void getNotifications_shouldReturnReadStatus() throws Exception {
         notification.setRead(true);
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByUser(user)).thenReturn(List.of(notification));
+        when(notificationRepository.findInbox(eq(user.getId()), anyLong(), any())).thenReturn(List.of(inboxRow(notification)));
 
         mockMvc.perform(get("/api/notifications"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].read").value(true));
+                .andExpect(jsonPath("$.content[0].read").value(true));
     }
 
     @Test
@@ -160,18 +202,18 @@ public class NotificationControllerIntegrationTest {
     void getNotifications_shouldReturnCorrectId() throws Exception {
         notification.setId(555L);
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByUser(user)).thenReturn(List.of(notification));
+        when(notificationRepository.findInbox(eq(user.getId()), anyLong(), any())).thenReturn(List.of(inboxRow(notification)));
 
         mockMvc.perform(get("/api/notifications"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value(555L));
+                .andExpect(jsonPath("$.content[0].id").value(555L));
     }
 
     @Test
     @WithMockUser(username = "firebase-uid-1")
     void markAsRead_shouldMarkNotificationAsRead() throws Exception {
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByIdAndUser(notification.getId(), user)).thenReturn(Optional.of(notification));
+        when(notificationRepository.findByIdAndUserId(notification.getId(), user.getId())).thenReturn(Optional.of(notification));
 
         assertFalse(notification.isRead());
 
@@ -194,7 +236,7 @@ public class NotificationControllerIntegrationTest {
     @WithMockUser(username = "firebase-uid-1")
     void markAsRead_shouldReturnNotFound_whenNotificationNotFound() throws Exception {
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByIdAndUser(notification.getId(), user)).thenReturn(Optional.empty());
+        when(notificationRepository.findByIdAndUserId(notification.getId(), user.getId())).thenReturn(Optional.empty());
 
         mockMvc.perform(patch("/api/notifications/" + notification.getId() + "/read"))
                 .andExpect(status().isNotFound());
@@ -203,24 +245,39 @@ public class NotificationControllerIntegrationTest {
     @Test
     @WithMockUser(username = "firebase-uid-1")
     void markAllAsRead_shouldMarkAllUnreadNotificationsAsRead() throws Exception {
-        Notification notification2 = new Notification();
-        notification2.setId(2L);
-        notification2.setRead(false);
+        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
+        when(notificationRepository.findLatestId(user.getId())).thenReturn(Optional.of(250L));
+        when(readStateRepository.advance(user.getId(), 200L)).thenReturn(1);
+
+        mockMvc.perform(patch("/api/notifications/mark-all-read")
+                        .param("upTo", "200"))
+                .andExpect(status().isNoContent());
 
-        List<Notification> unreadNotifications = Arrays.asList(notification, notification2);
+        verify(readStateRepository).advance(user.getId(), 200L);
+    }
 
+    @Test
+    @WithMockUser(username = "firebase-uid-1")
+    void markSelectedAsRead_shouldMarkGivenIds() throws Exception {
         when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByIdAndUser(notification.getId(), user)).thenReturn(Optional.of(notification));
-        when(notificationRepository.findAllByUserAndReadFalse(user)).thenReturn(unreadNotifications);
+        when(notificationRepository.markAsRead(user.getId(), List.of(101L, 102L), 0L)).thenReturn(1);
 
-        assertFalse(notification.isRead());
-        assertFalse(notification2.isRead());
+        mockMvc.perform(patch("/api/notifications/read")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [101, 102]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1));
+    }
 
-        mockMvc.perform(patch("/api/notifications/mark-all-read"))
-                .andExpect(status().isNoContent());
+    @Test
+    @WithMockUser(username = "firebase-uid-1")
+    void markSelectedAsRead_shouldReturnBadRequest_whenIdsEmpty() throws Exception {
+        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
 
-        assertTrue(notification.isRead());
-        assertTrue(notification2.isRead());
+        mockMvc.perform(patch("/api/notifications/read")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": []}"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -231,4 +288,48 @@ public class NotificationControllerIntegrationTest {
         mockMvc.perform(patch("/api/notifications/mark-all-read"))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "firebase-uid-1")
+    void getChanges_shouldAnswerOnceTheParkedPollCompletes() throws Exception {
+        DeferredResult<ResponseEntity<NotificationChanges>> parked = new DeferredResult<>();
+        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
+        when(notificationChangeFeed.poll(user.getId(), 100L, 90L, 2L, Duration.ofSeconds(20)))
+                .thenReturn(parked);
+
+        MvcResult pending = mockMvc.perform(get("/api/notifications/changes")
+                        .param("since", "100")
+                        .param("readUpTo", "90")
+                        .param("unread", "2")
+                        .param("wait", "20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        parked.setResult(ResponseEntity.ok(new NotificationChanges(List.of(inboxRow(notification)),
+                false, 0L, 1L)));
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notifications[0].id").value(notification.getId()))
+                .andExpect(jsonPath("$.unread").value(1));
+    }
+
+    @Test
+    @WithMockUser(username = "firebase-uid-1")
+    void getChanges_shouldReturnBadRequest_whenWaitIsNegative() throws Exception {
+        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
+
+        mockMvc.perform(get("/api/notifications/changes")
+                        .param("since", "100")
+                        .param("wait", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Builds the row {@code NotificationRepository.INBOX_ROW} selects for a notification with no read watermark.
+     */
+    private static NotificationDTO inboxRow(Notification notification) {
+        return new NotificationDTO(notification.getId(), notification.getNotificationType(), notification.isRead(),
+                notification.getCreatedAt(), notification.getSenderName(), notification.getGoalTitle());
+    }
+}
@@ -1,20 +1,34 @@
 package com.github.shafina.squadgoals.controller;
 
+import com.github.shafina.squadgoals.dto.CursorPage;
+import com.github.shafina.squadgoals.dto.MarkReadRequest;
+import com.github.shafina.squadgoals.dto.MarkReadResult;
 import com.github.shafina.squadgoals.dto.NotificationDTO;
+import com.github.shafina.squadgoals.dto.UnreadCount;
 import com.github.shafina.squadgoals.enums.NotificationType;
 import com.github.shafina.squadgoals.model.Goal;
+import com.github.shafina.squadgoals.model.GoalBroadcast;
 import com.github.shafina.squadgoals.model.Notification;
 import com.github.shafina.squadgoals.model.User;
+import com.github.shafina.squadgoals.repository.GoalBroadcastReadRepository;
+import com.github.shafina.squadgoals.repository.GoalBroadcastRepository;
+import com.github.shafina.squadgoals.repository.NotificationReadStateRepository;
 import com.github.shafina.squadgoals.repository.NotificationRepository;
-import com.github.shafina.squadgoals.repository.UserRepository;
+import com.github.shafina.squadgoals.security.AuthenticatedUser;
+import com.github.shafina.squadgoals.service.BadgeCounters;
+import com.github.shafina.squadgoals.service.NotificationBroker;
+import com.github.shafina.squadgoals.service.NotificationChangeFeed;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.Arrays;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -25,22 +39,33 @@ import static org.mockito.Mockito.*;
 public class NotificationControllerTest {
 
     private NotificationRepository notificationRepository;
-    private UserRepository userRepository;
+    private NotificationReadStateRepository readStateRepository;
+    private GoalBroadcastRepository broadcastRepository;
+    private GoalBroadcastReadRepository broadcastReadRepository;
+    private NotificationBroker notificationBroker;
+    private NotificationChangeFeed notificationChangeFeed;
+    private BadgeCounters badgeCounters;
     private NotificationController notificationController;
-    private Authentication authentication;
     private User user;
+    private AuthenticatedUser currentUser;
     private Notification notification;
 
     @BeforeEach
     void setUp() {
         notificationRepository = mock(NotificationRepository.class);
-        userRepository = mock(UserRepository.class);
-        authentication = mock(Authentication.class);
-        notificationController = new NotificationController(notificationRepository, userRepository);
+        readStateRepository = mock(NotificationReadStateRepository.class);
+        broadcastRepository = mock(GoalBroadcastRepository.class);
+        broadcastReadRepository = mock(GoalBroadcastReadRepository.class);
+        notificationBroker = mock(NotificationBroker.class);
+        notificationChangeFeed = mock(NotificationChangeFeed.class);
+        badgeCounters = mock(BadgeCounters.class);
+        notificationController = new NotificationController(notificationRepository, readStateRepository,
+                broadcastRepository, broadcastReadRepository, notificationBroker, notificationChangeFeed, badgeCounters);
 
         user = new User();
         user.setId(1L);
         user.setFirebaseUid("firebase-uid-1");
+        currentUser = AuthenticatedUser.from(user);
 
         Goal goal = new Goal();
         goal.setId(1L);
@@ -52,50 +77,84 @@ public class NotificationControllerTest {
         notification.setUser(user);
         notification.setGoal(goal);
         notification.setRead(false);
+        notification.setGoalTitle(goal.getTitle());
     }
 
     @Test
     void getUserNotifications_shouldReturnNotifications() {
-        when(authentication.getName()).thenReturn("firebase-uid-1");
-        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByUser(user)).thenReturn(List.of(notification));
+        when(notificationRepository.findInbox(user.getId(), 0L, Limit.of(11)))
+                .thenReturn(List.of(inboxRow(notification)));
 
-        ResponseEntity<List<NotificationDTO>> response = notificationController.getUserNotifications(true, 10, authentication);
+        ResponseEntity<CursorPage<NotificationDTO>> response = notificationController.getUserNotifications(null, 10, currentUser);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        List<NotificationDTO> body = response.getBody();
+        List<NotificationDTO> body = response.getBody().content();
         assertNotNull(body);
         assertEquals(1, body.size());
         NotificationDTO dto = body.get(0);
         assertEquals(notification.getId(), dto.id());
-        assertEquals(notification.getUser().getName(), dto.senderName());
+        assertEquals(notification.getSenderName(), dto.senderName());
         assertEquals(notification.getGoal().getTitle(), dto.goalTitle());
     }
 
     @Test
-    void getUserNotifications_shouldReturnEmptyList_whenNoNotifications() {
-        when(authentication.getName()).thenReturn("firebase-uid-1");
-        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByUser(user)).thenReturn(Collections.emptyList());
+    void getUserNotifications_shouldMergeGoalBroadcastsNewestFirst() {
+        GoalBroadcast broadcast = new GoalBroadcast(notification.getGoal(), NotificationType.SYSTEM, LocalDate.now());
+        broadcast.setId(150L);
+        broadcast.setCreatedAt(notification.getCreatedAt().plusHours(1));
+        GoalBroadcast readBroadcast = new GoalBroadcast(notification.getGoal(), NotificationType.SYSTEM,
+                LocalDate.now().minusDays(1));
+        readBroadcast.setId(90L);
+        readBroadcast.setCreatedAt(notification.getCreatedAt().minusDays(1));
+
+        when(notificationRepository.findInbox(user.getId(), 0L, Limit.of(2)))
+                .thenReturn(List.of(inboxRow(notification)));
+        when(broadcastRepository.findInbox(user.getId(), 0L, Limit.of(2)))
+                .thenReturn(List.of(inboxRow(broadcast, false), inboxRow(readBroadcast, true)));
+
+        CursorPage<NotificationDTO> page = notificationController.getUserNotifications(null, 1, currentUser).getBody();
+
+        assertEquals(List.of(150L), page.content().stream().map(NotificationDTO::id).toList());
+        assertFalse(page.content().get(0).read());
+        assertNotNull(page.nextCursor());
+    }
 
-        ResponseEntity<List<NotificationDTO>> response = notificationController.getUserNotifications(true, 10, authentication);
+    @Test
+    void markAsRead_shouldRecordReadMarker_forVisibleBroadcast() {
+        when(notificationRepository.findByIdAndUserId(150L, user.getId())).thenReturn(Optional.empty());
+        when(broadcastRepository.findVisibleIds(user.getId(), List.of(150L))).thenReturn(List.of(150L));
+        when(broadcastReadRepository.insertIfAbsent(user.getId(), 150L)).thenReturn(1);
 
-        assertEquals(HttpStatus.OK, response.getStatusCode());
-        List<NotificationDTO> body = response.getBody();
-        assertNotNull(body);
-        assertTrue(body.isEmpty());
+        ResponseEntity<Void> response = notificationController.markAsRead(150L, currentUser);
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(broadcastReadRepository).insertIfAbsent(user.getId(), 150L);
+        verify(badgeCounters).adjustUnread(user.getId(), -1);
     }
 
     @Test
-    void getUserNotifications_shouldThrowNotFound_whenUserNotFound() {
-        when(authentication.getName()).thenReturn("firebase-uid-1");
-        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.empty());
+    void markAsRead_shouldNotFail_whenAConcurrentCallRecordedTheBroadcastReadFirst() {
+        when(notificationRepository.findByIdAndUserId(150L, user.getId())).thenReturn(Optional.empty());
+        when(broadcastRepository.findVisibleIds(user.getId(), List.of(150L))).thenReturn(List.of(150L));
+        when(broadcastReadRepository.insertIfAbsent(user.getId(), 150L))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
 
-        ResponseStatusException exception = assertThrows(
-                ResponseStatusException.class,
-                () -> notificationController.getUserNotifications(true, 10, authentication));
-        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
-        assertEquals("User not found", exception.getReason());
+        ResponseEntity<Void> response = notificationController.markAsRead(150L, currentUser);
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(badgeCounters, never()).adjustUnread(any(), anyLong());
+    }
+
+    @Test
+    void getUserNotifications_shouldReturnEmptyList_whenNoNotifications() {
+        when(notificationRepository.findInbox(user.getId(), 0L, Limit.of(11))).thenReturn(Collections.emptyList());
+
+        ResponseEntity<CursorPage<NotificationDTO>> response = notificationController.getUserNotifications(null, 10, currentUser);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<NotificationDTO> body = response.getBody().content();
+        assertNotNull(body);
+        assertTrue(body.isEmpty());
     }
 
     @Test
@@ -111,15 +170,16 @@ public class NotificationControllerTest {
         notification2.setGoal(goal2);
         notification2.setRead(true);
         notification2.setCreatedAt(notification2.getCreatedAt().plusDays(1));
+        notification2.setSenderName("Sender");
+        notification2.setGoalTitle(goal2.getTitle());
 
-        when(authentication.getName()).thenReturn("firebase-uid-1");
-        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByUser(user)).thenReturn(List.of(notification, notification2));
+        when(notificationRepository.findInbox(user.getId(), 0L, Limit.of(11)))
+                .thenReturn(List.of(inboxRow(notification2), inboxRow(notification)));
 
-        ResponseEntity<List<NotificationDTO>> response = notificationController.getUserNotifications(true, 10, authentication);
+        ResponseEntity<CursorPage<NotificationDTO>> response = notificationController.getUserNotifications(null, 10, currentUser);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        List<NotificationDTO> body = response.getBody();
+        List<NotificationDTO> body = response.getBody().content();
 
         assertNotNull(body);
         assertEquals(2, body.size());
@@ -128,114 +188,233 @@ public class NotificationControllerTest {
         NotificationDTO dto2 = body.get(1);
 
         assertEquals(notification2.getId(), dto1.id());
-        assertEquals(notification2.getUser().getName(), dto1.senderName());
+        assertEquals("Sender", dto1.senderName());
+        assertEquals(goal2.getTitle(), dto1.goalTitle());
 
         assertEquals(notification.getId(), dto2.id());
-        assertEquals(notification.getUser().getName(), dto2.senderName());
+        assertEquals(notification.getSenderName(), dto2.senderName());
+    }
+
+    @Test
+    void getUserNotifications_shouldReturnNextCursor_whenMoreNotificationsExist() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 10, 0, 30);
+        List<NotificationDTO> rows = new ArrayList<>();
+        for (long id = 3; id >= 1; id--) {
+            rows.add(new NotificationDTO(id, NotificationType.SYSTEM, false, createdAt.minusMinutes(3 - id), null,
+                    notification.getGoalTitle()));
+        }
+
+        when(notificationRepository.findInbox(user.getId(), 0L, Limit.of(3))).thenReturn(rows);
+
+        CursorPage<NotificationDTO> page = notificationController.getUserNotifications(null, 2, currentUser).getBody();
+
+        assertNotNull(page);
+        assertEquals(List.of(3L, 2L), page.content().stream().map(NotificationDTO::id).toList());
+        assertEquals("2025-01-01T09:59:30,2", page.nextCursor());
+    }
+
+    @Test
+    void getUserNotifications_shouldSeekPastCursor_whenBeforeProvided() {
+        when(notificationRepository.findInboxBefore(user.getId(), 0L, LocalDateTime.of(2025, 1, 1, 9, 59, 30), 2L,
+                Limit.of(3))).thenReturn(List.of());
+
+        CursorPage<NotificationDTO> page = notificationController
+                .getUserNotifications("2025-01-01T09:59:30,2", 2, currentUser).getBody();
+
+        assertNotNull(page);
+        assertTrue(page.content().isEmpty());
+        assertNull(page.nextCursor());
+        verify(notificationRepository, never()).findInbox(any(), anyLong(), any());
+    }
+
+    @Test
+    void getUserNotifications_shouldCapLimit() {
+        when(notificationRepository.findInbox(user.getId(), 0L, Limit.of(51))).thenReturn(List.of());
+
+        notificationController.getUserNotifications(null, 1000, currentUser);
+
+        verify(notificationRepository).findInbox(user.getId(), 0L, Limit.of(51));
+    }
+
+    @Test
+    void getUserNotifications_shouldReturnBadRequest_whenLimitIsLessThanOne() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> notificationController.getUserNotifications(null, 0, currentUser));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(notificationRepository);
     }
 
     @Test
     void markAsRead_shouldMarkNotificationAsRead() {
         notification.setRead(false);
 
-        when(authentication.getName()).thenReturn("firebase-uid-1");
-        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByIdAndUser(notification.getId(), user)).thenReturn(Optional.of(notification));
+        when(notificationRepository.findByIdAndUserId(notification.getId(), user.getId())).thenReturn(Optional.of(notification));
 
-        ResponseEntity<Void> response = notificationController.markAsRead(notification.getId(), authentication);
+        ResponseEntity<Void> response = notificationController.markAsRead(notification.getId(), currentUser);
 
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
         assertNull(response.getBody());
 
         assertTrue(notification.isRead());
         verify(notificationRepository).save(notification);
+        verify(badgeCounters).adjustUnread(user.getId(), -1);
     }
 
     @Test
     void markAsRead_shouldNotCallSave_whenAlreadyRead() {
         notification.setRead(true);
 
-        when(authentication.getName()).thenReturn("firebase-uid-1");
-        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByIdAndUser(notification.getId(), user)).thenReturn(Optional.of(notification));
+        when(notificationRepository.findByIdAndUserId(notification.getId(), user.getId())).thenReturn(Optional.of(notification));
 
-        ResponseEntity<Void> response = notificationController.markAsRead(notification.getId(), authentication);
+        ResponseEntity<Void> response = notificationController.markAsRead(notification.getId(), currentUser);
 
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
         verify(notificationRepository, never()).save(any());
     }
 
     @Test
-    void markAsRead_shouldThrowNotFound_whenUserNotFound() {
-        when(authentication.getName()).thenReturn("firebase-uid-1");
-        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.empty());
+    void markAsRead_shouldThrowNotFound_whenNotificationNotFound() {
+        when(notificationRepository.findByIdAndUserId(notification.getId(), user.getId())).thenReturn(Optional.empty());
 
         ResponseStatusException exception = assertThrows(
                 ResponseStatusException.class,
-                () -> notificationController.markAsRead(notification.getId(), authentication));
+                () -> notificationController.markAsRead(notification.getId(), currentUser));
 
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
-        assertEquals("User not found", exception.getReason());
+        assertEquals("Notification not found", exception.getReason());
     }
 
     @Test
-    void markAsRead_shouldThrowNotFound_whenNotificationNotFound() {
-        when(authentication.getName()).thenReturn("firebase-uid-1");
-        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findByIdAndUser(notification.getId(), user)).thenReturn(Optional.empty());
+    void getUserNotifications_shouldPassWatermarkToInboxQueries() {
+        when(readStateRepository.findReadUpToId(user.getId())).thenReturn(Optional.of(101L));
 
-        ResponseStatusException exception = assertThrows(
-                ResponseStatusException.class,
-                () -> notificationController.markAsRead(notification.getId(), authentication));
+        notificationController.getUserNotifications(null, 10, currentUser);
 
-        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
-        assertEquals("Notification not found", exception.getReason());
+        verify(notificationRepository).findInbox(user.getId(), 101L, Limit.of(11));
+        verify(broadcastRepository).findInbox(user.getId(), 101L, Limit.of(11));
     }
 
     @Test
-    void markAllAsRead_shouldMarkAllUnreadNotificationsAsRead() {
-        Notification notification2 = new Notification();
-        notification2.setId(2L);
-        notification2.setRead(false);
+    void getUnreadCount_shouldCountAboveWatermark() {
+        when(readStateRepository.findReadUpToId(user.getId())).thenReturn(Optional.of(40L));
+        when(notificationRepository.countUnread(user.getId(), 40L)).thenReturn(7L);
+
+        assertEquals(new UnreadCount(7), notificationController.getUnreadCount(currentUser).getBody());
+    }
+
+    @Test
+    void markAsRead_shouldNotCallSave_whenBelowWatermark() {
+        when(readStateRepository.findReadUpToId(user.getId())).thenReturn(Optional.of(notification.getId()));
+        when(notificationRepository.findByIdAndUserId(notification.getId(), user.getId())).thenReturn(Optional.of(notification));
+
+        notificationController.markAsRead(notification.getId(), currentUser);
 
-        List<Notification> unreadNotifications = Arrays.asList(notification, notification2);
+        verify(notificationRepository, never()).save(any());
+    }
 
-        when(authentication.getName()).thenReturn("firebase-uid-1");
-        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findAllByUserAndReadFalse(user)).thenReturn(unreadNotifications);
+    @Test
+    void markAllAsRead_shouldAdvanceWatermarkWithoutTouchingNotifications() {
+        when(notificationRepository.findLatestId(user.getId())).thenReturn(Optional.of(600L));
+        when(readStateRepository.advance(user.getId(), 500L)).thenReturn(1);
 
-        ResponseEntity<Void> response = notificationController.markAllAsRead(authentication);
+        ResponseEntity<Void> response = notificationController.markAllAsRead(500L, currentUser);
 
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
-        assertTrue(notification.isRead());
-        assertTrue(notification2.isRead());
-        verify(notificationRepository).saveAll(unreadNotifications);
+        verify(readStateRepository, never()).insertIfAbsent(any(), anyLong());
+        verify(notificationRepository, never()).saveAll(any());
     }
 
     @Test
-    void markAllAsRead_shouldThrowNotFound_whenUserNotFound() {
-        when(authentication.getName()).thenReturn("invalid-uid");
-        when(userRepository.findByFirebaseUid("invalid-uid")).thenReturn(Optional.empty());
+    void markAllAsRead_shouldCreateWatermark_whenUserHasNone() {
+        when(notificationRepository.findLatestId(user.getId())).thenReturn(Optional.of(300L));
+        when(readStateRepository.advance(user.getId(), 300L)).thenReturn(0);
 
-        ResponseStatusException exception = assertThrows(
-                ResponseStatusException.class,
-                () -> notificationController.markAllAsRead(authentication)
-        );
+        notificationController.markAllAsRead(null, currentUser);
 
-        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
-        assertEquals("User not found", exception.getReason());
+        verify(readStateRepository).insertIfAbsent(user.getId(), 300L);
     }
 
     @Test
-    void markAllAsRead_shouldDoNothing_whenNoUnreadNotifications() {
-        when(authentication.getName()).thenReturn("firebase-uid-1");
-        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
-        when(notificationRepository.findAllByUserAndReadFalse(user)).thenReturn(Collections.emptyList());
+    void markAllAsRead_shouldAdvanceTheWatermarkACompetingFirstCallCreated() {
+        when(notificationRepository.findLatestId(user.getId())).thenReturn(Optional.of(300L));
+        when(readStateRepository.advance(user.getId(), 300L)).thenReturn(0, 1);
+        when(readStateRepository.insertIfAbsent(user.getId(), 300L))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
 
-        ResponseEntity<Void> response = notificationController.markAllAsRead(authentication);
+        ResponseEntity<Void> response = notificationController.markAllAsRead(null, currentUser);
 
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(readStateRepository, times(2)).advance(user.getId(), 300L);
+    }
 
-        verify(notificationRepository, never()).saveAll(any());
+    @Test
+    void markAllAsRead_shouldCapUpToAtTheNewestVisibleNotification() {
+        when(notificationRepository.findLatestId(user.getId())).thenReturn(Optional.of(300L));
+        when(readStateRepository.advance(user.getId(), 300L)).thenReturn(1);
+
+        notificationController.markAllAsRead(Long.MAX_VALUE, currentUser);
+
+        verify(readStateRepository).advance(user.getId(), 300L);
+        verify(readStateRepository, never()).advance(user.getId(), Long.MAX_VALUE);
+    }
+
+    @Test
+    void markAllAsRead_shouldCoverBroadcastsAboveTheLatestNotification() {
+        when(notificationRepository.findLatestId(user.getId())).thenReturn(Optional.of(300L));
+        when(broadcastRepository.findLatestId(user.getId())).thenReturn(Optional.of(350L));
+        when(readStateRepository.advance(user.getId(), 350L)).thenReturn(1);
+
+        notificationController.markAllAsRead(null, currentUser);
+
+        verify(readStateRepository).advance(user.getId(), 350L);
+    }
+
+    @Test
+    void markAllAsRead_shouldNotMoveWatermarkBack() {
+        when(notificationRepository.findLatestId(user.getId())).thenReturn(Optional.of(300L));
+        when(readStateRepository.advance(user.getId(), 10L)).thenReturn(0);
+
+        notificationController.markAllAsRead(10L, currentUser);
+
+        verify(readStateRepository, never()).save(any());
+    }
+
+    @Test
+    void markAllAsRead_shouldDoNothing_whenUserHasNoNotifications() {
+        when(notificationRepository.findLatestId(user.getId())).thenReturn(Optional.empty());
+
+        notificationController.markAllAsRead(null, currentUser);
+
+        verifyNoInteractions(readStateRepository);
+    }
+
+    @Test
+    void markSelectedAsRead_shouldMarkOnlyGivenIds() {
+        MarkReadRequest request = new MarkReadRequest();
+        request.setIds(List.of(101L, 102L));
+
+        when(notificationRepository.markAsRead(user.getId(), List.of(101L, 102L), 0L)).thenReturn(2);
+
+        ResponseEntity<MarkReadResult> response = notificationController.markSelectedAsRead(request, currentUser);
+
+        assertEquals(new MarkReadResult(2), response.getBody());
+        verify(badgeCounters).adjustUnread(user.getId(), -2);
+    }
+
+    /**
+     * Builds the row {@code NotificationRepository.INBOX_ROW} selects for a notification with no read watermark.
+     */
+    private static NotificationDTO inboxRow(Notification notification) {
+        return new NotificationDTO(notification.getId(), notification.getNotificationType(), notification.isRead(),
+                notification.getCreatedAt(), notification.getSenderName(), notification.getGoalTitle());
+    }
+
+    /**
+     * Builds the row {@code GoalBroadcastRepository.INBOX_ROW} selects for a broadcast in one member's inbox.
+     */
+    private static NotificationDTO inboxRow(GoalBroadcast broadcast, boolean read) {
+        return new NotificationDTO(broadcast.getId(), broadcast.getNotificationType(), read,
+                broadcast.getCreatedAt(), null, broadcast.getGoal().getTitle());
     }
 }
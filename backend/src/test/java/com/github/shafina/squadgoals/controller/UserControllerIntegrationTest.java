@@ -5,7 +5,9 @@ import com.github.shafina.squadgoals.config.SecurityConfig;
 import com.github.shafina.squadgoals.dto.CreateUserRequest;
 import com.github.shafina.squadgoals.model.User;
 import com.github.shafina.squadgoals.repository.UserRepository;
+import com.github.shafina.squadgoals.security.AuthenticatedUserResolver;
 import com.github.shafina.squadgoals.security.FirebaseAuthProvider;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -28,7 +30,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, AuthenticatedUserResolver.class})
 @WebMvcTest(controllers = UserController.class)
 public class UserControllerIntegrationTest {
 
@@ -44,6 +46,14 @@ public class UserControllerIntegrationTest {
     @MockitoBean
     private FirebaseAuthProvider firebaseAuthProvider;
 
+    @Autowired
+    private AuthenticatedUserResolver authenticatedUserResolver;
+
+    @BeforeEach
+    void clearUserCache() {
+        authenticatedUserResolver.clear();
+    }
+
     @Test
     void createUser_shouldReturnConflict_ifUserExists() throws Exception {
         String firebaseUid = "existing-firebase-uid";
@@ -126,6 +136,12 @@ public class UserControllerIntegrationTest {
     @Test
     @WithMockUser
     void searchUsers_shouldReturnBadRequest_whenLimitIsLessThanOne() throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setFirebaseUid("user");
+
+        when(userRepository.findByFirebaseUid("user")).thenReturn(Optional.of(user));
+
         mockMvc.perform(get("/api/users/search")
                         .param("query", "test")
                         .param("limit", "0"))
@@ -4,6 +4,7 @@ import com.github.shafina.squadgoals.dto.CreateUserRequest;
 import com.github.shafina.squadgoals.dto.UserDTO;
 import com.github.shafina.squadgoals.model.User;
 import com.github.shafina.squadgoals.repository.UserRepository;
+import com.github.shafina.squadgoals.security.AuthenticatedUser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -25,11 +26,13 @@ class UserControllerTest {
     private UserRepository userRepository;
     private UserController userController;
     private Authentication authentication;
+    private AuthenticatedUser currentUser;
 
     @BeforeEach
     void setUp() {
         userRepository = mock(UserRepository.class);
         authentication = mock(Authentication.class);
+        currentUser = new AuthenticatedUser(1L, "firebaseUid", null, null, null);
         userController = new UserController(userRepository);
     }
 
@@ -79,9 +82,8 @@ class UserControllerTest {
 
     @Test
     void searchUsers_shouldReturnBadRequest_whenQueryIsTooShort() {
-        when(authentication.getName()).thenReturn("firebaseUid");
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
-                () -> userController.searchUsers("a", 5, authentication));
+                () -> userController.searchUsers("a", 5, currentUser));
         assertEquals(400, exception.getStatusCode().value());
         assertNotNull(exception.getReason());
         assertTrue(exception.getReason().contains("at least 2 characters"));
@@ -89,36 +91,22 @@ class UserControllerTest {
 
     @Test
     void searchUsers_shouldReturnBadRequest_whenLimitIsLessThanOne() {
-        when(authentication.getName()).thenReturn("firebaseUid");
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
-                () -> userController.searchUsers("test", 0, authentication));
+                () -> userController.searchUsers("test", 0, currentUser));
         assertEquals(400, exception.getStatusCode().value());
         assertNotNull(exception.getReason());
         assertTrue(exception.getReason().contains("Limit cannot be less than 1"));
     }
 
-    @Test
-    void searchUsers_shouldReturnNotFound_whenAuthUserNotFound() {
-        when(authentication.getName()).thenReturn("firebaseUid");
-        when(userRepository.findByFirebaseUid("firebaseUid")).thenReturn(Optional.empty());
-        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
-                () -> userController.searchUsers("test", 2, authentication));
-        assertEquals(404, exception.getStatusCode().value());
-        assertNotNull(exception.getReason());
-        assertTrue(exception.getReason().contains("User not found"));
-    }
-
     @Test
     void searchUsers_shouldReturnEmptyList_whenNoUsersFound() {
         String firebaseUid = "firebaseUid";
         User authUser = new User();
         authUser.setId(1L);
-        when(authentication.getName()).thenReturn(firebaseUid);
-        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(authUser));
         when(userRepository.searchUsersExcludingCurrent("notfound", 1L, PageRequest.of(0, 5)))
                 .thenReturn(List.of());
 
-        ResponseEntity<List<UserDTO>> response = userController.searchUsers("notfound", 5, authentication);
+        ResponseEntity<List<UserDTO>> response = userController.searchUsers("notfound", 5, AuthenticatedUser.from(authUser));
 
         assertEquals(200, response.getStatusCode().value());
         assertNotNull(response.getBody());
@@ -142,12 +130,10 @@ class UserControllerTest {
 
         List<User> users = List.of(user2);
 
-        when(authentication.getName()).thenReturn(firebaseUid);
-        when(userRepository.findByFirebaseUid(firebaseUid)).thenReturn(Optional.of(authUser));
         when(userRepository.searchUsersExcludingCurrent("example", 1L, PageRequest.of(0, 5)))
                 .thenReturn(users);
 
-        ResponseEntity<List<UserDTO>> response = userController.searchUsers("example", 5, authentication);
+        ResponseEntity<List<UserDTO>> response = userController.searchUsers("example", 5, AuthenticatedUser.from(authUser));
 
         assertEquals(200, response.getStatusCode().value());
         assertNotNull(response.getBody());
@@ -0,0 +1,190 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.dto.GoalDTO;
+import com.github.shafina.squadgoals.dto.NotificationDTO;
+import com.github.shafina.squadgoals.enums.Frequency;
+import com.github.shafina.squadgoals.enums.NotificationType;
+import com.github.shafina.squadgoals.model.Goal;
+import com.github.shafina.squadgoals.model.Invitation;
+import com.github.shafina.squadgoals.model.Notification;
+import com.github.shafina.squadgoals.model.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that each endpoint's fetch plan loads what its DTO needs in a fixed number of statements, and that
+ * associations outside the plan stay unloaded.
+ */
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class FetchPlansTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private GoalBroadcastRepository goalBroadcastRepository;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    private Statistics statistics;
+    private User recipient;
+    private Goal firstGoal;
+    private Invitation firstInvitation;
+    private Notification firstNotification;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        recipient = user("recipient");
+
+        for (int i = 0; i < 10; i++) {
+            User creator = user("creator-" + i);
+
+            Goal goal = new Goal();
+            goal.setTitle("Goal " + i);
+            goal.setCreatedBy(creator);
+            goal.setFrequency(Frequency.DAILY);
+            goal.setNextDueAt(LocalDateTime.now().minusHours(1));
+            goal.setSquad(Set.of(creator, user("member-" + i)));
+            entityManager.persist(goal);
+
+            Invitation invitation = new Invitation();
+            invitation.setGoal(goal);
+            invitation.setInviter(creator);
+            invitation.setInvitedUser(recipient);
+            entityManager.persist(invitation);
+
+            Notification notification = new Notification();
+            notification.setNotificationType(NotificationType.INVITE);
+            notification.setUser(recipient);
+            notification.setSender(creator);
+            notification.setGoal(goal);
+            notification.setSenderName(creator.getName());
+            notification.setGoalTitle(goal.getTitle());
+            entityManager.persist(notification);
+
+            if (i == 0) {
+                firstGoal = goal;
+                firstInvitation = invitation;
+                firstNotification = notification;
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void manyToOneAssociations_shouldNotLoadOutsideAFetchPlan() {
+        Notification notification = notificationRepository.findById(firstNotification.getId()).orElseThrow();
+        assertFalse(isLoaded(notification.getUser()));
+        assertFalse(isLoaded(notification.getSender()));
+        assertFalse(isLoaded(notification.getGoal()));
+        entityManager.clear();
+
+        Invitation invitation = invitationRepository.findById(firstInvitation.getId()).orElseThrow();
+        assertFalse(isLoaded(invitation.getGoal()));
+        assertFalse(isLoaded(invitation.getInviter()));
+        entityManager.clear();
+
+        Goal goal = goalRepository.findById(firstGoal.getId()).orElseThrow();
+        assertFalse(isLoaded(goal.getCreatedBy()));
+
+        assertEquals(3, statistics.getEntityLoadCount());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void notificationList_shouldReadSnapshotsWithoutLoadingEntities() {
+        List<NotificationDTO> notifications = notificationRepository.findInbox(recipient.getId(), 0L, Limit.of(20));
+
+        assertEquals(10, notifications.size());
+        assertNotNull(notifications.get(0).senderName());
+        assertNotNull(notifications.get(0).goalTitle());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void invitationAccept_shouldLoadGoalSquadInOneStatement() {
+        Invitation invitation = invitationRepository.findWithGoalSquadById(firstInvitation.getId()).orElseThrow();
+
+        assertEquals(recipient.getId(), invitation.getInvitedUser().getId());
+        assertEquals(2, invitation.getGoal().getSquad().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void invitationDecline_shouldOnlyLoadTheInvitation() {
+        Invitation invitation = invitationRepository.findById(firstInvitation.getId()).orElseThrow();
+
+        assertEquals(recipient.getId(), invitation.getInvitedUser().getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void goalById_shouldLoadCreatorWithTheGoal() {
+        Goal goal = goalRepository.findWithCreatorById(firstGoal.getId()).orElseThrow();
+        GoalDTO goalDTO = goalRepository.toGoalDTO(goal);
+
+        assertEquals("creator-0", goalDTO.createdBy().name());
+        assertEquals(2, goalDTO.squad().size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void dueReminders_shouldRunInThreeStatementsWhateverTheSquadSize() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        LocalDate today = now.toLocalDate();
+
+        List<Long> dueIds = goalRepository.findDueGoalIds(0, 1, 0, now, Limit.of(10));
+        long upToId = dueIds.get(dueIds.size() - 1);
+
+        assertEquals(10, goalBroadcastRepository.insertDueReminders(0, 1, 0, upToId, now, today, now));
+        assertEquals(20, goalBroadcastRepository.findReminderRecipients(0, 1, 0, upToId, today, now).size());
+        assertEquals(10, goalRepository.advanceDueGoals(0, 1, 0, upToId, now, today));
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    private boolean isLoaded(Object association) {
+        return entityManager.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(association);
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setFirebaseUid(name);
+        user.setEmail(name + "@example.com");
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,270 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.dto.NotificationDTO;
+import com.github.shafina.squadgoals.dto.ReminderRecipient;
+import com.github.shafina.squadgoals.enums.Frequency;
+import com.github.shafina.squadgoals.enums.NotificationType;
+import com.github.shafina.squadgoals.model.Goal;
+import com.github.shafina.squadgoals.model.GoalBroadcast;
+import com.github.shafina.squadgoals.model.GoalBroadcastRead;
+import com.github.shafina.squadgoals.model.Notification;
+import com.github.shafina.squadgoals.model.SquadMembership;
+import com.github.shafina.squadgoals.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class GoalBroadcastRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private GoalBroadcastRepository broadcastRepository;
+
+    @Autowired
+    private GoalBroadcastReadRepository broadcastReadRepository;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private SquadMembershipRepository membershipRepository;
+
+    private User member;
+    private User outsider;
+    private Goal squadGoal;
+    private GoalBroadcast older;
+    private GoalBroadcast newer;
+
+    @BeforeEach
+    void setUp() {
+        member = user("member");
+        outsider = user("outsider");
+
+        squadGoal = goal("Squad goal", member);
+        Goal otherGoal = goal("Other goal", outsider);
+
+        older = broadcast(squadGoal, NOW.minusDays(1));
+        newer = broadcast(squadGoal, NOW);
+        broadcast(otherGoal, NOW);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void inbox_shouldOnlyContainBroadcastsToTheUsersGoals() {
+        List<NotificationDTO> inbox = broadcastRepository.findInbox(member.getId(), 0L, Limit.of(10));
+
+        assertEquals(List.of(newer.getId(), older.getId()), inbox.stream().map(NotificationDTO::id).toList());
+        assertEquals("Squad goal", inbox.get(0).goalTitle());
+        assertEquals(List.of(older.getId()), broadcastRepository.findInboxBefore(member.getId(), 0L,
+                newer.getCreatedAt(), newer.getId(), Limit.of(10)).stream().map(NotificationDTO::id).toList());
+        assertEquals(List.of(newer.getId()), broadcastRepository.findVisibleIds(member.getId(),
+                List.of(newer.getId())));
+        assertTrue(broadcastRepository.findVisibleIds(outsider.getId(), List.of(newer.getId())).isEmpty());
+        assertEquals(Optional.of(newer.getId()), broadcastRepository.findLatestId(member.getId()));
+    }
+
+    @Test
+    void inbox_shouldLeaveOutBroadcastsPostedBeforeTheUserJoined() {
+        Goal joined = entityManager.merge(squadGoal);
+        joined.getSquad().add(entityManager.merge(outsider));
+        membershipRepository.save(new SquadMembership(squadGoal.getId(), outsider.getId(), older.getId()));
+        entityManager.flush();
+
+        assertEquals(Optional.of(newer.getId()), broadcastRepository.findLatestIdForGoal(squadGoal.getId()));
+        List<Long> inbox = broadcastRepository.findInbox(outsider.getId(), 0L, Limit.of(10)).stream()
+                .map(NotificationDTO::id).toList();
+
+        // The outsider also gets the broadcast to their own goal
+        assertEquals(2, inbox.size());
+        assertTrue(inbox.contains(newer.getId()));
+        assertFalse(inbox.contains(older.getId()));
+        assertEquals(2, broadcastRepository.countUnread(outsider.getId(), 0L));
+        assertEquals(List.of(newer.getId()), broadcastRepository.findVisibleIds(outsider.getId(),
+                List.of(older.getId(), newer.getId())));
+        assertEquals(List.of(older.getId(), newer.getId()), broadcastRepository.findVisibleIds(member.getId(),
+                List.of(older.getId(), newer.getId())));
+    }
+
+    @Test
+    void countUnread_shouldCombineWatermarkAndReadMarkers() {
+        assertEquals(2, broadcastRepository.countUnread(member.getId(), 0L));
+        assertEquals(1, broadcastRepository.countUnread(member.getId(), older.getId()));
+
+        broadcastReadRepository.save(new GoalBroadcastRead(member.getId(), newer.getId()));
+
+        assertEquals(1, broadcastRepository.countUnread(member.getId(), 0L));
+        assertEquals(0, broadcastRepository.countUnread(member.getId(), older.getId()));
+        assertEquals(List.of(newer.getId()), broadcastRepository.findReadIds(member.getId(),
+                List.of(older.getId(), newer.getId())));
+        assertEquals(List.of(true, true), broadcastRepository.findInbox(member.getId(), older.getId(), Limit.of(10))
+                .stream().map(NotificationDTO::read).toList());
+        assertEquals(List.of(true, false), broadcastRepository.findInbox(member.getId(), 0L, Limit.of(10))
+                .stream().map(NotificationDTO::read).toList());
+    }
+
+    @Test
+    void insertIfAbsent_shouldSkipBroadcastsAlreadyRead() {
+        assertEquals(1, broadcastReadRepository.insertIfAbsent(member.getId(), newer.getId()));
+        assertEquals(0, broadcastReadRepository.insertIfAbsent(member.getId(), newer.getId()));
+
+        assertEquals(1, broadcastReadRepository.count());
+    }
+
+    @Test
+    void deleteExpired_shouldTakeOrphanedReadMarkersAlong() {
+        broadcastReadRepository.save(new GoalBroadcastRead(member.getId(), older.getId()));
+        broadcastReadRepository.save(new GoalBroadcastRead(member.getId(), newer.getId()));
+        entityManager.flush();
+
+        assertEquals(1, broadcastRepository.deleteExpired(0, Long.MAX_VALUE, NOW.minusHours(1)));
+        assertEquals(1, broadcastRepository.deleteOrphanedReads(0, Long.MAX_VALUE));
+        assertEquals(1, broadcastReadRepository.count());
+    }
+
+    @Test
+    void dueReminders_shouldSkipGoalsThatAlreadyHaveTodaysReminder() {
+        Goal weekly = goal("Weekly goal", member);
+        weekly.setFrequency(Frequency.WEEKLY);
+        weekly.setNextDueAt(NOW.minusHours(1));
+        Goal monthly = entityManager.merge(squadGoal);
+        monthly.setFrequency(Frequency.MONTHLY);
+        monthly.setNextDueAt(NOW.minusHours(1));
+        entityManager.flush();
+
+        LocalDateTime postedAt = NOW.plusMinutes(1);
+        long upToId = Math.max(weekly.getId(), squadGoal.getId());
+
+        assertEquals(1, broadcastRepository.insertDueReminders(0, 1, 0, upToId, NOW, NOW.toLocalDate(), postedAt));
+        assertEquals(0, broadcastRepository.insertDueReminders(0, 1, 0, upToId, NOW, NOW.toLocalDate(), postedAt));
+
+        List<ReminderRecipient> recipients = broadcastRepository.findReminderRecipients(0, 1, 0, upToId,
+                NOW.toLocalDate(), postedAt);
+
+        assertEquals(List.of(member.getId()), recipients.stream().map(ReminderRecipient::userId).toList());
+        assertEquals("Weekly goal", recipients.get(0).notification().goalTitle());
+        assertEquals(2, goalRepository.advanceDueGoals(0, 1, 0, upToId, NOW, NOW.toLocalDate()));
+
+        entityManager.clear();
+
+        assertEquals(NOW.minusHours(1).plusWeeks(1), entityManager.find(Goal.class, weekly.getId()).getNextDueAt());
+        assertEquals(NOW.minusHours(1).plusMonths(1),
+                entityManager.find(Goal.class, squadGoal.getId()).getNextDueAt());
+    }
+
+    @Test
+    void dueReminders_shouldOnlyTouchTheGivenGoalIdRange() {
+        Goal first = dueGoal("First");
+        Goal second = dueGoal("Second");
+        entityManager.flush();
+
+        assertEquals(List.of(first.getId(), second.getId()),
+                goalRepository.findDueGoalIds(0, 1, 0, NOW, Limit.of(10)));
+        assertEquals(List.of(second.getId()), goalRepository.findDueGoalIds(0, 1, first.getId(), NOW, Limit.of(10)));
+        assertEquals(1, broadcastRepository.insertDueReminders(0, 1, 0, first.getId(), NOW, NOW.toLocalDate(), NOW));
+        assertEquals(1, goalRepository.advanceDueGoals(0, 1, 0, second.getId(), NOW, NOW.toLocalDate()));
+        assertEquals(List.of(second.getId()), goalRepository.findDueGoalIds(0, 1, 0, NOW, Limit.of(10)));
+    }
+
+    @Test
+    void dueReminders_shouldOnlyTouchTheirOwnShard() {
+        List<Goal> goals = List.of(dueGoal("First"), dueGoal("Second"), dueGoal("Third"));
+        entityManager.flush();
+
+        LocalDateTime postedAt = NOW.plusMinutes(1);
+        long upToId = goals.get(2).getId();
+        List<Long> even = goals.stream().map(Goal::getId).filter(id -> id % 2 == 0).toList();
+        List<Long> odd = goals.stream().map(Goal::getId).filter(id -> id % 2 == 1).toList();
+
+        assertEquals(even, goalRepository.findDueGoalIds(0, 2, 0, NOW, Limit.of(10)));
+        assertEquals(even.size(), broadcastRepository.insertDueReminders(0, 2, 0, upToId, NOW, NOW.toLocalDate(),
+                postedAt));
+        assertEquals(even.size(), broadcastRepository.findReminderRecipients(0, 2, 0, upToId, NOW.toLocalDate(),
+                postedAt).size());
+        assertEquals(even.size(), goalRepository.advanceDueGoals(0, 2, 0, upToId, NOW, NOW.toLocalDate()));
+        assertEquals(odd, goalRepository.findDueGoalIds(0, 1, 0, NOW, Limit.of(10)));
+    }
+
+    @Test
+    void ids_shouldRiseInWriteOrderAcrossNotificationsAndBroadcasts() {
+        Goal due = dueGoal("Due goal");
+        Notification first = notification(member);
+        GoalBroadcast broadcast = broadcast(squadGoal, NOW.plusDays(1));
+        entityManager.flush();
+        broadcastRepository.insertDueReminders(0, 1, 0, due.getId(), NOW, NOW.toLocalDate(), NOW.plusMinutes(1));
+        Notification second = notification(member);
+
+        long reminderId = broadcastRepository.findReminderRecipients(0, 1, 0, due.getId(), NOW.toLocalDate(),
+                NOW.plusMinutes(1)).get(0).notification().id();
+
+        // Clients treat everything at or below the highest id they have seen as seen
+        assertTrue(first.getId() < broadcast.getId());
+        assertTrue(broadcast.getId() < reminderId);
+        assertTrue(reminderId < second.getId());
+    }
+
+    private Notification notification(User user) {
+        Notification notification = new Notification();
+        notification.setUser(user);
+        notification.setNotificationType(NotificationType.SYSTEM);
+        entityManager.persist(notification);
+        entityManager.flush();
+        return notification;
+    }
+
+    private Goal dueGoal(String title) {
+        Goal goal = goal(title, member);
+        goal.setFrequency(Frequency.DAILY);
+        goal.setNextDueAt(NOW.minusHours(1));
+        return goal;
+    }
+
+    private GoalBroadcast broadcast(Goal goal, LocalDateTime createdAt) {
+        GoalBroadcast broadcast = new GoalBroadcast(goal, NotificationType.SYSTEM, createdAt.toLocalDate());
+        broadcast.setCreatedAt(createdAt);
+        entityManager.persist(broadcast);
+        return broadcast;
+    }
+
+    private Goal goal(String title, User member) {
+        Goal goal = new Goal();
+        goal.setTitle(title);
+        goal.setCreatedBy(member);
+        goal.setSquad(new HashSet<>(Set.of(member)));
+        entityManager.persist(goal);
+        return goal;
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setFirebaseUid(name);
+        user.setEmail(name + "@example.com");
+        entityManager.persist(user);
+        return user;
+    }
+}
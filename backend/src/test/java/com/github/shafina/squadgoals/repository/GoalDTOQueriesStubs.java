@@ -0,0 +1,26 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.dto.GoalDTO;
+import com.github.shafina.squadgoals.model.Goal;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Makes a mocked {@link GoalRepository} build goal DTOs from the goals' in-memory associations, the way
+ * {@link GoalDTO#from} does, so controller tests don't have to stub the set-based queries.
+ */
+public final class GoalDTOQueriesStubs {
+
+    private GoalDTOQueriesStubs() {
+    }
+
+    public static void mapInMemory(GoalRepository goalRepository) {
+        when(goalRepository.toGoalDTOs(anyList())).thenAnswer(invocation ->
+                invocation.<List<Goal>>getArgument(0).stream().map(GoalDTO::from).toList());
+        when(goalRepository.toGoalDTO(any())).thenCallRealMethod();
+    }
+}
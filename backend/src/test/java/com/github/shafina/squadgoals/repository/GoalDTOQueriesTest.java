@@ -0,0 +1,160 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.dto.GoalDTO;
+import com.github.shafina.squadgoals.dto.UserDTO;
+import com.github.shafina.squadgoals.enums.InvitationStatus;
+import com.github.shafina.squadgoals.model.Goal;
+import com.github.shafina.squadgoals.model.Invitation;
+import com.github.shafina.squadgoals.model.Tag;
+import com.github.shafina.squadgoals.model.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class GoalDTOQueriesTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    private Statistics statistics;
+    private User invitee;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        invitee = user("invitee");
+        Tag reading = tag("reading");
+        Tag habit = tag("habit");
+
+        for (int i = 0; i < 20; i++) {
+            User creator = user("creator-" + i);
+            User member = user("member-" + i);
+
+            Goal goal = new Goal();
+            goal.setTitle("Goal " + i);
+            goal.setCreatedBy(creator);
+            goal.setPublic(true);
+            goal.setTags(Set.of(reading, habit));
+            goal.setSquad(Set.of(creator, member));
+            entityManager.persist(goal);
+
+            Invitation invitation = new Invitation();
+            invitation.setGoal(goal);
+            invitation.setInviter(creator);
+            invitation.setInvitedUser(invitee);
+            entityManager.persist(invitation);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void toGoalDTOs_shouldAssembleTagsAndSquad() {
+        List<GoalDTO> goals = goalRepository.toGoalDTOs(goalRepository.findPublicFeed(Limit.of(5)));
+
+        assertEquals(5, goals.size());
+        for (GoalDTO goal : goals) {
+            String suffix = goal.title().substring("Goal ".length());
+            assertEquals(Set.of("reading", "habit"), goal.tags());
+            assertEquals(Set.of("creator-" + suffix, "member-" + suffix),
+                    goal.squad().stream().map(UserDTO::name).collect(Collectors.toSet()));
+            assertEquals("creator-" + suffix, goal.createdBy().name());
+        }
+    }
+
+    @Test
+    void saveAndFlush_shouldReadBackTheDatabaseTimestamps() {
+        Goal goal = new Goal();
+        goal.setTitle("Fresh");
+        goal.setCreatedBy(invitee);
+        goal.setPublic(true);
+
+        Goal saved = goalRepository.saveAndFlush(goal);
+
+        assertNotNull(saved.getCreatedAt());
+        assertNotNull(saved.getUpdatedAt());
+        assertEquals(saved.getCreatedAt(), GoalDTO.from(saved).createdAt());
+    }
+
+    @Test
+    void publicFeed_shouldUseSameNumberOfQueries_regardlessOfPageSize() {
+        assertEquals(3, publicFeedQueries(1));
+        assertEquals(3, publicFeedQueries(20));
+    }
+
+    @Test
+    void invitations_shouldUseSameNumberOfQueries_regardlessOfPageSize() {
+        long small = invitationQueries(2);
+        long large = invitationQueries(15);
+
+        assertEquals(small, large);
+        assertEquals(4, large);
+    }
+
+    private long publicFeedQueries(int limit) {
+        entityManager.clear();
+        statistics.clear();
+
+        List<GoalDTO> goals = goalRepository.toGoalDTOs(goalRepository.findPublicFeed(Limit.of(limit)));
+
+        assertEquals(limit, goals.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long invitationQueries(int size) {
+        entityManager.clear();
+        statistics.clear();
+
+        List<Invitation> invitations = invitationRepository.findAllByInvitedUserIdAndStatus(invitee.getId(),
+                InvitationStatus.PENDING, PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt"))).getContent();
+        List<GoalDTO> goals = goalRepository.toGoalDTOs(invitations.stream().map(Invitation::getGoal).toList());
+        invitations.forEach(invitation -> invitation.getInviter().getName());
+
+        assertEquals(size, goals.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setFirebaseUid(name);
+        user.setEmail(name + "@example.com");
+        entityManager.persist(user);
+        return user;
+    }
+
+    private Tag tag(String name) {
+        Tag tag = new Tag();
+        tag.setName(name);
+        entityManager.persist(tag);
+        return tag;
+    }
+}
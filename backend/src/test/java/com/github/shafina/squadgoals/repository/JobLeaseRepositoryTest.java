@@ -0,0 +1,94 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.service.DatabaseLeaseManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class JobLeaseRepositoryTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T08:00:00Z");
+    private static final Duration TTL = Duration.ofMinutes(2);
+
+    @Autowired
+    private JobLeaseRepository leaseRepository;
+
+    @Test
+    void leases_shouldBeHeldByOneNodeUntilTheyExpire() {
+        DatabaseLeaseManager now = leases(NOW);
+        DatabaseLeaseManager beforeExpiry = leases(NOW.plus(TTL).minusSeconds(1));
+        DatabaseLeaseManager afterExpiry = leases(NOW.plus(TTL).plusSeconds(1));
+
+        assertTrue(now.tryAcquire("job", "node-a", TTL));
+        assertFalse(now.tryAcquire("job", "node-b", TTL));
+        assertTrue(now.tryAcquire("other-job", "node-b", TTL));
+        assertFalse(beforeExpiry.tryAcquire("job", "node-b", TTL));
+        assertTrue(afterExpiry.tryAcquire("job", "node-b", TTL));
+        assertFalse(afterExpiry.tryAcquire("job", "node-a", TTL));
+    }
+
+    @Test
+    void leases_shouldBeExtendedByTheirHolder() {
+        DatabaseLeaseManager now = leases(NOW);
+        DatabaseLeaseManager later = leases(NOW.plus(TTL).minusSeconds(1));
+        DatabaseLeaseManager afterFirstExpiry = leases(NOW.plus(TTL).plusSeconds(1));
+
+        assertTrue(now.tryAcquire("job", "node-a", TTL));
+        assertTrue(later.tryAcquire("job", "node-a", TTL));
+        assertFalse(afterFirstExpiry.tryAcquire("job", "node-b", TTL));
+    }
+
+    @Test
+    void release_shouldOnlyFreeTheOwnersLease() {
+        DatabaseLeaseManager leases = leases(NOW);
+        leases.tryAcquire("job", "node-a", TTL);
+
+        leases.release("job", "node-b");
+        assertFalse(leases.tryAcquire("job", "node-b", TTL));
+
+        leases.release("job", "node-a");
+        assertTrue(leases.tryAcquire("job", "node-b", TTL));
+    }
+
+    @Test
+    void countHeld_shouldCountUnexpiredLeasesUnderThePrefix() {
+        leases(NOW).tryAcquire("nodes/node-a", "node-a", TTL);
+        leases(NOW.plus(TTL)).tryAcquire("nodes/node-b", "node-b", TTL);
+        leases(NOW).tryAcquire("other/node-c", "node-c", TTL);
+
+        assertEquals(2, leases(NOW.plus(TTL)).countHeld("nodes/"));
+        assertEquals(1, leases(NOW.plus(TTL).plusSeconds(1)).countHeld("nodes/"));
+    }
+
+    @Test
+    void countHeld_shouldPurgeExpiredLeasesUnderThePrefix() {
+        leases(NOW).tryAcquire("nodes/node-a", "node-a", TTL);
+        leases(NOW.plus(TTL)).tryAcquire("nodes/node-b", "node-b", TTL);
+        leases(NOW).tryAcquire("other/node-c", "node-c", TTL);
+
+        leases(NOW.plus(TTL).plusSeconds(1)).countHeld("nodes/");
+
+        assertFalse(leaseRepository.existsById("nodes/node-a"));
+        assertTrue(leaseRepository.existsById("nodes/node-b"));
+        assertTrue(leaseRepository.existsById("other/node-c"));
+        assertTrue(leases(NOW.plus(TTL).plusSeconds(1)).tryAcquire("nodes/node-a", "node-a", TTL));
+    }
+
+    private DatabaseLeaseManager leases(Instant now) {
+        return new DatabaseLeaseManager(leaseRepository, Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,251 @@
+package com.github.shafina.squadgoals.repository;
+
+import com.github.shafina.squadgoals.dto.NotificationDTO;
+import com.github.shafina.squadgoals.enums.NotificationType;
+import com.github.shafina.squadgoals.model.Goal;
+import com.github.shafina.squadgoals.model.Notification;
+import com.github.shafina.squadgoals.model.NotificationReadState;
+import com.github.shafina.squadgoals.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class NotificationRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationReadStateRepository readStateRepository;
+
+    private User recipient;
+    private User other;
+    private Goal goal;
+
+    @BeforeEach
+    void setUp() {
+        recipient = user("recipient");
+        other = user("other");
+
+        goal = new Goal();
+        goal.setTitle("Goal");
+        goal.setCreatedBy(other);
+        entityManager.persist(goal);
+
+        // Two notifications share a timestamp so the id tie-breaker is exercised
+        notification(recipient, NOW.minusMinutes(2));
+        notification(recipient, NOW.minusMinutes(1));
+        notification(recipient, NOW.minusMinutes(1));
+        notification(recipient, NOW);
+        notification(other, NOW.plusMinutes(1));
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void inbox_shouldWalkNewestFirstByKeyset() {
+        List<NotificationDTO> firstPage = notificationRepository.findInbox(recipient.getId(), 0L, Limit.of(2));
+        NotificationDTO last = firstPage.get(1);
+        List<NotificationDTO> secondPage = notificationRepository.findInboxBefore(recipient.getId(), 0L,
+                last.createdAt(), last.id(), Limit.of(2));
+
+        assertEquals(List.of(NOW, NOW.minusMinutes(1)), firstPage.stream().map(NotificationDTO::createdAt).toList());
+        assertEquals(List.of(NOW.minusMinutes(1), NOW.minusMinutes(2)),
+                secondPage.stream().map(NotificationDTO::createdAt).toList());
+        assertEquals(4, firstPage.size() + secondPage.size());
+        assertTrue(secondPage.get(0).id() < last.id());
+    }
+
+    @Test
+    void inbox_shouldProjectSnapshotsAndWatermark() {
+        List<NotificationDTO> unread = notificationRepository.findInbox(recipient.getId(), 0L, Limit.of(10));
+        long watermark = unread.get(1).id();
+
+        List<NotificationDTO> inbox = notificationRepository.findInbox(recipient.getId(), watermark, Limit.of(10));
+
+        assertEquals("Goal", inbox.get(0).goalTitle());
+        assertEquals("other", inbox.get(0).senderName());
+        assertEquals(List.of(false, true, true, true), inbox.stream().map(NotificationDTO::read).toList());
+    }
+
+    @Test
+    void refreshGoalTitle_shouldRewriteOnlyStaleSnapshots() {
+        assertEquals(5, notificationRepository.refreshGoalTitle(goal.getId(), "Renamed"));
+        assertEquals(0, notificationRepository.refreshGoalTitle(goal.getId(), "Renamed"));
+        assertEquals("Renamed",
+                notificationRepository.findInbox(recipient.getId(), 0L, Limit.of(1)).get(0).goalTitle());
+    }
+
+    @Test
+    void backfill_shouldFillMissingSnapshotsInTheGivenIdWindow() {
+        Notification bare = bareNotification();
+        bare.setSender(other);
+        bare.setGoal(goal);
+        Notification outside = bareNotification();
+        outside.setSender(other);
+        Notification withoutSenderOrGoal = bareNotification();
+        entityManager.flush();
+
+        long toId = outside.getId();
+
+        assertEquals(1, notificationRepository.backfillGoalTitles(bare.getId(), toId));
+        assertEquals(1, notificationRepository.backfillSenderNames(bare.getId(), toId));
+        assertEquals(0, notificationRepository.backfillSenderNames(bare.getId(), toId));
+        assertEquals(0, notificationRepository.backfillGoalTitles(withoutSenderOrGoal.getId(),
+                withoutSenderOrGoal.getId() + 1));
+
+        entityManager.clear();
+
+        Notification filled = entityManager.find(Notification.class, bare.getId());
+        assertEquals("Goal", filled.getGoalTitle());
+        assertEquals("other", filled.getSenderName());
+        assertNull(entityManager.find(Notification.class, outside.getId()).getSenderName());
+    }
+
+        @Test
+    void toString_shouldNotLoadLazyAssociations_afterTheSessionClosed() {
+        Notification bare = bareNotification();
+        bare.setSender(other);
+        bare.setGoal(goal);
+        entityManager.flush();
+        entityManager.clear();
+
+        Notification loaded = entityManager.find(Notification.class, bare.getId());
+        entityManager.clear();
+
+        assertTrue(loaded.toString().contains("senderId=" + other.getId()));
+        assertTrue(loaded.toString().contains("goalId=" + goal.getId()));
+    }
+
+        @Test
+    void readWatermark_shouldOnlyMoveForward() {
+        readStateRepository.save(new NotificationReadState(recipient.getId(), 10L));
+
+        assertEquals(1, readStateRepository.advance(recipient.getId(), 20L));
+        assertEquals(0, readStateRepository.advance(recipient.getId(), 20L));
+        assertEquals(0, readStateRepository.advance(recipient.getId(), 5L));
+        assertEquals(0, readStateRepository.advance(other.getId(), 5L));
+        assertEquals(Optional.of(20L), readStateRepository.findReadUpToId(recipient.getId()));
+    }
+
+    @Test
+    void readWatermark_shouldOnlyBeCreatedOnce() {
+        assertEquals(1, readStateRepository.insertIfAbsent(recipient.getId(), 10L));
+        assertEquals(0, readStateRepository.insertIfAbsent(recipient.getId(), 30L));
+        assertEquals(Optional.of(10L), readStateRepository.findReadUpToId(recipient.getId()));
+    }
+
+    @Test
+    void countUnread_shouldCombineWatermarkAndRowOverrides() {
+        List<NotificationDTO> inbox = notificationRepository.findInbox(recipient.getId(), 0L, Limit.of(10));
+        long watermark = inbox.get(2).id();
+        long aboveWatermark = inbox.stream().filter(n -> n.id() > watermark).count();
+
+        assertEquals(aboveWatermark, notificationRepository.countUnread(recipient.getId(), watermark));
+
+        notificationRepository.markAsRead(recipient.getId(), List.of(inbox.get(0).id()), watermark);
+
+        assertEquals(aboveWatermark - 1, notificationRepository.countUnread(recipient.getId(), watermark));
+        assertEquals(3, notificationRepository.countUnread(recipient.getId(), 0L));
+    }
+
+    @Test
+    void markAsRead_shouldOnlyTouchTheUsersOwnNotificationsAboveWatermark() {
+        Long othersNotification = notificationRepository.findInbox(other.getId(), 0L, Limit.of(1)).get(0).id();
+        List<NotificationDTO> inbox = notificationRepository.findInbox(recipient.getId(), 0L, Limit.of(10));
+        Long newest = inbox.get(0).id();
+        Long oldest = inbox.get(inbox.size() - 1).id();
+
+        assertEquals(1, notificationRepository.markAsRead(recipient.getId(),
+                List.of(newest, oldest, othersNotification), oldest));
+        assertEquals(3, unreadCount(recipient));
+        assertEquals(1, unreadCount(other));
+    }
+
+    @Test
+    void deleteExpired_shouldKeepUnreadUntilTheirLongerRetention() {
+        List<NotificationDTO> inbox = notificationRepository.findInbox(recipient.getId(), 0L, Limit.of(10));
+        NotificationDTO oldest = inbox.get(3);
+        NotificationDTO flagged = inbox.get(2);
+        NotificationDTO belowWatermark = inbox.get(1);
+        notificationRepository.markAsRead(recipient.getId(), List.of(flagged.id()), 0L);
+        readStateRepository.save(new NotificationReadState(recipient.getId(), belowWatermark.id()));
+        entityManager.flush();
+
+        // Read notifications older than NOW - 30s expire, unread ones only once older than NOW - 90s
+        int deleted = notificationRepository.deleteExpired(0, Long.MAX_VALUE, NOW.minusSeconds(30),
+                NOW.minusSeconds(90));
+
+        assertEquals(3, deleted);
+        assertEquals(List.of(inbox.get(0).id()), notificationRepository.findInbox(recipient.getId(), 0L, Limit.of(10))
+                .stream().map(NotificationDTO::id).toList());
+        assertTrue(notificationRepository.findById(oldest.id()).isEmpty());
+        assertEquals(1, notificationRepository.findInbox(other.getId(), 0L, Limit.of(10)).size());
+    }
+
+    @Test
+    void deleteExpired_shouldOnlyTouchTheGivenIdWindow() {
+        List<NotificationDTO> inbox = notificationRepository.findInbox(recipient.getId(), 0L, Limit.of(10));
+        long fromId = inbox.get(2).id();
+
+        int deleted = notificationRepository.deleteExpired(fromId, fromId + 1, NOW.plusDays(1), NOW.plusDays(1));
+
+        assertEquals(1, deleted);
+        assertEquals(3, notificationRepository.findInbox(recipient.getId(), 0L, Limit.of(10)).size());
+    }
+
+    private long unreadCount(User user) {
+        return notificationRepository.findInbox(user.getId(), 0L, Limit.of(10)).stream().filter(n -> !n.read()).count();
+    }
+
+    private Notification bareNotification() {
+        Notification notification = new Notification();
+        notification.setNotificationType(NotificationType.SYSTEM);
+        notification.setUser(recipient);
+        entityManager.persist(notification);
+        return notification;
+    }
+
+        private void notification(User user, LocalDateTime createdAt) {
+        Notification notification = new Notification();
+        notification.setNotificationType(NotificationType.SYSTEM);
+        notification.setUser(user);
+        notification.setGoal(goal);
+        notification.setCreatedAt(createdAt);
+        notification.setSenderName(other.getName());
+        notification.setGoalTitle(goal.getTitle());
+        entityManager.persist(notification);
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setFirebaseUid(name);
+        user.setEmail(name + "@example.com");
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.shafina.squadgoals.security;
+
+import com.github.shafina.squadgoals.model.User;
+import com.github.shafina.squadgoals.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuthenticatedUserResolverTest {
+
+    private UserRepository userRepository;
+    private AuthenticatedUserResolver resolver;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        resolver = new AuthenticatedUserResolver(userRepository, 2);
+
+        user = new User();
+        user.setId(1L);
+        user.setFirebaseUid("firebase-uid-1");
+        user.setName("Alice");
+    }
+
+    @Test
+    void findByFirebaseUid_shouldQueryOnce_whenUserCached() {
+        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
+
+        assertEquals(1L, resolver.findByFirebaseUid("firebase-uid-1").orElseThrow().id());
+        assertEquals(1L, resolver.findByFirebaseUid("firebase-uid-1").orElseThrow().id());
+
+        verify(userRepository, times(1)).findByFirebaseUid("firebase-uid-1");
+    }
+
+    @Test
+    void findByFirebaseUid_shouldNotCacheMisses() {
+        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.empty(), Optional.of(user));
+
+        assertTrue(resolver.findByFirebaseUid("firebase-uid-1").isEmpty());
+        assertTrue(resolver.findByFirebaseUid("firebase-uid-1").isPresent());
+    }
+
+    @Test
+    void findByFirebaseUid_shouldStayWithinMaxSize() {
+        for (long id = 1; id <= 5; id++) {
+            User other = new User();
+            other.setId(id);
+            other.setFirebaseUid("uid-" + id);
+            when(userRepository.findByFirebaseUid("uid-" + id)).thenReturn(Optional.of(other));
+
+            resolver.findByFirebaseUid("uid-" + id);
+        }
+
+        resolver.findByFirebaseUid("uid-5");
+
+        verify(userRepository, times(1)).findByFirebaseUid("uid-5");
+    }
+
+    @Test
+    void resolve_shouldUseAttachedUser_withoutQuerying() {
+        AuthenticatedUser attached = AuthenticatedUser.from(user);
+
+        AuthenticatedUser resolved = resolver.resolve(new FirebaseAuthenticationToken("firebase-uid-1", attached));
+
+        assertSame(attached, resolved);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void resolve_shouldLookUpUser_whenNoUserAttached() {
+        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.of(user));
+
+        AuthenticatedUser resolved = resolver.resolve(
+                new UsernamePasswordAuthenticationToken("firebase-uid-1", null, Collections.emptyList()));
+
+        assertEquals(1L, resolved.id());
+        assertEquals("Alice", resolved.name());
+    }
+
+    @Test
+    void resolve_shouldThrowNotFound_whenUserNotFound() {
+        when(userRepository.findByFirebaseUid("firebase-uid-1")).thenReturn(Optional.empty());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> resolver.resolve(new FirebaseAuthenticationToken("firebase-uid-1", null)));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        assertEquals("User not found", exception.getReason());
+    }
+
+    @Test
+    void resolve_shouldThrowUnauthorized_whenAnonymous() {
+        AnonymousAuthenticationToken anonymous = new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> resolver.resolve(anonymous));
+
+        assertEquals(HttpStatus.UNAUTHORIZED, exception.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> resolver.resolve(null));
+    }
+}
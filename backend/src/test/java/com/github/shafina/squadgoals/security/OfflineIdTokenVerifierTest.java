@@ -0,0 +1,135 @@
+package com.github.shafina.squadgoals.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OfflineIdTokenVerifierTest {
+
+    private static final String PROJECT_ID = "squadgoals-test";
+
+    @TempDir
+    Path tempDir;
+
+    private final Instant now = Instant.parse("2025-01-01T10:00:00Z");
+    private final Clock clock = Clock.fixed(now, ZoneOffset.UTC);
+
+    private TestIdTokens tokens;
+    private RotatingKeySet keySet;
+    private OfflineIdTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tokens = new TestIdTokens("key-1", PROJECT_ID);
+        Path jwks = tokens.writeJwks(tempDir.resolve("jwks.json"));
+
+        keySet = new RotatingKeySet(new FileKeySetSource(jwks, Duration.ofHours(1), clock),
+                Duration.ofMinutes(10), Duration.ofSeconds(30), clock);
+        keySet.start();
+
+        verifier = new OfflineIdTokenVerifier(keySet, PROJECT_ID, Duration.ofMinutes(1), clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        keySet.close();
+    }
+
+    @Test
+    void verify_shouldReturnUidAndExpiry_whenTokenValid() throws Exception {
+        Instant expiresAt = now.plus(Duration.ofHours(1));
+        String idToken = tokens.sign("firebase-uid-1", now.minusSeconds(5), expiresAt);
+
+        VerifiedToken verified = verifier.verify(idToken);
+
+        assertEquals("firebase-uid-1", verified.uid());
+        assertEquals(expiresAt, verified.expiresAt());
+    }
+
+    @Test
+    void verify_shouldReject_whenTokenExpired() throws Exception {
+        String idToken = tokens.sign("firebase-uid-1", now.minus(Duration.ofHours(2)), now.minus(Duration.ofHours(1)));
+
+        assertThrows(InvalidIdTokenException.class, () -> verifier.verify(idToken));
+    }
+
+    @Test
+    void verify_shouldReject_whenSignedByUnknownKey() throws Exception {
+        TestIdTokens otherIssuer = new TestIdTokens("key-1", PROJECT_ID);
+        String idToken = otherIssuer.sign("firebase-uid-1", now, now.plus(Duration.ofHours(1)));
+
+        InvalidIdTokenException ex = assertThrows(InvalidIdTokenException.class, () -> verifier.verify(idToken));
+        assertEquals("Invalid token signature", ex.getMessage());
+    }
+
+    @Test
+    void verify_shouldReject_whenKidNotInKeySet() throws Exception {
+        TestIdTokens rotatedOut = new TestIdTokens("key-2", PROJECT_ID);
+        String idToken = rotatedOut.sign("firebase-uid-1", now, now.plus(Duration.ofHours(1)));
+
+        assertThrows(InvalidIdTokenException.class, () -> verifier.verify(idToken));
+    }
+
+    @Test
+    void verify_shouldReject_whenAudienceIsAnotherProject() throws Exception {
+        TestIdTokens otherProject = new TestIdTokens("key-1", "another-project");
+        otherProject.writeJwks(tempDir.resolve("jwks.json"));
+        keySet.refresh();
+
+        String idToken = otherProject.sign("firebase-uid-1", now, now.plus(Duration.ofHours(1)));
+
+        InvalidIdTokenException ex = assertThrows(InvalidIdTokenException.class, () -> verifier.verify(idToken));
+        assertEquals("Token has an unexpected audience", ex.getMessage());
+    }
+
+    @Test
+    void verify_shouldReject_whenAlgorithmIsNotRs256() throws Exception {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("sub", "firebase-uid-1");
+        String idToken = tokens.sign(Map.of("alg", "none", "kid", "key-1"), claims);
+
+        InvalidIdTokenException ex = assertThrows(InvalidIdTokenException.class, () -> verifier.verify(idToken));
+        assertEquals("Unexpected signing algorithm", ex.getMessage());
+    }
+
+    @Test
+    void verify_shouldReject_whenSubjectMissing() throws Exception {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("iss", "https://securetoken.google.com/" + PROJECT_ID);
+        claims.put("aud", PROJECT_ID);
+        claims.put("auth_time", now.getEpochSecond());
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", now.plus(Duration.ofHours(1)).getEpochSecond());
+        String idToken = tokens.sign(claims);
+
+        InvalidIdTokenException ex = assertThrows(InvalidIdTokenException.class, () -> verifier.verify(idToken));
+        assertEquals("Token has an invalid subject", ex.getMessage());
+    }
+
+    @Test
+    void verify_shouldReject_whenTokenMalformed() {
+        assertThrows(InvalidIdTokenException.class, () -> verifier.verify("not-a-jwt"));
+    }
+
+    @Test
+    void refresh_shouldPickUpRotatedKeys() throws Exception {
+        TestIdTokens rotated = new TestIdTokens("key-2", PROJECT_ID);
+        rotated.writeJwks(tempDir.resolve("jwks.json"));
+
+        keySet.refresh();
+
+        String idToken = rotated.sign("firebase-uid-1", now, now.plus(Duration.ofHours(1)));
+        assertEquals("firebase-uid-1", verifier.verify(idToken).uid());
+    }
+}
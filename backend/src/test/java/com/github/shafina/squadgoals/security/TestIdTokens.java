@@ -0,0 +1,90 @@
+package com.github.shafina.squadgoals.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.*;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Signs Firebase-shaped ID tokens with a locally generated RSA key and publishes the matching public key
+ * as a JWKS file for {@link FileKeySetSource}.
+ */
+public class TestIdTokens {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String kid;
+    private final KeyPair keyPair;
+    private final String projectId;
+
+    public TestIdTokens(String kid, String projectId) throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        this.kid = kid;
+        this.keyPair = generator.generateKeyPair();
+        this.projectId = projectId;
+    }
+
+    public Path writeJwks(Path file) throws IOException {
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        Map<String, Object> jwk = Map.of(
+                "kty", "RSA",
+                "alg", "RS256",
+                "use", "sig",
+                "kid", kid,
+                "n", base64Url(unsigned(publicKey.getModulus())),
+                "e", base64Url(unsigned(publicKey.getPublicExponent())));
+
+        Files.write(file, MAPPER.writeValueAsBytes(Map.of("keys", List.of(jwk))));
+        return file;
+    }
+
+    public String sign(String uid, Instant issuedAt, Instant expiresAt) throws Exception {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", "https://securetoken.google.com/" + projectId);
+        claims.put("aud", projectId);
+        claims.put("auth_time", issuedAt.getEpochSecond());
+        claims.put("sub", uid);
+        claims.put("iat", issuedAt.getEpochSecond());
+        claims.put("exp", expiresAt.getEpochSecond());
+        return sign(claims);
+    }
+
+    public String sign(Map<String, Object> claims) throws Exception {
+        return sign(Map.of("alg", "RS256", "kid", kid, "typ", "JWT"), claims);
+    }
+
+    public String sign(Map<String, Object> header, Map<String, Object> claims) throws Exception {
+        String signingInput = base64Url(MAPPER.writeValueAsBytes(header)) + "." + base64Url(MAPPER.writeValueAsBytes(claims));
+
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+
+        return signingInput + "." + base64Url(signature.sign());
+    }
+
+    private static byte[] unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] trimmed = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, trimmed, 0, trimmed.length);
+            return trimmed;
+        }
+        return bytes;
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
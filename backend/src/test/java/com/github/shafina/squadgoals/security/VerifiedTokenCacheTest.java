@@ -0,0 +1,118 @@
+package com.github.shafina.squadgoals.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private MutableClock clock;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+        cache = new VerifiedTokenCache(3, Duration.ofMinutes(5), clock);
+    }
+
+    @Test
+    void get_shouldReturnCachedToken_andCountHit() {
+        VerifiedToken token = new VerifiedToken("uid-1", clock.instant().plusSeconds(3600));
+        cache.put("raw-token-1", token);
+
+        assertEquals(token, cache.get("raw-token-1"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(0, cache.missCount());
+    }
+
+    @Test
+    void get_shouldCountMiss_whenTokenUnknown() {
+        assertNull(cache.get("raw-token-1"));
+        assertEquals(0, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void get_shouldEvictEntry_atTokenExpiry() {
+        cache.put("raw-token-1", new VerifiedToken("uid-1", clock.instant().plusSeconds(60)));
+
+        clock.advance(Duration.ofSeconds(60));
+
+        assertNull(cache.get("raw-token-1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_shouldEvictEntry_afterMaxTtl_evenIfTokenStillValid() {
+        cache.put("raw-token-1", new VerifiedToken("uid-1", clock.instant().plusSeconds(3600)));
+
+        clock.advance(Duration.ofMinutes(5));
+
+        assertNull(cache.get("raw-token-1"));
+    }
+
+    @Test
+    void put_shouldIgnoreAlreadyExpiredToken() {
+        cache.put("raw-token-1", new VerifiedToken("uid-1", clock.instant().minusSeconds(1)));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_shouldNeverExceedMaxSize() {
+        for (int i = 0; i < 10; i++) {
+            cache.put("raw-token-" + i, new VerifiedToken("uid-" + i, clock.instant().plusSeconds(3600)));
+        }
+
+        assertTrue(cache.size() <= 3);
+        assertTrue(cache.evictionCount() > 0);
+    }
+
+    @Test
+    void put_shouldPreferPurgingExpiredEntries_whenFull() {
+        cache.put("short-1", new VerifiedToken("uid-1", clock.instant().plusSeconds(10)));
+        cache.put("short-2", new VerifiedToken("uid-2", clock.instant().plusSeconds(10)));
+        cache.put("long", new VerifiedToken("uid-3", clock.instant().plusSeconds(3600)));
+
+        clock.advance(Duration.ofSeconds(30));
+        cache.put("new", new VerifiedToken("uid-4", clock.instant().plusSeconds(3600)));
+
+        assertNotNull(cache.get("long"));
+        assertNotNull(cache.get("new"));
+        assertEquals(0, cache.evictionCount());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
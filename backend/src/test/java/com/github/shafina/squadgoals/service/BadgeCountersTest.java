@@ -0,0 +1,115 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.dto.BadgeCounts;
+import com.github.shafina.squadgoals.dto.NotificationDTO;
+import com.github.shafina.squadgoals.enums.InvitationStatus;
+import com.github.shafina.squadgoals.event.NotificationCreatedEvent;
+import com.github.shafina.squadgoals.repository.GoalBroadcastRepository;
+import com.github.shafina.squadgoals.repository.InvitationRepository;
+import com.github.shafina.squadgoals.repository.NotificationReadStateRepository;
+import com.github.shafina.squadgoals.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class BadgeCountersTest {
+
+    private NotificationRepository notificationRepository;
+    private NotificationReadStateRepository readStateRepository;
+    private InvitationRepository invitationRepository;
+    private GoalBroadcastRepository broadcastRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private BadgeCounters badgeCounters;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        readStateRepository = mock(NotificationReadStateRepository.class);
+        invitationRepository = mock(InvitationRepository.class);
+        broadcastRepository = mock(GoalBroadcastRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        badgeCounters = new BadgeCounters(notificationRepository, readStateRepository, invitationRepository,
+                broadcastRepository, meterRegistry, Duration.ofHours(1));
+
+        when(readStateRepository.findReadUpToId(1L)).thenReturn(Optional.of(40L));
+        when(notificationRepository.countUnread(1L, 40L)).thenReturn(3L);
+        when(invitationRepository.countByInvitedUserIdAndStatus(1L, InvitationStatus.PENDING)).thenReturn(2L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        badgeCounters.close();
+    }
+
+    @Test
+    void get_shouldSeedFromCountQueriesOnce() {
+        assertEquals(new BadgeCounts(3, 2), badgeCounters.get(1L));
+        assertEquals(new BadgeCounts(3, 2), badgeCounters.get(1L));
+
+        verify(notificationRepository, times(1)).countUnread(1L, 40L);
+        verify(invitationRepository, times(1)).countByInvitedUserIdAndStatus(1L, InvitationStatus.PENDING);
+    }
+
+    @Test
+    void adjust_shouldMoveSeededCounters() {
+        badgeCounters.get(1L);
+
+        badgeCounters.onNotificationCreated(new NotificationCreatedEvent(1L, mock(NotificationDTO.class)));
+        badgeCounters.adjustUnread(1L, -2);
+        badgeCounters.adjustPending(1L, 1);
+
+        assertEquals(new BadgeCounts(2, 3), badgeCounters.get(1L));
+    }
+
+    @Test
+    void adjust_shouldIgnoreUsersWithoutCounters() {
+        badgeCounters.adjustUnread(1L, 5);
+
+        assertEquals(new BadgeCounts(3, 2), badgeCounters.get(1L));
+    }
+
+    @Test
+    void invalidate_shouldReseedOnNextRead() {
+        badgeCounters.get(1L);
+        badgeCounters.invalidate(1L);
+        when(notificationRepository.countUnread(1L, 40L)).thenReturn(0L);
+
+        assertEquals(new BadgeCounts(0, 2), badgeCounters.get(1L));
+    }
+
+    @Test
+    void reconcile_shouldCorrectDriftForActiveUsers() {
+        badgeCounters.get(1L);
+        badgeCounters.adjustUnread(1L, 10);
+
+        badgeCounters.reconcile();
+
+        assertEquals(new BadgeCounts(3, 2), badgeCounters.get(1L));
+        assertEquals(1.0, meterRegistry.get("squadgoals.badges.reconcile.corrections").counter().count());
+    }
+
+    @Test
+    void reconcile_shouldDropUsersNotReadSinceLastPass() {
+        badgeCounters.get(1L);
+
+        badgeCounters.reconcile();
+        badgeCounters.reconcile();
+
+        assertEquals(0.0, meterRegistry.get("squadgoals.badges.users").gauge().value());
+    }
+
+    @Test
+    void get_shouldNeverReportNegativeCounts() {
+        badgeCounters.get(1L);
+        badgeCounters.adjustUnread(1L, -10);
+
+        assertEquals(0, badgeCounters.get(1L).unreadNotifications());
+    }
+}
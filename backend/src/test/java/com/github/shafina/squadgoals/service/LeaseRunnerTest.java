@@ -0,0 +1,228 @@
+package com.github.shafina.squadgoals.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class LeaseRunnerTest {
+
+    private static final Duration TTL = Duration.ofMinutes(2);
+
+    private MutableClock clock;
+    private InMemoryLeaseManager leaseManager;
+    private final List<LeaseRunner> runners = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T08:00:00Z"));
+        leaseManager = new InMemoryLeaseManager(clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        runners.forEach(LeaseRunner::close);
+    }
+
+    @Test
+    void runExclusively_shouldRunOnOneNodeAtATime() {
+        LeaseRunner first = runner(leaseManager, "node-a", TTL);
+        LeaseRunner second = runner(leaseManager, "node-b", TTL);
+        List<String> ran = new ArrayList<>();
+
+        boolean firstRan = first.runExclusively("job", held -> {
+            ran.add("node-a");
+            assertFalse(second.runExclusively("job", ignored -> ran.add("node-b")));
+        });
+
+        assertTrue(firstRan);
+        assertEquals(List.of("node-a"), ran);
+        assertTrue(second.runExclusively("job", held -> ran.add("node-b")));
+        assertEquals(List.of("node-a", "node-b"), ran);
+    }
+
+    @Test
+    void leases_shouldPassToAnotherNodeOnlyOnceTheHolderLetsThemExpire() {
+        assertTrue(leaseManager.tryAcquire("job", "node-a", TTL));
+
+        clock.advance(TTL.minusSeconds(1));
+
+        assertFalse(leaseManager.tryAcquire("job", "node-b", TTL));
+        assertTrue(leaseManager.tryAcquire("job", "node-a", TTL));
+
+        clock.advance(TTL.plusSeconds(1));
+
+        assertTrue(leaseManager.tryAcquire("job", "node-b", TTL));
+        assertFalse(leaseManager.tryAcquire("job", "node-a", TTL));
+    }
+
+    @Test
+    void release_shouldOnlyFreeTheOwnersLease() {
+        leaseManager.tryAcquire("job", "node-a", TTL);
+
+        leaseManager.release("job", "node-b");
+        assertFalse(leaseManager.tryAcquire("job", "node-b", TTL));
+
+        leaseManager.release("job", "node-a");
+        assertTrue(leaseManager.tryAcquire("job", "node-b", TTL));
+    }
+
+    @Test
+    void runExclusively_shouldRenewTheLeaseWhileWorkRuns() throws InterruptedException {
+        LeaseManager counting = spy(new InMemoryLeaseManager(Clock.systemUTC()));
+        LeaseRunner runner = runner(counting, "node-a", Duration.ofMillis(150));
+        List<Boolean> held = new ArrayList<>();
+
+        runner.runExclusively("job", leaseHeld -> {
+            sleep(400);
+            held.add(leaseHeld.getAsBoolean());
+        });
+
+        assertEquals(List.of(true), held);
+        verify(counting, atLeast(3)).tryAcquire("job", "node-a", Duration.ofMillis(150));
+        verify(counting).release("job", "node-a");
+    }
+
+    @Test
+    void runExclusively_shouldReportTheLeaseLostOnceARenewalIsRefused() {
+        LeaseManager refusing = mock(LeaseManager.class);
+        when(refusing.tryAcquire(anyString(), anyString(), any())).thenReturn(true, false);
+        LeaseRunner runner = runner(refusing, "node-a", Duration.ofMillis(150));
+        List<Boolean> held = new ArrayList<>();
+
+        runner.runExclusively("job", leaseHeld -> {
+            held.add(leaseHeld.getAsBoolean());
+            sleep(300);
+            held.add(leaseHeld.getAsBoolean());
+        });
+
+        assertEquals(List.of(true, false), held);
+    }
+
+    @Test
+    void runExclusively_shouldNotLetARenewalUnderWayRetakeTheReleasedLease() {
+        CountDownLatch renewing = new CountDownLatch(1);
+        LeaseManager slowRenewals = new InMemoryLeaseManager(clock) {
+            private int calls;
+
+            @Override
+            public boolean tryAcquire(String name, String owner, Duration ttl) {
+                if (calls++ > 0) {
+                    renewing.countDown();
+                    sleep(200);
+                }
+                return super.tryAcquire(name, owner, ttl);
+            }
+        };
+        LeaseRunner runner = runner(slowRenewals, "node-a", Duration.ofMillis(30));
+
+        runner.runExclusively("job", held -> {
+            try {
+                assertTrue(renewing.await(1, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        sleep(300);
+
+        assertEquals(0, slowRenewals.countHeld("job"));
+    }
+
+    @Test
+    void members_shouldCountTheNodesThatJoinedUntilTheyLeave() {
+        LeaseRunner first = runner(leaseManager, "node-a", TTL);
+        LeaseRunner second = runner(leaseManager, "node-b", TTL);
+
+        assertEquals(1, first.members("workers"));
+
+        first.join("workers");
+        first.join("workers");
+        second.join("workers");
+
+        await(() -> first.members("workers") == 2);
+
+        second.close();
+
+        assertEquals(1, first.members("workers"));
+        assertEquals(0, leaseManager.countHeld("workers/node-b"));
+    }
+
+    @Test
+    void members_shouldDropNodesThatStopRenewing() {
+        LeaseRunner runner = runner(leaseManager, "node-a", TTL);
+        leaseManager.tryAcquire("workers/node-b", "node-b", TTL);
+        runner.join("workers");
+
+        await(() -> runner.members("workers") == 2);
+
+        clock.advance(TTL.plusSeconds(1));
+
+        assertEquals(0, leaseManager.countHeld("workers/node-b"));
+    }
+
+    private LeaseRunner runner(LeaseManager leaseManager, String nodeId, Duration ttl) {
+        LeaseRunner runner = new LeaseRunner(leaseManager, nodeId, ttl);
+        runners.add(runner);
+        return runner;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met in time");
+            sleep(10);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.dto.NotificationDTO;
+import com.github.shafina.squadgoals.enums.NotificationType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NotificationBrokerTest {
+
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+    private NotificationBroker broker;
+
+    @AfterEach
+    void tearDown() {
+        broker.close();
+    }
+
+    @Test
+    void publish_shouldDeliverOnlyToRecipientConnections() throws Exception {
+        broker = broker(8, 5);
+        RecordingEmitter recipient = (RecordingEmitter) broker.subscribe(1L);
+        RecordingEmitter other = (RecordingEmitter) broker.subscribe(2L);
+
+        broker.publish(1L, notification(10L));
+
+        assertNotNull(recipient.sent.poll(1, TimeUnit.SECONDS));
+        assertNull(other.sent.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void subscribe_shouldCloseOldestConnection_whenOverPerUserLimit() throws Exception {
+        broker = broker(8, 2);
+
+        broker.subscribe(1L);
+        broker.subscribe(1L);
+        broker.subscribe(1L);
+
+        assertEquals(2, broker.connectionCount(1L));
+        assertTrue(emitters.get(0).completion.await(1, TimeUnit.SECONDS));
+        assertEquals(1, emitters.get(2).completion.getCount());
+    }
+
+    @Test
+    void publish_shouldCloseConnection_whenBufferOverflows() throws Exception {
+        broker = broker(1, 5);
+        RecordingEmitter slow = (RecordingEmitter) broker.subscribe(1L);
+        slow.blockSends();
+
+        broker.publish(1L, notification(1L));
+        assertTrue(slow.sendStarted.await(1, TimeUnit.SECONDS));
+        broker.publish(1L, notification(2L));
+        broker.publish(1L, notification(3L));
+
+        assertEquals(0, broker.connectionCount(1L));
+        slow.release.countDown();
+        assertTrue(slow.completion.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void publish_shouldNotWaitForASlowClient_toReachOthers() throws Exception {
+        broker = broker(8, 5);
+        RecordingEmitter slow = (RecordingEmitter) broker.subscribe(1L);
+        RecordingEmitter other = (RecordingEmitter) broker.subscribe(2L);
+        slow.blockSends();
+
+        broker.publish(1L, notification(1L));
+        assertTrue(slow.sendStarted.await(1, TimeUnit.SECONDS));
+        broker.publish(2L, notification(2L));
+
+        assertNotNull(other.sent.poll(500, TimeUnit.MILLISECONDS));
+        slow.release.countDown();
+    }
+
+    @Test
+    void closeStalled_shouldCloseConnection_whenAWriteTakesLongerThanTheWriteTimeout() throws Exception {
+        broker = broker(8, 5, Duration.ofMillis(100));
+        RecordingEmitter slow = (RecordingEmitter) broker.subscribe(1L);
+        slow.blockSends();
+
+        broker.publish(1L, notification(1L));
+        awaitNoConnections(1L);
+
+        slow.release.countDown();
+        assertTrue(slow.completion.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void close_shouldNotWaitBehindAStuckWrite_toCloseOtherConnections() throws Exception {
+        broker = broker(8, 1, Duration.ofMillis(100));
+        RecordingEmitter stuck = (RecordingEmitter) broker.subscribe(1L);
+        stuck.blockSends(Duration.ofSeconds(5));
+
+        broker.publish(1L, notification(1L));
+        assertTrue(stuck.sendStarted.await(1, TimeUnit.SECONDS));
+        awaitNoConnections(1L);
+
+        // The stuck write holds the first emitter's lock, so only its own completion may wait for it
+        RecordingEmitter evicted = (RecordingEmitter) broker.subscribe(2L);
+        broker.subscribe(2L);
+
+        assertTrue(evicted.completion.await(1, TimeUnit.SECONDS));
+        assertEquals(1, stuck.completion.getCount());
+
+        stuck.release.countDown();
+        assertTrue(stuck.completion.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void heartbeat_shouldDropConnection_whenClientIsGone() throws Exception {
+        broker = broker(8, 5);
+        RecordingEmitter gone = (RecordingEmitter) broker.subscribe(1L);
+        gone.failSends = true;
+
+        broker.heartbeat();
+
+        assertTrue(gone.completion.await(1, TimeUnit.SECONDS));
+        assertEquals(0, broker.connectionCount(1L));
+    }
+
+    private void awaitNoConnections(Long userId) throws InterruptedException {
+        for (int i = 0; i < 100 && broker.connectionCount(userId) > 0; i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(0, broker.connectionCount(userId));
+    }
+
+    private NotificationBroker broker(int bufferSize, int maxConnectionsPerUser) {
+        return broker(bufferSize, maxConnectionsPerUser, Duration.ofMinutes(1));
+    }
+
+    private NotificationBroker broker(int bufferSize, int maxConnectionsPerUser, Duration writeTimeout) {
+        return new NotificationBroker(bufferSize, maxConnectionsPerUser, Duration.ofMinutes(1), Duration.ofHours(1),
+                2, writeTimeout) {
+            @Override
+            SseEmitter createEmitter(long timeoutMillis) {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    private static NotificationDTO notification(Long id) {
+        return new NotificationDTO(id, NotificationType.INVITE, false, LocalDateTime.now(), "Alice", null, "Read");
+    }
+
+    /**
+     * Holds its lock while sending and completing, as {@link SseEmitter} does, so a blocked send also blocks
+     * completion.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        final BlockingQueue<SseEventBuilder> sent = new LinkedBlockingQueue<>();
+        final CountDownLatch sendStarted = new CountDownLatch(1);
+        final CountDownLatch completion = new CountDownLatch(1);
+        volatile CountDownLatch release = new CountDownLatch(0);
+        volatile Duration maxBlock = Duration.ofSeconds(1);
+        volatile boolean failSends;
+
+        void blockSends() {
+            release = new CountDownLatch(1);
+        }
+
+        void blockSends(Duration maxBlock) {
+            this.maxBlock = maxBlock;
+            blockSends();
+        }
+
+        @Override
+        public synchronized void send(SseEventBuilder builder) throws IOException {
+            sendStarted.countDown();
+            if (failSends) {
+                throw new IOException("Broken pipe");
+            }
+            try {
+                release.await(maxBlock.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.add(builder);
+        }
+
+        @Override
+        public synchronized void complete() {
+            completion.countDown();
+        }
+
+        @Override
+        public synchronized void completeWithError(Throwable ex) {
+            completion.countDown();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.dto.BadgeCounts;
+import com.github.shafina.squadgoals.dto.NotificationChanges;
+import com.github.shafina.squadgoals.dto.NotificationDTO;
+import com.github.shafina.squadgoals.enums.NotificationType;
+import com.github.shafina.squadgoals.event.NotificationCreatedEvent;
+import com.github.shafina.squadgoals.repository.GoalBroadcastRepository;
+import com.github.shafina.squadgoals.repository.NotificationReadStateRepository;
+import com.github.shafina.squadgoals.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class NotificationChangeFeedTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    private NotificationRepository notificationRepository;
+    private GoalBroadcastRepository broadcastRepository;
+    private BadgeCounters badgeCounters;
+    private NotificationChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        broadcastRepository = mock(GoalBroadcastRepository.class);
+        NotificationReadStateRepository readStateRepository = mock(NotificationReadStateRepository.class);
+        badgeCounters = mock(BadgeCounters.class);
+
+        when(readStateRepository.findReadUpToId(1L)).thenReturn(Optional.of(5L));
+        when(badgeCounters.get(1L)).thenReturn(new BadgeCounts(3, 0));
+
+        feed = new NotificationChangeFeed(notificationRepository, broadcastRepository, readStateRepository,
+                badgeCounters, new SimpleMeterRegistry(), Duration.ofSeconds(30), 2, 0, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+    }
+
+    @Test
+    void poll_shouldAnswerRightAway_whenSomethingChanged() {
+        when(notificationRepository.findInboxAfter(eq(1L), eq(5L), eq(10L), any()))
+                .thenReturn(List.of(notification(12L, NOW)));
+        when(broadcastRepository.findInboxAfter(eq(1L), eq(5L), eq(10L), any()))
+                .thenReturn(List.of(notification(11L, NOW.plusMinutes(1))));
+
+        DeferredResult<ResponseEntity<NotificationChanges>> result = feed.poll(1L, 10L, null, null, Duration.ofSeconds(10));
+
+        NotificationChanges changes = body(result);
+        assertEquals(List.of(11L, 12L), changes.notifications().stream().map(NotificationDTO::id).toList());
+        assertEquals(5L, changes.readUpToId());
+        assertEquals(3L, changes.unread());
+        assertEquals(0, feed.waiterCount(1L));
+    }
+
+    @Test
+    void poll_shouldParkUntilTheUserIsSignalled() throws InterruptedException {
+        DeferredResult<ResponseEntity<NotificationChanges>> result = feed.poll(1L, 10L, null, null, Duration.ofSeconds(10));
+
+        assertFalse(result.hasResult());
+        assertEquals(1, feed.waiterCount(1L));
+
+        when(notificationRepository.findInboxAfter(eq(1L), eq(5L), eq(10L), any()))
+                .thenReturn(List.of(notification(12L, NOW)));
+        feed.onNotificationCreated(new NotificationCreatedEvent(2L, notification(13L, NOW)));
+        assertEquals(1, feed.waiterCount(1L));
+
+        feed.onNotificationCreated(new NotificationCreatedEvent(1L, notification(12L, NOW)));
+
+        for (int i = 0; i < 100 && !result.hasResult(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(List.of(12L), body(result).notifications().stream().map(NotificationDTO::id).toList());
+        assertEquals(0, feed.waiterCount(1L));
+    }
+
+    @Test
+    void poll_shouldAnswerOtherUsers_whileAWokenPollsQueryIsSlow() throws InterruptedException {
+        CountDownLatch slowQueryStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlowQuery = new CountDownLatch(1);
+        AtomicInteger queries = new AtomicInteger();
+        when(badgeCounters.get(2L)).thenReturn(new BadgeCounts(0, 0));
+        when(notificationRepository.findInboxAfter(eq(2L), anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            // The first query is the poll's own check, before it parks
+            if (queries.incrementAndGet() == 1) {
+                return List.of();
+            }
+            slowQueryStarted.countDown();
+            releaseSlowQuery.await(5, TimeUnit.SECONDS);
+            return List.of(notification(20L, NOW));
+        });
+
+        DeferredResult<ResponseEntity<NotificationChanges>> slow = feed.poll(2L, 10L, null, null, Duration.ofSeconds(10));
+        DeferredResult<ResponseEntity<NotificationChanges>> fast = feed.poll(1L, 10L, null, null, Duration.ofSeconds(10));
+        when(notificationRepository.findInboxAfter(eq(1L), eq(5L), eq(10L), any()))
+                .thenReturn(List.of(notification(12L, NOW)));
+
+        feed.signal(2L);
+        assertTrue(slowQueryStarted.await(1, TimeUnit.SECONDS));
+        feed.signal(1L);
+
+        try {
+            for (int i = 0; i < 100 && !fast.hasResult(); i++) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(List.of(12L), body(fast).notifications().stream().map(NotificationDTO::id).toList());
+            assertFalse(slow.hasResult());
+        } finally {
+            releaseSlowQuery.countDown();
+        }
+    }
+
+    @Test
+    void poll_shouldAnswerRightAway_whenTheClientsReadStateIsOutOfDate() {
+        NotificationChanges changes = body(feed.poll(1L, 10L, 4L, 3L, Duration.ofSeconds(10)));
+
+        assertTrue(changes.notifications().isEmpty());
+        assertEquals(5L, changes.readUpToId());
+        assertEquals(0, feed.waiterCount(1L));
+        assertEquals(3L, body(feed.poll(1L, 10L, 5L, 4L, Duration.ofSeconds(10))).unread());
+    }
+
+    @Test
+    void poll_shouldPark_whenTheClientsReadStateIsCurrent() {
+        DeferredResult<ResponseEntity<NotificationChanges>> result = feed.poll(1L, 10L, 5L, 3L,
+                Duration.ofSeconds(10));
+
+        assertFalse(result.hasResult());
+        assertEquals(1, feed.waiterCount(1L));
+    }
+
+    @Test
+    void poll_shouldResendRowsCommittedLateBelowSince_butNotAnswerForThemAlone() {
+        NotificationReadStateRepository readStateRepository = mock(NotificationReadStateRepository.class);
+        BadgeCounters badgeCounters = mock(BadgeCounters.class);
+        when(badgeCounters.get(1L)).thenReturn(new BadgeCounts(4, 0));
+        NotificationChangeFeed lookingBack = new NotificationChangeFeed(notificationRepository, broadcastRepository,
+                readStateRepository, badgeCounters, new SimpleMeterRegistry(), Duration.ofSeconds(30), 2, 4, 2);
+
+        // Id 8 was handed out before 10 but committed after the client had seen 10
+        when(notificationRepository.findInboxAfter(eq(1L), eq(0L), eq(6L), any()))
+                .thenReturn(List.of(notification(10L, NOW), notification(8L, NOW)));
+
+        try {
+            assertFalse(lookingBack.poll(1L, 10L, 0L, 4L, Duration.ofSeconds(10)).hasResult());
+
+            NotificationChanges changes = body(lookingBack.poll(1L, 10L, 0L, 3L, Duration.ofSeconds(10)));
+            assertEquals(List.of(10L, 8L), changes.notifications().stream().map(NotificationDTO::id).toList());
+        } finally {
+            lookingBack.close();
+        }
+    }
+
+    @Test
+    void poll_shouldReleaseOldestPoll_whenOverPerUserLimit() {
+        DeferredResult<ResponseEntity<NotificationChanges>> oldest = feed.poll(1L, 10L, null, null, Duration.ofSeconds(10));
+        feed.poll(1L, 10L, null, null, Duration.ofSeconds(10));
+        feed.poll(1L, 10L, null, null, Duration.ofSeconds(10));
+
+        assertEquals(2, feed.waiterCount(1L));
+        assertEquals(HttpStatus.NO_CONTENT, ((ResponseEntity<?>) oldest.getResult()).getStatusCode());
+    }
+
+    @Test
+    void changes_shouldTruncate_whenMoreThanFitInOneResponse() {
+        when(notificationRepository.findInboxAfter(eq(1L), anyLong(), eq(0L), any()))
+                .thenReturn(LongStream.rangeClosed(1, NotificationChangeFeed.MAX_CHANGES + 1)
+                        .mapToObj(id -> notification(id, NOW)).toList());
+
+        NotificationChanges changes = feed.changes(1L, 0L);
+
+        assertTrue(changes.truncated());
+        assertEquals(NotificationChangeFeed.MAX_CHANGES, changes.notifications().size());
+        assertEquals(NotificationChangeFeed.MAX_CHANGES + 1, changes.notifications().get(0).id());
+    }
+
+    @SuppressWarnings("unchecked")
+    private NotificationChanges body(DeferredResult<ResponseEntity<NotificationChanges>> result) {
+        assertTrue(result.hasResult());
+        return ((ResponseEntity<NotificationChanges>) result.getResult()).getBody();
+    }
+
+    private NotificationDTO notification(long id, LocalDateTime createdAt) {
+        return new NotificationDTO(id, NotificationType.SYSTEM, false, createdAt, null, "Goal");
+    }
+}
@@ -0,0 +1,182 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.enums.NotificationType;
+import com.github.shafina.squadgoals.event.NotificationCreatedEvent;
+import com.github.shafina.squadgoals.model.Goal;
+import com.github.shafina.squadgoals.model.Notification;
+import com.github.shafina.squadgoals.model.User;
+import com.github.shafina.squadgoals.repository.GoalRepository;
+import com.github.shafina.squadgoals.repository.NotificationRepository;
+import com.github.shafina.squadgoals.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class NotificationDispatcherTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    private NotificationRepository notificationRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<List<Notification>> written = new CopyOnWriteArrayList<>();
+    private volatile CountDownLatch writerGate = new CountDownLatch(0);
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        when(notificationRepository.saveAll(any())).thenAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals("notification-writer")) {
+                writerGate.await(5, TimeUnit.SECONDS);
+            }
+            List<Notification> notifications = new ArrayList<>(invocation.getArgument(0));
+            written.add(notifications);
+            return notifications;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writerGate.countDown();
+        dispatcher.close();
+    }
+
+    @Test
+    void dispatch_shouldWriteBatchAndCoalesceDuplicates() throws InterruptedException {
+        dispatcher = dispatcher(100, 50, Duration.ofMillis(20));
+
+        dispatcher.dispatch(List.of(
+                draft(2L, 10L, NOW),
+                draft(2L, 10L, NOW.plusHours(3)),
+                draft(3L, 10L, NOW)));
+        dispatcher.close();
+
+        assertEquals(1, written.size());
+        assertEquals(List.of(2L, 3L), written.get(0).stream().map(n -> n.getUser().getId()).toList());
+        assertEquals(1.0, meterRegistry.get("squadgoals.notifications.dispatch.coalesced").counter().count());
+        assertEquals(2.0, meterRegistry.get("squadgoals.notifications.dispatch.batch.size").summary().totalAmount());
+        verify(eventPublisher, times(2)).publishEvent(any(NotificationCreatedEvent.class));
+    }
+
+    @Test
+    void dispatch_shouldSplitIntoBatchesOfConfiguredSize() throws InterruptedException {
+        dispatcher = dispatcher(100, 2, Duration.ofSeconds(5));
+
+        dispatcher.dispatch(List.of(draft(2L, 10L, NOW), draft(3L, 10L, NOW), draft(4L, 10L, NOW),
+                draft(5L, 10L, NOW), draft(6L, 10L, NOW)));
+
+        verify(notificationRepository, timeout(1000).times(2)).saveAll(any());
+        dispatcher.close();
+
+        assertEquals(List.of(2, 2, 1), written.stream().map(List::size).toList());
+    }
+
+    @Test
+    void dispatch_shouldKeepDuplicatesOnDifferentDays() throws InterruptedException {
+        dispatcher = dispatcher(100, 50, Duration.ofMillis(20));
+
+        dispatcher.dispatch(List.of(draft(2L, 10L, NOW), draft(2L, 10L, NOW.plusDays(1))));
+        dispatcher.close();
+
+        assertEquals(2, written.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void dispatch_shouldWriteOnCallerThread_whenQueueIsFull() throws InterruptedException {
+        writerGate = new CountDownLatch(1);
+        dispatcher = dispatcher(1, 1, Duration.ofMillis(1));
+
+        dispatcher.dispatch(List.of(draft(2L, 10L, NOW)));
+        verify(notificationRepository, timeout(1000)).saveAll(any());
+
+        dispatcher.dispatch(List.of(draft(3L, 10L, NOW), draft(4L, 10L, NOW)));
+
+        assertEquals(1, dispatcher.queueDepth());
+        assertEquals(1, written.size());
+        assertEquals(4L, written.get(0).get(0).getUser().getId());
+        assertEquals(1.0, meterRegistry.get("squadgoals.notifications.dispatch.caller.writes").counter().count());
+
+        writerGate.countDown();
+        dispatcher.close();
+
+        assertEquals(3, written.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void dispatch_shouldWaitForTheQueueOncePerCall_whenItStaysFull() throws InterruptedException {
+        writerGate = new CountDownLatch(1);
+        dispatcher = dispatcher(1, 1, Duration.ofMillis(1), Duration.ofMillis(200));
+
+        dispatcher.dispatch(List.of(draft(2L, 10L, NOW)));
+        verify(notificationRepository, timeout(1000)).saveAll(any());
+        dispatcher.dispatch(List.of(draft(3L, 10L, NOW)));
+
+        long start = System.nanoTime();
+        dispatcher.dispatch(List.of(draft(4L, 10L, NOW), draft(5L, 10L, NOW), draft(6L, 10L, NOW),
+                draft(7L, 10L, NOW), draft(8L, 10L, NOW)));
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(waitedMillis < 600, "waited " + waitedMillis + " ms");
+        assertEquals(5.0, meterRegistry.get("squadgoals.notifications.dispatch.caller.writes").counter().count());
+    }
+
+    @Test
+    void dispatch_shouldCountFailedWrites() throws InterruptedException {
+        dispatcher = dispatcher(100, 50, Duration.ofMillis(1));
+        doThrow(new IllegalStateException("database down")).when(notificationRepository).saveAll(any());
+
+        dispatcher.dispatch(List.of(draft(2L, 10L, NOW)));
+        dispatcher.close();
+
+        assertEquals(1.0, meterRegistry.get("squadgoals.notifications.dispatch.failed").counter().count());
+    }
+
+    private NotificationDispatcher dispatcher(int capacity, int batchSize, Duration flushInterval) {
+        return dispatcher(capacity, batchSize, flushInterval, Duration.ofMillis(10));
+    }
+
+    private NotificationDispatcher dispatcher(int capacity, int batchSize, Duration flushInterval,
+                                              Duration enqueueTimeout) {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.getReferenceById(anyLong())).thenAnswer(invocation -> {
+            User user = new User();
+            user.setId(invocation.getArgument(0));
+            return user;
+        });
+
+        GoalRepository goalRepository = mock(GoalRepository.class);
+        when(goalRepository.getReferenceById(anyLong())).thenAnswer(invocation -> {
+            Goal goal = new Goal();
+            goal.setId(invocation.getArgument(0));
+            return goal;
+        });
+
+        return new NotificationDispatcher(notificationRepository, userRepository, goalRepository, eventPublisher,
+                mock(PlatformTransactionManager.class), meterRegistry, capacity, batchSize, flushInterval,
+                enqueueTimeout, Duration.ofSeconds(5));
+    }
+
+    private static NotificationDraft draft(Long userId, Long goalId, LocalDateTime createdAt) {
+        return new NotificationDraft(userId, 1L, "Sender", goalId, "Goal", NotificationType.INVITE, createdAt);
+    }
+}
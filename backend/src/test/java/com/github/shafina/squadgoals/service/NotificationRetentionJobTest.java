@@ -0,0 +1,106 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.repository.GoalBroadcastRepository;
+import com.github.shafina.squadgoals.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class NotificationRetentionJobTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 3, 0);
+
+    private NotificationRepository notificationRepository;
+    private GoalBroadcastRepository broadcastRepository;
+    private LeaseRunner leaseRunner;
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationRetentionJob job;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        broadcastRepository = mock(GoalBroadcastRepository.class);
+        leaseRunner = mock(LeaseRunner.class);
+        meterRegistry = new SimpleMeterRegistry();
+        job = job(true);
+    }
+
+    @Test
+    void purge_shouldDeleteInIdWindowsUpToNewestExpiredRow() throws InterruptedException {
+        when(notificationRepository.findMaxIdCreatedBefore(NOW.minusDays(30))).thenReturn(Optional.of(250L));
+        when(notificationRepository.findMinId()).thenReturn(Optional.of(1L));
+        when(notificationRepository.deleteExpired(anyLong(), anyLong(), any(), any())).thenReturn(10);
+
+        assertEquals(30, job.purge(() -> true));
+
+        verify(notificationRepository).deleteExpired(1L, 101L, NOW.minusDays(30), NOW.minusDays(90));
+        verify(notificationRepository).deleteExpired(101L, 201L, NOW.minusDays(30), NOW.minusDays(90));
+        verify(notificationRepository).deleteExpired(201L, 251L, NOW.minusDays(30), NOW.minusDays(90));
+        assertEquals(30.0, meterRegistry.get("squadgoals.notifications.retention.deleted").counter().count());
+    }
+
+    @Test
+    void purge_shouldDoNothing_whenNothingIsOldEnough() throws InterruptedException {
+        when(notificationRepository.findMaxIdCreatedBefore(any())).thenReturn(Optional.empty());
+        when(notificationRepository.findMinId()).thenReturn(Optional.of(1L));
+
+        assertEquals(0, job.purge(() -> true));
+
+        verify(notificationRepository, never()).deleteExpired(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void purge_shouldDeleteBroadcastsAndTheirReadsAfterUnreadRetention() throws InterruptedException {
+        when(broadcastRepository.findMaxIdCreatedBefore(NOW.minusDays(90))).thenReturn(Optional.of(150L));
+        when(broadcastRepository.findMinId()).thenReturn(Optional.of(1L));
+        when(broadcastRepository.deleteExpired(anyLong(), anyLong(), any())).thenReturn(4);
+
+        assertEquals(8, job.purge(() -> true));
+
+        verify(broadcastRepository).deleteExpired(1L, 101L, NOW.minusDays(90));
+        verify(broadcastRepository).deleteExpired(101L, 151L, NOW.minusDays(90));
+        verify(broadcastRepository).deleteOrphanedReads(101L, 151L);
+        verify(notificationRepository, never()).deleteExpired(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void purge_shouldStop_whenTheLeaseIsLost() throws InterruptedException {
+        when(notificationRepository.findMaxIdCreatedBefore(NOW.minusDays(30))).thenReturn(Optional.of(250L));
+        when(notificationRepository.findMinId()).thenReturn(Optional.of(1L));
+        when(notificationRepository.deleteExpired(anyLong(), anyLong(), any(), any())).thenReturn(10);
+        AtomicInteger checks = new AtomicInteger();
+
+        assertEquals(10, job.purge(() -> checks.incrementAndGet() == 1));
+
+        verify(notificationRepository).deleteExpired(1L, 101L, NOW.minusDays(30), NOW.minusDays(90));
+        verify(notificationRepository, times(1)).deleteExpired(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void run_shouldOnlyPurgeUnderTheJobsLease() {
+        when(leaseRunner.runExclusively(eq(NotificationRetentionJob.JOB_NAME), any())).thenReturn(false);
+
+        job.run();
+        job(false).run();
+
+        verify(leaseRunner, times(1)).runExclusively(eq(NotificationRetentionJob.JOB_NAME), any());
+        verify(notificationRepository, never()).findMinId();
+    }
+
+    private NotificationRetentionJob job(boolean enabled) {
+        return new NotificationRetentionJob(notificationRepository, broadcastRepository, leaseRunner, meterRegistry,
+                Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC), enabled, Duration.ofDays(30),
+                Duration.ofDays(90), 100, Duration.ZERO);
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.model.BackfillState;
+import com.github.shafina.squadgoals.repository.BackfillStateRepository;
+import com.github.shafina.squadgoals.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class NotificationSnapshotBackfillTest {
+
+    private NotificationRepository notificationRepository;
+    private BackfillStateRepository stateRepository;
+    private LeaseRunner leaseRunner;
+    private NotificationSnapshotBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+        stateRepository = mock(BackfillStateRepository.class);
+        leaseRunner = mock(LeaseRunner.class);
+        backfill = new NotificationSnapshotBackfill(notificationRepository, stateRepository, leaseRunner, 100,
+                Duration.ZERO);
+
+        when(notificationRepository.findMinId()).thenReturn(Optional.of(1L));
+        when(notificationRepository.findMaxId()).thenReturn(Optional.of(250L));
+    }
+
+    @Test
+    void backfill_shouldWalkTheIdRangeInWindowsAndComplete() throws InterruptedException {
+        when(stateRepository.findById(NotificationSnapshotBackfill.JOB_NAME)).thenReturn(Optional.empty());
+
+        assertTrue(backfill.backfill(() -> true));
+
+        verify(stateRepository).save(any(BackfillState.class));
+        verify(notificationRepository).backfillGoalTitles(1L, 101L);
+        verify(notificationRepository).backfillSenderNames(101L, 201L);
+        verify(notificationRepository).backfillGoalTitles(201L, 251L);
+        verify(stateRepository).recordProgress(NotificationSnapshotBackfill.JOB_NAME, 250L);
+        verify(stateRepository).recordCompletion(eq(NotificationSnapshotBackfill.JOB_NAME), any());
+    }
+
+    @Test
+    void backfill_shouldCarryOnAfterTheRecordedProgress() throws InterruptedException {
+        BackfillState state = new BackfillState(NotificationSnapshotBackfill.JOB_NAME);
+        state.setLastId(200L);
+        when(stateRepository.findById(NotificationSnapshotBackfill.JOB_NAME)).thenReturn(Optional.of(state));
+
+        assertTrue(backfill.backfill(() -> true));
+
+        verify(notificationRepository, times(1)).backfillGoalTitles(anyLong(), anyLong());
+        verify(notificationRepository).backfillGoalTitles(201L, 251L);
+    }
+
+    @Test
+    void backfill_shouldStopWithoutCompleting_whenTheLeaseIsLost() throws InterruptedException {
+        when(stateRepository.findById(NotificationSnapshotBackfill.JOB_NAME)).thenReturn(Optional.empty());
+        AtomicInteger checks = new AtomicInteger();
+
+        assertFalse(backfill.backfill(() -> checks.incrementAndGet() == 1));
+
+        verify(notificationRepository, times(1)).backfillGoalTitles(anyLong(), anyLong());
+        verify(stateRepository).recordProgress(NotificationSnapshotBackfill.JOB_NAME, 100L);
+        verify(stateRepository, never()).recordCompletion(any(), any());
+    }
+
+    @Test
+    void run_shouldNotScanAgain_onceCompleted() {
+        BackfillState state = new BackfillState(NotificationSnapshotBackfill.JOB_NAME);
+        state.setCompletedAt(LocalDateTime.now());
+        when(stateRepository.findById(NotificationSnapshotBackfill.JOB_NAME)).thenReturn(Optional.of(state));
+        when(leaseRunner.runExclusively(eq(NotificationSnapshotBackfill.JOB_NAME), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<BooleanSupplier>>getArgument(1)
+                    .accept(() -> true);
+            return true;
+        });
+
+        backfill.run();
+        backfill.run();
+
+        verify(leaseRunner, times(1)).runExclusively(eq(NotificationSnapshotBackfill.JOB_NAME), any());
+        verify(notificationRepository, never()).findMaxId();
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.shafina.squadgoals.service;
+
+import com.github.shafina.squadgoals.dto.GoalDTO;
+import com.github.shafina.squadgoals.dto.UserDTO;
+import com.github.shafina.squadgoals.event.GoalCreatedEvent;
+import com.github.shafina.squadgoals.event.GoalSquadChangedEvent;
+import com.github.shafina.squadgoals.model.Goal;
+import com.github.shafina.squadgoals.model.User;
+import com.github.shafina.squadgoals.repository.GoalDTOQueriesStubs;
+import com.github.shafina.squadgoals.repository.GoalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RecentGoalsBufferTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    private GoalRepository goalRepository;
+    private RecentGoalsBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        goalRepository = mock(GoalRepository.class);
+        buffer = new RecentGoalsBuffer(goalRepository, TransactionOperations.withoutTransaction(), 3);
+        GoalDTOQueriesStubs.mapInMemory(goalRepository);
+    }
+
+    @Test
+    void reload_shouldLoadNewestPublicGoals() {
+        when(goalRepository.findPublicFeed(Limit.of(3))).thenReturn(List.of(goal(3), goal(2)));
+
+        buffer.reload();
+
+        assertEquals(List.of(3L, 2L), ids(buffer.newest(5)));
+    }
+
+    @Test
+    void newest_shouldServeEverything_whileRingHasNotWrapped() {
+        buffer.onGoalCreated(new GoalCreatedEvent(dto(1, true)));
+        buffer.onGoalCreated(new GoalCreatedEvent(dto(2, true)));
+
+        assertEquals(List.of(2L, 1L), ids(buffer.newest(10)));
+        assertEquals(List.of(2L), ids(buffer.newest(1)));
+    }
+
+    @Test
+    void newest_shouldDecline_whenRingCannotFillRequestAfterWrapping() {
+        for (long id = 1; id <= 5; id++) {
+            buffer.onGoalCreated(new GoalCreatedEvent(dto(id, true)));
+        }
+
+        assertEquals(List.of(5L, 4L, 3L), ids(buffer.newest(3)));
+        assertTrue(buffer.newest(4).isEmpty());
+    }
+
+    @Test
+    void onGoalCreated_shouldIgnorePrivateGoals() {
+        buffer.onGoalCreated(new GoalCreatedEvent(dto(1, false)));
+
+        assertEquals(List.of(), ids(buffer.newest(3)));
+    }
+
+    @Test
+    void evict_shouldDropGoal_andFallBackWhenPageCannotBeFilled() {
+        for (long id = 1; id <= 3; id++) {
+            buffer.onGoalCreated(new GoalCreatedEvent(dto(id, true)));
+        }
+
+        buffer.evict(2L);
+
+        assertEquals(List.of(3L, 1L), ids(buffer.newest(2)));
+        assertTrue(buffer.newest(3).isEmpty());
+    }
+
+    @Test
+    void reload_shouldPickUpGoalsCreatedOnOtherNodes() {
+        buffer.onGoalCreated(new GoalCreatedEvent(dto(5, true)));
+        when(goalRepository.findPublicFeed(Limit.of(3))).thenReturn(List.of(goal(6), goal(5)));
+
+        buffer.reload();
+
+        assertEquals(List.of(6L, 5L), ids(buffer.newest(3)));
+    }
+
+    @Test
+    void onGoalSquadChanged_shouldServeTheNewSquad() {
+        buffer.onGoalCreated(new GoalCreatedEvent(dto(1, true)));
+        buffer.onGoalCreated(new GoalCreatedEvent(dto(2, true)));
+
+        User bob = new User();
+        bob.setId(2L);
+        bob.setName("Bob");
+        Goal changed = goal(1);
+        changed.setSquad(Set.of(bob));
+        when(goalRepository.findById(1L)).thenReturn(Optional.of(changed));
+
+        buffer.onGoalSquadChanged(new GoalSquadChangedEvent(1L));
+
+        List<GoalDTO> page = buffer.newest(2).orElseThrow();
+        assertEquals(List.of(2L, 1L), page.stream().map(GoalDTO::id).toList());
+        assertEquals(Set.of("Bob"), page.get(1).squad().stream().map(UserDTO::name).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void onGoalSquadChanged_shouldNotQuery_forGoalsOutsideTheRing() {
+        buffer.onGoalCreated(new GoalCreatedEvent(dto(1, true)));
+
+        buffer.onGoalSquadChanged(new GoalSquadChangedEvent(9L));
+
+        verify(goalRepository, never()).findById(any());
+        assertEquals(List.of(1L), ids(buffer.newest(1)));
+    }
+
+    @Test
+    void newest_shouldStayConsistent_underConcurrentAppends() throws InterruptedException {
+        RecentGoalsBuffer large = new RecentGoalsBuffer(goalRepository, TransactionOperations.withoutTransaction(), 64);
+        List<Thread> writers = new ArrayList<>();
+
+        for (int w = 0; w < 4; w++) {
+            int offset = w * 1000;
+            Thread writer = new Thread(() -> {
+                for (int i = 1; i <= 1000; i++) {
+                    large.onGoalCreated(new GoalCreatedEvent(dto(offset + i, true)));
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            large.newest(10).ifPresent(page -> assertTrue(page.size() <= 10));
+        }
+
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals(10, large.newest(10).orElseThrow().size());
+    }
+
+    private static List<Long> ids(Optional<List<GoalDTO>> goals) {
+        return goals.orElseThrow().stream().map(GoalDTO::id).toList();
+    }
+
+    private static GoalDTO dto(long id, boolean isPublic) {
+        LocalDateTime createdAt = BASE.plusMinutes(id);
+        return new GoalDTO(id, "Goal " + id, null, new UserDTO(1L, "Alice", null, "UTC"), "UTC", null, null,
+                isPublic, createdAt, createdAt, null, Set.of(), Set.of());
+    }
+
+    private static Goal goal(long id) {
+        User creator = new User();
+        creator.setId(1L);
+
+        Goal goal = new Goal();
+        goal.setId(id);
+        goal.setCreatedBy(creator);
+        goal.setCreatedAt(BASE.plusMinutes(id));
+        goal.setPublic(true);
+        return goal;
+    }
+}
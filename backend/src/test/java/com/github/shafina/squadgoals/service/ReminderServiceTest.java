@@ -1,115 +1,383 @@
 package com.github.shafina.squadgoals.service;
 
-import com.github.shafina.squadgoals.model.Goal;
-import com.github.shafina.squadgoals.model.Notification;
-import com.github.shafina.squadgoals.model.User;
+import com.github.shafina.squadgoals.dto.ReminderRecipient;
+import com.github.shafina.squadgoals.enums.NotificationType;
+import com.github.shafina.squadgoals.event.NotificationCreatedEvent;
+import com.github.shafina.squadgoals.model.ReminderJobState;
+import com.github.shafina.squadgoals.repository.GoalBroadcastRepository;
 import com.github.shafina.squadgoals.repository.GoalRepository;
-import com.github.shafina.squadgoals.repository.NotificationRepository;
+import com.github.shafina.squadgoals.repository.ReminderJobStateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.lang.reflect.Field;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.*;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class ReminderServiceTest {
 
+    private static final String JOB = new ReminderService.Shard(0, 1).jobName();
+
     private GoalRepository goalRepository;
-    private NotificationRepository notificationRepository;
+    private GoalBroadcastRepository goalBroadcastRepository;
+    private ReminderJobStateRepository jobStateRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private SimpleMeterRegistry meterRegistry;
+    private InMemoryLeaseManager leaseManager;
+    private LeaseRunner leaseRunner;
     private ReminderService reminderService;
 
     @BeforeEach
     void setUp() {
         goalRepository = mock(GoalRepository.class);
-        notificationRepository = mock(NotificationRepository.class);
+        goalBroadcastRepository = mock(GoalBroadcastRepository.class);
+        jobStateRepository = mock(ReminderJobStateRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        meterRegistry = new SimpleMeterRegistry();
+        leaseManager = spy(new InMemoryLeaseManager(Clock.systemDefaultZone()));
+        leaseRunner = new LeaseRunner(leaseManager, "node-a", Duration.ofMinutes(2));
         reminderService = new ReminderService();
         // Use reflection to inject mocks since fields are package-private
-        try {
-            Field goalRepoField = ReminderService.class.getDeclaredField("goalRepository");
-            goalRepoField.setAccessible(true);
-            goalRepoField.set(reminderService, goalRepository);
+        inject("goalRepository", goalRepository);
+        inject("goalBroadcastRepository", goalBroadcastRepository);
+        inject("jobStateRepository", jobStateRepository);
+        inject("eventPublisher", eventPublisher);
+        inject("transactionManager", mock(PlatformTransactionManager.class));
+        inject("meterRegistry", meterRegistry);
+        inject("leaseRunner", leaseRunner);
+        inject("chunkSize", 2);
+        inject("shardCount", 1);
+        inject("parallelism", 1);
+        inject("connectionPoolSize", 10);
+    }
 
-            Field notifRepoField = ReminderService.class.getDeclaredField("notificationRepository");
-            notifRepoField.setAccessible(true);
-            notifRepoField.set(reminderService, notificationRepository);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    @AfterEach
+    void tearDown() {
+        leaseRunner.close();
     }
 
     @Test
-    void sendDailyReminders_shouldSendNotificationAndUpdateGoal() {
-        Goal goal = mock(Goal.class);
-        User user = mock(User.class);
-        Set<User> squad = new HashSet<>(List.of(user));
-        when(goal.getSquad()).thenReturn(squad);
-        when(goal.getTitle()).thenReturn("Test Goal");
-        when(goal.getFrequency()).thenReturn(com.github.shafina.squadgoals.enums.Frequency.DAILY);
-        when(goal.getNextDueAt()).thenReturn(LocalDateTime.now());
+    void sendDailyReminders_shouldTellEverySquadMemberAboutNewReminders() {
+        when(goalRepository.findDueGoalIds(eq(0), eq(1), eq(0L), any(), any())).thenReturn(List.of(7L));
+        when(goalBroadcastRepository.insertDueReminders(anyInt(), anyInt(), anyLong(), anyLong(), any(), any(),
+                any())).thenReturn(1);
+        when(goalBroadcastRepository.findReminderRecipients(anyInt(), anyInt(), anyLong(), anyLong(), any(), any()))
+                .thenReturn(List.of(recipient(1L, 100L), recipient(2L, 100L)));
+        when(goalRepository.advanceDueGoals(anyInt(), anyInt(), anyLong(), anyLong(), any(), any())).thenReturn(1);
 
-        when(goalRepository.findGoalsDueToday(any())).thenReturn(List.of(goal));
-        when(notificationRepository.existsByUserAndGoalAndNotificationTypeAndCreatedAtBetween(any(), any(), any(),
-                any(), any()))
-                .thenReturn(false);
+        ReminderRun run = reminderService.sendDailyReminders();
+
+        assertEquals(new ReminderRun(1, 0), run);
+        verify(eventPublisher).publishEvent(argThat((NotificationCreatedEvent event) -> event.userId() == 1L));
+        verify(eventPublisher).publishEvent(argThat((NotificationCreatedEvent event) -> event.userId() == 2L));
+    }
+
+    @Test
+    void sendDailyReminders_shouldPostAndAdvanceForTheSameDay() {
+        when(goalRepository.findDueGoalIds(eq(0), eq(1), eq(0L), any(), any())).thenReturn(List.of(7L));
 
         reminderService.sendDailyReminders();
 
-        verify(notificationRepository, times(1)).save(any(Notification.class));
-        verify(goalRepository, times(1)).save(goal);
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDate> today = ArgumentCaptor.forClass(LocalDate.class);
+        ArgumentCaptor<LocalDateTime> postedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(goalBroadcastRepository).insertDueReminders(eq(0), eq(1), eq(0L), eq(7L), now.capture(),
+                today.capture(), postedAt.capture());
+        verify(goalRepository).advanceDueGoals(0, 1, 0L, 7L, now.getValue(), today.getValue());
+        assertEquals(now.getValue(), postedAt.getValue());
+        assertEquals(now.getValue().toLocalDate(), today.getValue());
+    }
+
+    @Test
+    void sendDailyReminders_shouldWorkThroughDueGoalsInChunksAndRecordProgress() {
+        when(goalRepository.findDueGoalIds(eq(0), eq(1), eq(0L), any(), eq(Limit.of(2)))).thenReturn(List.of(3L, 5L));
+        when(goalRepository.findDueGoalIds(eq(0), eq(1), eq(5L), any(), eq(Limit.of(2)))).thenReturn(List.of(8L));
+        when(goalBroadcastRepository.insertDueReminders(anyInt(), anyInt(), anyLong(), anyLong(), any(), any(),
+                any())).thenReturn(2, 1);
+        when(goalRepository.advanceDueGoals(anyInt(), anyInt(), anyLong(), anyLong(), any(), any())).thenReturn(2, 1);
+
+        ReminderRun run = reminderService.sendDailyReminders();
+
+        assertEquals(new ReminderRun(3, 0), run);
+        verify(goalBroadcastRepository).insertDueReminders(eq(0), eq(1), eq(0L), eq(5L), any(), any(), any());
+        verify(goalBroadcastRepository).insertDueReminders(eq(0), eq(1), eq(5L), eq(8L), any(), any(), any());
+        verify(jobStateRepository).recordProgress(JOB, LocalDate.now(), 5L, 2L);
+        verify(jobStateRepository).recordProgress(JOB, LocalDate.now(), 8L, 1L);
+        verify(goalRepository, never()).findDueGoalIds(anyInt(), anyInt(), eq(8L), any(), any());
+        verify(jobStateRepository).recordCompletion(eq(JOB), eq(LocalDate.now()), any());
     }
 
     @Test
-    void sendDailyReminders_shouldNotSendDuplicateNotification() {
-        Goal goal = mock(Goal.class);
-        User user = mock(User.class);
-        Set<User> squad = new HashSet<>(List.of(user));
-        when(goal.getSquad()).thenReturn(squad);
-        when(goal.getTitle()).thenReturn("Test Goal");
-        when(goal.getFrequency()).thenReturn(com.github.shafina.squadgoals.enums.Frequency.DAILY);
-        when(goal.getNextDueAt()).thenReturn(LocalDateTime.now());
+    void sendDailyReminders_shouldResumeAfterTodaysLastRecordedGoal() {
+        when(jobStateRepository.findById(JOB)).thenReturn(Optional.of(new ReminderJobState(JOB, LocalDate.now(), 5L)));
+
+        reminderService.sendDailyReminders();
 
-        when(goalRepository.findGoalsDueToday(any())).thenReturn(List.of(goal));
-        when(notificationRepository.existsByUserAndGoalAndNotificationTypeAndCreatedAtBetween(any(), any(), any(),
-                any(), any()))
-                .thenReturn(true);
+        verify(goalRepository).findDueGoalIds(eq(0), eq(1), eq(5L), any(), any());
+        verify(jobStateRepository, never()).save(any());
+    }
+
+    @Test
+    void sendDailyReminders_shouldStartOverOnANewDay() {
+        when(jobStateRepository.findById(JOB)).thenReturn(Optional.of(
+                new ReminderJobState(JOB, LocalDate.now().minusDays(1), 5L)));
 
         reminderService.sendDailyReminders();
 
-        verify(notificationRepository, never()).save(any(Notification.class));
-        verify(goalRepository, times(1)).save(goal);
+        verify(goalRepository).findDueGoalIds(eq(0), eq(1), eq(0L), any(), any());
+        verify(jobStateRepository).save(argThat(state -> state.getRunDate().equals(LocalDate.now())
+                && state.getLastGoalId() == 0L));
+    }
+
+    @Test
+    void sendDailyReminders_shouldCountGoalsThatAlreadyHadTodaysReminderAsSkipped() {
+        when(goalRepository.findDueGoalIds(eq(0), eq(1), eq(0L), any(), any())).thenReturn(List.of(7L));
+        when(goalRepository.advanceDueGoals(anyInt(), anyInt(), anyLong(), anyLong(), any(), any())).thenReturn(1);
+
+        ReminderRun run = reminderService.sendDailyReminders();
+
+        assertEquals(new ReminderRun(0, 1), run);
+        verify(goalBroadcastRepository, never()).findReminderRecipients(anyInt(), anyInt(), anyLong(), anyLong(),
+                any(), any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
     @Test
     void sendDailyReminders_shouldHandleNoGoals() {
-        when(goalRepository.findGoalsDueToday(any())).thenReturn(Collections.emptyList());
+        ReminderRun run = reminderService.sendDailyReminders();
+
+        assertEquals(new ReminderRun(0, 0), run);
+        verify(goalRepository, never()).advanceDueGoals(anyInt(), anyInt(), anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void sendDailyReminders_shouldSkipShardsCompletedToday() {
+        when(jobStateRepository.findCompleted(List.of(JOB), LocalDate.now())).thenReturn(List.of(JOB));
+
+        assertEquals(new ReminderRun(0, 0), reminderService.sendDailyReminders());
+
+        verify(goalRepository, never()).findDueGoalIds(anyInt(), anyInt(), anyLong(), any(), any());
+    }
+
+    @Test
+    void sendDailyReminders_shouldNotRedoAShardCompletedWhileWaitingForItsLease() {
+        ReminderJobState state = new ReminderJobState(JOB, LocalDate.now(), 9L);
+        state.setCompletedAt(LocalDateTime.now());
+        when(jobStateRepository.findById(JOB)).thenReturn(Optional.of(state));
 
         reminderService.sendDailyReminders();
 
-        verify(notificationRepository, never()).save(any(Notification.class));
-        verify(goalRepository, never()).save(any());
+        verify(goalRepository, never()).findDueGoalIds(anyInt(), anyInt(), anyLong(), any(), any());
+        verify(jobStateRepository, never()).recordCompletion(any(), any(), any());
     }
 
     @Test
-    void sendDailyReminders_shouldHandleMultipleUsers() {
-        Goal goal = mock(Goal.class);
-        User user1 = mock(User.class);
-        User user2 = mock(User.class);
-        Set<User> squad = new HashSet<>(Arrays.asList(user1, user2));
-        when(goal.getSquad()).thenReturn(squad);
-        when(goal.getTitle()).thenReturn("Test Goal");
-        when(goal.getFrequency()).thenReturn(com.github.shafina.squadgoals.enums.Frequency.DAILY);
-        when(goal.getNextDueAt()).thenReturn(LocalDateTime.now());
+    void sendDailyReminders_shouldWorkShardsSideBySideAndReportEachOne() {
+        inject("shardCount", 3);
+        inject("parallelism", 3);
+        when(goalRepository.findDueGoalIds(anyInt(), eq(3), eq(0L), any(), any())).thenAnswer(invocation ->
+                List.of(10L + invocation.<Integer>getArgument(0)));
+        when(goalBroadcastRepository.insertDueReminders(anyInt(), eq(3), anyLong(), anyLong(), any(), any(),
+                any())).thenReturn(1);
+        when(goalRepository.advanceDueGoals(anyInt(), eq(3), anyLong(), anyLong(), any(), any())).thenReturn(1);
+
+        ReminderRun run = reminderService.sendDailyReminders();
+
+        assertEquals(new ReminderRun(3, 0), run);
 
-        when(goalRepository.findGoalsDueToday(any())).thenReturn(List.of(goal));
-        when(notificationRepository.existsByUserAndGoalAndNotificationTypeAndCreatedAtBetween(any(), any(), any(),
-                any(), any()))
-                .thenReturn(false);
+        for (int shard = 0; shard < 3; shard++) {
+            String jobName = new ReminderService.Shard(shard, 3).jobName();
+            verify(goalBroadcastRepository).insertDueReminders(eq(shard), eq(3), eq(0L), eq(10L + shard),
+                    any(), any(), any());
+            verify(jobStateRepository).recordProgress(jobName, LocalDate.now(), 10L + shard, 1L);
+            verify(jobStateRepository).recordCompletion(eq(jobName), eq(LocalDate.now()), any());
+            assertEquals(1, meterRegistry.get("squadgoals.reminders.shard")
+                    .tag("shard", String.valueOf(shard)).timer().count());
+            assertEquals(1.0, meterRegistry.get("squadgoals.reminders.posted")
+                    .tag("shard", String.valueOf(shard)).counter().count());
+        }
+    }
+
+    @Test
+    void sendDailyReminders_shouldWorkEveryShardEvenWithFewerWorkers() {
+        inject("shardCount", 4);
+        inject("parallelism", 2);
 
         reminderService.sendDailyReminders();
 
-        verify(notificationRepository, times(2)).save(any(Notification.class));
-        verify(goalRepository, times(1)).save(goal);
+        for (int shard = 0; shard < 4; shard++) {
+            verify(goalRepository).findDueGoalIds(eq(shard), eq(4), eq(0L), any(), any());
+        }
+    }
+
+    @Test
+    void sendDailyReminders_shouldFailAfterEveryShardHasFinished() {
+        inject("shardCount", 2);
+        inject("parallelism", 2);
+        when(goalRepository.findDueGoalIds(eq(0), eq(2), anyLong(), any(), any()))
+                .thenThrow(new IllegalStateException("database down"));
+        when(goalRepository.findDueGoalIds(eq(1), eq(2), eq(0L), any(), any())).thenReturn(List.of(11L));
+
+        assertThrows(IllegalStateException.class, () -> reminderService.sendDailyReminders());
+
+        verify(jobStateRepository).recordProgress(new ReminderService.Shard(1, 2).jobName(), LocalDate.now(), 11L,
+                0L);
+    }
+
+    @Test
+    void sendDailyReminders_shouldLeaveAShardToTheNodeHoldingItsLease() {
+        leaseManager.tryAcquire(JOB, "node-b", Duration.ofMinutes(2));
+
+        assertEquals(new ReminderRun(0, 0), reminderService.sendDailyReminders());
+
+        verify(goalRepository, never()).findDueGoalIds(anyInt(), anyInt(), anyLong(), any(), any());
+    }
+
+    @Test
+    void sendDailyReminders_shouldHoldNoMoreThanTheFairShareOfTheLiveNodesAtOnce() {
+        inject("shardCount", 4);
+        inject("parallelism", 4);
+        leaseManager.tryAcquire(ReminderService.NODES + "/node-a", "node-a", Duration.ofMinutes(2));
+        leaseManager.tryAcquire(ReminderService.NODES + "/node-b", "node-b", Duration.ofMinutes(2));
+
+        AtomicInteger working = new AtomicInteger();
+        AtomicInteger mostWorking = new AtomicInteger();
+        when(goalRepository.findDueGoalIds(anyInt(), eq(4), eq(0L), any(), any())).thenAnswer(invocation -> {
+            mostWorking.accumulateAndGet(working.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            working.decrementAndGet();
+            return List.of();
+        });
+
+        assertEquals(2, reminderService.fairShare());
+
+        reminderService.sendDailyReminders();
+
+        assertEquals(2, mostWorking.get());
+        verify(jobStateRepository, times(4)).recordCompletion(any(), any(), any());
+    }
+
+    @Test
+    void sendDailyReminders_shouldHandShardsOverWhenANodeJoins() {
+        inject("shardCount", 2);
+        inject("parallelism", 2);
+        leaseManager.tryAcquire(ReminderService.NODES + "/node-a", "node-a", Duration.ofMinutes(2));
+        CountDownLatch bothWorking = new CountDownLatch(2);
+        when(goalRepository.findDueGoalIds(anyInt(), eq(2), eq(0L), any(), any())).thenAnswer(invocation -> {
+            // Both shards are held when the node joins, rather than one finishing before the other is claimed
+            bothWorking.countDown();
+            assertTrue(bothWorking.await(1, TimeUnit.SECONDS));
+            leaseManager.tryAcquire(ReminderService.NODES + "/node-b", "node-b", Duration.ofMinutes(2));
+            int shard = invocation.getArgument(0);
+            return List.of(10L + shard, 20L + shard);
+        });
+
+        reminderService.sendDailyReminders();
+
+        // However the two workers interleave, exactly one shard is left for the new node
+        verify(jobStateRepository, times(1)).recordCompletion(any(), any(), any());
+    }
+
+    @Test
+    void sendDailyReminders_shouldStopAShardOnceItsLeaseIsLost() {
+        LeaseManager refusing = mock(LeaseManager.class);
+        when(refusing.tryAcquire(anyString(), anyString(), any())).thenReturn(true, false);
+        LeaseRunner expiring = new LeaseRunner(refusing, "node-a", Duration.ofMillis(30));
+        inject("leaseRunner", expiring);
+        when(goalRepository.findDueGoalIds(eq(0), eq(1), eq(0L), any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return List.of(3L, 5L);
+        });
+
+        try {
+            reminderService.sendDailyReminders();
+        } finally {
+            expiring.close();
+        }
+
+        verify(jobStateRepository).recordProgress(JOB, LocalDate.now(), 5L, 0L);
+        verify(goalRepository, never()).findDueGoalIds(anyInt(), anyInt(), eq(5L), any(), any());
+        verify(jobStateRepository, never()).recordCompletion(any(), any(), any());
+    }
+
+    @Test
+    void runDueWindow_shouldJoinTheNodesAndMarkTheWindowCompletedOnceEveryShardIs() {
+        when(goalRepository.findDueGoalIds(eq(0), eq(1), eq(0L), any(), any())).thenReturn(List.of(7L));
+        when(jobStateRepository.findCompleted(List.of(JOB), LocalDate.now())).thenReturn(List.of(), List.of(JOB));
+
+        reminderService.runDueWindow();
+
+        verify(goalBroadcastRepository).insertDueReminders(eq(0), eq(1), eq(0L), eq(7L), any(), any(), any());
+        verify(jobStateRepository).save(argThat(state -> state.getJobName().equals(ReminderService.JOB_NAME)
+                && state.isCompletedOn(LocalDate.now())));
+        assertTrue(leaseManager.tryAcquire(JOB, "node-b", Duration.ofMinutes(2)));
+        verify(leaseManager, timeout(1000)).tryAcquire(ReminderService.NODES + "/node-a", "node-a",
+                Duration.ofMinutes(2));
+    }
+
+    @Test
+    void runDueWindow_shouldSkipAWindowThatIsAlreadyCompleted() {
+        ReminderJobState window = new ReminderJobState(ReminderService.JOB_NAME, LocalDate.now(), 0);
+        window.setCompletedAt(LocalDateTime.now());
+        when(jobStateRepository.findById(ReminderService.JOB_NAME)).thenReturn(Optional.of(window));
+
+        reminderService.runDueWindow();
+
+        verify(goalRepository, never()).findDueGoalIds(anyInt(), anyInt(), anyLong(), any(), any());
+    }
+
+    @Test
+    void runDueWindow_shouldLeaveTheWindowOpenWhileShardsAreOutstanding() {
+        leaseManager.tryAcquire(JOB, "node-b", Duration.ofMinutes(2));
+
+        reminderService.runDueWindow();
+
+        verify(goalRepository, never()).findDueGoalIds(anyInt(), anyInt(), anyLong(), any(), any());
+        verify(jobStateRepository, never()).save(argThat(state ->
+                state.getJobName().equals(ReminderService.JOB_NAME)));
+    }
+
+    @Test
+    void workers_shouldBeCappedAtHalfTheConnectionPool() {
+        inject("parallelism", 8);
+        inject("connectionPoolSize", 6);
+
+        assertEquals(3, reminderService.workers());
+
+        inject("connectionPoolSize", 1);
+
+        assertEquals(1, reminderService.workers());
+    }
+
+    private void inject(String name, Object value) {
+        try {
+            Field field = ReminderService.class.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(reminderService, value);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static ReminderRecipient recipient(Long userId, Long broadcastId) {
+        return new ReminderRecipient(userId, broadcastId, NotificationType.SYSTEM, LocalDateTime.now(), "Test Goal");
     }
 }
@@ -0,0 +1,17 @@
+import { BadgeCounts } from "@/lib/types";
+
+export const fetchBadges = async (idToken: string): Promise<BadgeCounts> => {
+  const res = await fetch("http://localhost:8080/api/badges", {
+    method: "GET",
+    headers: {
+      "Content-Type": "application/json",
+      Authorization: `Bearer ${idToken}`,
+    },
+  });
+
+  if (!res.ok) {
+    throw new Error("Failed to fetch badges");
+  }
+
+  return res.json();
+};
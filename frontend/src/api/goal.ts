@@ -1,4 +1,4 @@
-import { Goal } from "@/lib/types";
+import { CursorPage, Goal } from "@/lib/types";
 
 interface CreateGoalBody {
   title: string;
@@ -11,15 +11,21 @@ interface CreateGoalBody {
   timezone: string;
 }
 
-export const fetchRecentGoals = async ({
-  recent = true,
+export const fetchGoalsPage = async ({
+  before,
   limit = 6,
 }: {
-  recent?: boolean;
+  before?: string;
   limit?: number;
-}): Promise<Goal[]> => {
+}): Promise<CursorPage<Goal>> => {
+  const params = new URLSearchParams({ limit: String(limit) });
+
+  if (before) {
+    params.set("before", before);
+  }
+
   const res = await fetch(
-    `http://localhost:8080/api/goals?recent=${recent}&limit=${limit}`,
+    `http://localhost:8080/api/goals?${params.toString()}`,
     {
       method: "GET",
       headers: {
@@ -35,6 +41,16 @@ export const fetchRecentGoals = async ({
   return res.json();
 };
 
+export const fetchRecentGoals = async ({
+  limit = 6,
+}: {
+  limit?: number;
+}): Promise<Goal[]> => {
+  const page = await fetchGoalsPage({ limit });
+
+  return page.content;
+};
+
 export const createGoal = async (
   body: CreateGoalBody,
   idToken: string
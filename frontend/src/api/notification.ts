@@ -1,16 +1,30 @@
-import { Notification } from "@/lib/types";
+import {
+  CursorPage,
+  MarkReadResult,
+  Notification,
+  NotificationChanges,
+} from "@/lib/types";
 
-export const fetchRecentNotifications = async ({
-  recent = true,
+// Consecutive stream attempts that fail or end without a single event before falling back to long-polling
+const MAX_STREAM_FAILURES = 3;
+
+export const fetchNotificationsPage = async ({
+  before,
   limit = 6,
   idToken,
 }: {
-  recent?: boolean;
+  before?: string;
   limit?: number;
   idToken: string;
-}): Promise<Notification[]> => {
+}): Promise<CursorPage<Notification>> => {
+  const params = new URLSearchParams({ limit: String(limit) });
+
+  if (before) {
+    params.set("before", before);
+  }
+
   const res = await fetch(
-    `http://localhost:8080/api/notifications?recent=${recent}&limit=${limit}`,
+    `http://localhost:8080/api/notifications?${params.toString()}`,
     {
       method: "GET",
       headers: {
@@ -27,6 +41,18 @@ export const fetchRecentNotifications = async ({
   return res.json();
 };
 
+export const fetchRecentNotifications = async ({
+  limit = 6,
+  idToken,
+}: {
+  limit?: number;
+  idToken: string;
+}): Promise<Notification[]> => {
+  const page = await fetchNotificationsPage({ limit, idToken });
+
+  return page.content;
+};
+
 export const markNotificationAsRead = async (
   notificationId: number,
   idToken: string
@@ -47,11 +73,34 @@ export const markNotificationAsRead = async (
   }
 };
 
-export const markAllNotificationsAsRead = async (
+export const markNotificationsAsRead = async (
+  notificationIds: number[],
   idToken: string
+): Promise<MarkReadResult> => {
+  const res = await fetch(`http://localhost:8080/api/notifications/read`, {
+    method: "PATCH",
+    headers: {
+      "Content-Type": "application/json",
+      Authorization: `Bearer ${idToken}`,
+    },
+    body: JSON.stringify({ ids: notificationIds }),
+  });
+
+  if (!res.ok) {
+    throw new Error("Failed to mark notifications as read");
+  }
+
+  return res.json();
+};
+
+export const markAllNotificationsAsRead = async (
+  idToken: string,
+  upTo?: number
 ): Promise<void> => {
+  const params = upTo !== undefined ? `?upTo=${upTo}` : "";
+
   const res = await fetch(
-    `http://localhost:8080/api/notifications/mark-all-read`,
+    `http://localhost:8080/api/notifications/mark-all-read${params}`,
     {
       method: "PATCH",
       headers: {
@@ -64,6 +113,188 @@ export const markAllNotificationsAsRead = async (
   if (!res.ok) {
     throw new Error("Failed to mark all notifications as read");
   }
+};
+
+// Resolves to null when nothing changed within the wait
+// Passing the read state from the last answer makes the server answer right away when it has since changed
+export const fetchNotificationChanges = async ({
+  since,
+  readUpTo,
+  unread,
+  wait = 25,
+  idToken,
+  signal,
+}: {
+  since: number;
+  readUpTo?: number;
+  unread?: number;
+  wait?: number;
+  idToken: string;
+  signal?: AbortSignal;
+}): Promise<NotificationChanges | null> => {
+  const params = new URLSearchParams({
+    since: String(since),
+    wait: String(wait),
+  });
+
+  if (readUpTo !== undefined && unread !== undefined) {
+    params.set("readUpTo", String(readUpTo));
+    params.set("unread", String(unread));
+  }
+
+  const res = await fetch(
+    `http://localhost:8080/api/notifications/changes?${params.toString()}`,
+    {
+      method: "GET",
+      headers: {
+        "Content-Type": "application/json",
+        Authorization: `Bearer ${idToken}`,
+      },
+      signal,
+    }
+  );
+
+  if (res.status === 204) {
+    return null;
+  }
+
+  if (!res.ok) {
+    throw new Error("Failed to fetch notification changes");
+  }
 
   return res.json();
 };
+
+// EventSource cannot send an Authorization header, so the stream is read with fetch. Where a proxy keeps breaking
+// the stream, this falls back to long-polling the changes endpoint from the newest id the client has.
+export const subscribeToNotifications = ({
+  idToken,
+  onNotification,
+  onReconnect,
+  latestId,
+  onChanges,
+}: {
+  idToken: string;
+  onNotification: (notification: Notification) => void;
+  onReconnect?: () => void;
+  latestId: () => number;
+  onChanges: (changes: NotificationChanges) => void;
+}): (() => void) => {
+  const controller = new AbortController();
+  let retryDelay = 1000;
+  let received = false;
+
+  const backOff = async () => {
+    await new Promise((resolve) => setTimeout(resolve, retryDelay));
+    retryDelay = Math.min(retryDelay * 2, 30000);
+  };
+
+  const connect = async (): Promise<void> => {
+    const res = await fetch("http://localhost:8080/api/notifications/stream", {
+      headers: {
+        Accept: "text/event-stream",
+        Authorization: `Bearer ${idToken}`,
+      },
+      signal: controller.signal,
+    });
+
+    if (!res.ok || !res.body) {
+      throw new Error("Failed to open notification stream");
+    }
+
+    retryDelay = 1000;
+
+    const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+    let buffer = "";
+
+    for (;;) {
+      const { value, done } = await reader.read();
+
+      if (done) {
+        return;
+      }
+
+      received = true;
+      buffer += value;
+      const events = buffer.split("\n\n");
+      buffer = events.pop() ?? "";
+
+      for (const event of events) {
+        const data = event
+          .split("\n")
+          .filter((line) => line.startsWith("data:"))
+          .map((line) => line.slice(5))
+          .join("\n");
+
+        // Heartbeats are comment-only events without data
+        if (data) {
+          onNotification(JSON.parse(data));
+        }
+      }
+    }
+  };
+
+  const poll = async () => {
+    retryDelay = 1000;
+    let known: NotificationChanges | undefined;
+
+    while (!controller.signal.aborted) {
+      try {
+        const changes = await fetchNotificationChanges({
+          since: latestId(),
+          readUpTo: known?.readUpToId,
+          unread: known?.unread,
+          idToken,
+          signal: controller.signal,
+        });
+
+        retryDelay = 1000;
+
+        if (changes) {
+          known = changes;
+          onChanges(changes);
+        }
+      } catch {
+        if (controller.signal.aborted) {
+          return;
+        }
+        await backOff();
+      }
+    }
+  };
+
+  const run = async () => {
+    let reconnecting = false;
+    let failures = 0;
+
+    while (!controller.signal.aborted) {
+      if (reconnecting) {
+        // Anything sent while disconnected (or dropped on overflow) is only in the list endpoint
+        onReconnect?.();
+      }
+
+      received = false;
+
+      try {
+        await connect();
+      } catch {
+        if (controller.signal.aborted) {
+          return;
+        }
+        await backOff();
+      }
+
+      failures = received ? 0 : failures + 1;
+
+      if (failures >= MAX_STREAM_FAILURES) {
+        return poll();
+      }
+
+      reconnecting = true;
+    }
+  };
+
+  run();
+
+  return () => controller.abort();
+};
@@ -0,0 +1,18 @@
+import { useQuery } from "@tanstack/react-query";
+import { fetchBadges } from "@/api/badge";
+import { useFirebaseIdToken } from "@/hooks/useFirebaseIdToken";
+
+export function useBadges() {
+  const { user, idToken } = useFirebaseIdToken();
+
+  const { data: badges } = useQuery({
+    queryKey: ["badges"],
+    queryFn: () => fetchBadges(idToken),
+    enabled: !!user && !!idToken,
+  });
+
+  return {
+    unreadNotifications: badges?.unreadNotifications ?? 0,
+    pendingInvitations: badges?.pendingInvitations ?? 0,
+  };
+}
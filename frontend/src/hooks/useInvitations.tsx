@@ -71,6 +71,7 @@ export function useInvitations({
     },
     onSettled: () => {
       queryClient.invalidateQueries({ queryKey: ["invitations"] });
+      queryClient.invalidateQueries({ queryKey: ["badges"] });
     },
   });
 
@@ -111,6 +112,7 @@ export function useInvitations({
     },
     onSettled: () => {
       queryClient.invalidateQueries({ queryKey: ["invitations"] });
+      queryClient.invalidateQueries({ queryKey: ["badges"] });
     },
   });
 
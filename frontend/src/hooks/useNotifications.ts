@@ -1,11 +1,15 @@
+import { useEffect } from "react";
 import { useQuery, useMutation, useQueryClient } from "@tanstack/react-query";
 import {
   fetchRecentNotifications,
   markAllNotificationsAsRead,
   markNotificationAsRead,
+  markNotificationsAsRead,
+  subscribeToNotifications,
 } from "@/api/notification";
-import { Notification } from "@/lib/types";
+import { BadgeCounts, Notification } from "@/lib/types";
 import { useFirebaseIdToken } from "@/hooks/useFirebaseIdToken";
+import { useBadges } from "@/hooks/useBadges";
 
 export function useNotifications() {
   const queryClient = useQueryClient();
@@ -14,12 +18,66 @@ export function useNotifications() {
 
   const isAuthenticated = !!user;
 
+  const { unreadNotifications } = useBadges();
+
   const { data: notifications, isLoading: notificationsLoading } = useQuery({
     queryKey: ["notifications"],
     queryFn: () => fetchRecentNotifications({ idToken }),
     enabled: isAuthenticated && !!idToken,
+    // New notifications arrive over the stream below instead of by refetching
+    staleTime: Infinity,
+    refetchOnWindowFocus: false,
   });
 
+  useEffect(() => {
+    if (!isAuthenticated || !idToken) {
+      return;
+    }
+
+    return subscribeToNotifications({
+      idToken,
+      onNotification: (notification) => {
+        queryClient.setQueryData<Notification[]>(["notifications"], (old) =>
+          old?.some((n) => n.id === notification.id)
+            ? old
+            : [notification, ...(old ?? [])]
+        );
+        queryClient.invalidateQueries({ queryKey: ["badges"] });
+      },
+      onReconnect: () => {
+        queryClient.invalidateQueries({ queryKey: ["notifications"] });
+        queryClient.invalidateQueries({ queryKey: ["badges"] });
+      },
+      latestId: () =>
+        Math.max(
+          0,
+          ...(queryClient
+            .getQueryData<Notification[]>(["notifications"])
+            ?.map((n) => n.id) ?? [])
+        ),
+      onChanges: (changes) => {
+        if (changes.truncated) {
+          queryClient.invalidateQueries({ queryKey: ["notifications"] });
+        } else {
+          queryClient.setQueryData<Notification[]>(["notifications"], (old) => {
+            // Answers re-send a window below `since` to catch rows that committed late
+            const known = new Set(old?.map((n) => n.id));
+            const added = changes.notifications.filter((n) => !known.has(n.id));
+
+            return [...added, ...(old ?? [])].map((notification) =>
+              notification.id <= changes.readUpToId
+                ? { ...notification, read: true }
+                : notification
+            );
+          });
+        }
+        queryClient.setQueryData<BadgeCounts>(["badges"], (old) =>
+          old ? { ...old, unreadNotifications: changes.unread } : old
+        );
+      },
+    });
+  }, [isAuthenticated, idToken, queryClient]);
+
   const markAsReadMutation = useMutation({
     mutationFn: (notificationId: number) =>
       markNotificationAsRead(notificationId, idToken),
@@ -49,11 +107,46 @@ export function useNotifications() {
     },
     onSettled: () => {
       queryClient.invalidateQueries({ queryKey: ["notifications"] });
+      queryClient.invalidateQueries({ queryKey: ["badges"] });
     },
   });
 
+  const markSelectedAsReadMutation = useMutation({
+    mutationFn: (notificationIds: number[]) =>
+      markNotificationsAsRead(notificationIds, idToken),
+    onMutate: async (notificationIds) => {
+      await queryClient.cancelQueries({ queryKey: ["notifications"] });
+      const previousNotifications = queryClient.getQueryData<Notification[]>([
+        "notifications",
+      ]);
+
+      queryClient.setQueryData<Notification[]>(["notifications"], (old) =>
+        old?.map((notification) =>
+          notificationIds.includes(notification.id)
+            ? { ...notification, read: true }
+            : notification
+        )
+      );
+
+      return { previousNotifications };
+    },
+    onError: (err, variables, context) => {
+      if (context?.previousNotifications) {
+        queryClient.setQueryData(
+          ["notifications"],
+          context.previousNotifications
+        );
+      }
+    },
+    onSettled: () => {
+      queryClient.invalidateQueries({ queryKey: ["notifications"] });
+      queryClient.invalidateQueries({ queryKey: ["badges"] });
+    },
+  });
+
+  // Only mark what the user has seen; anything newer than the loaded list stays unread
   const markAllAsReadMutation = useMutation({
-    mutationFn: () => markAllNotificationsAsRead(idToken),
+    mutationFn: (upTo: number) => markAllNotificationsAsRead(idToken, upTo),
     onMutate: async () => {
       await queryClient.cancelQueries({ queryKey: ["notifications"] });
       const previousNotifications = queryClient.getQueryData<Notification[]>([
@@ -63,6 +156,9 @@ export function useNotifications() {
       queryClient.setQueryData<Notification[]>(["notifications"], (old) =>
         old?.map((notification) => ({ ...notification, read: true }))
       );
+      queryClient.setQueryData<BadgeCounts>(["badges"], (old) =>
+        old ? { ...old, unreadNotifications: 0 } : old
+      );
 
       return { previousNotifications };
     },
@@ -76,10 +172,13 @@ export function useNotifications() {
     },
     onSettled: () => {
       queryClient.invalidateQueries({ queryKey: ["notifications"] });
+      queryClient.invalidateQueries({ queryKey: ["badges"] });
     },
   });
 
-  const hasUnreads = notifications?.some((notification) => !notification.read);
+  const hasUnreads =
+    unreadNotifications > 0 ||
+    notifications?.some((notification) => !notification.read);
 
   const handleMarkAsRead = (
     notification: Notification,
@@ -91,9 +190,19 @@ export function useNotifications() {
     if (callback) callback();
   };
 
+  const handleMarkSelectedAsRead = (selected: Notification[]) => {
+    const unreadIds = selected.filter((n) => !n.read).map((n) => n.id);
+
+    if (unreadIds.length > 0) {
+      markSelectedAsReadMutation.mutate(unreadIds);
+    }
+  };
+
   const handleMarkAllAsRead = () => {
     if (notifications?.some((n) => !n.read)) {
-      markAllAsReadMutation.mutate();
+      markAllAsReadMutation.mutate(
+        Math.max(...notifications.map((n) => n.id))
+      );
     }
   };
 
@@ -103,7 +212,11 @@ export function useNotifications() {
     notificationsLoading,
     hasUnreads,
     handleMarkAsRead,
+    handleMarkSelectedAsRead,
     handleMarkAllAsRead,
+    markSelectedAsReadMutation: {
+      isPending: markSelectedAsReadMutation.isPending,
+    },
     markAllAsReadMutation: {
       isPending: markAllAsReadMutation.isPending,
     },
@@ -49,3 +49,24 @@ export type PaginatedResponse<T> = {
   totalPages: number;
   last: boolean;
 };
+
+export type MarkReadResult = {
+  updated: number;
+};
+
+export type CursorPage<T> = {
+  content: T[];
+  nextCursor: string | null;
+};
+
+export type NotificationChanges = {
+  notifications: Notification[];
+  truncated: boolean;
+  readUpToId: number;
+  unread: number;
+};
+
+export type BadgeCounts = {
+  unreadNotifications: number;
+  pendingInvitations: number;
+};